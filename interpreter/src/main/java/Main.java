@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.util.Scanner;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import components.*;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
@@ -61,79 +62,101 @@ public class Main {
                     String filePath = args[1];
                     int port = args.length > 2 ? Integer.parseInt(args[2]) : 8888;
                     runWithProfiling(filePath, port);
-                } else {
-                    String filePath = args[0];
-                    File file = new File(filePath);
-                    if (!file.exists()) {
-                        ErrorHandler.reportError("File Error", "Could not find file: " + filePath);
-                        return;
+                } else if (args[0].equals("--snapshot")) {
+                    String trainingScript = args.length > 1 ? args[1] : null;
+                    if (Snapshot.isTraining()) {
+                        Snapshot.train(trainingScript, Main::runFileReportingErrors);
+                    } else {
+                        Snapshot.create(Main.class.getName(), trainingScript);
                     }
-
-                    if (!file.canRead()) {
-                        ErrorHandler.reportError("File Error", "Cannot read file: " + filePath + ". Check permissions.");
+                } else if (args[0].equals("--daemon")) {
+                    Daemon.serve(Main::runFileReportingErrors);
+                } else if (args[0].equals("--client")) {
+                    if (args.length < 2) {
+                        System.out.println("Error: Missing file argument for client mode.");
+                        System.out.println("Usage: vg --client <file>");
                         return;
                     }
 
-                    if (!filePath.toLowerCase().endsWith(".vg")) {
-                        ErrorHandler.reportError("File Error", "File must have .vg extension: " + filePath);
-                        return;
-                    }
-                    ErrorHandler.setCurrentFile(filePath);
-                    try {
-                        Path scriptPath = Paths.get(filePath).toAbsolutePath();
-                        Path projectRoot = scriptPath.getParent();
-                        Path packageFolder = projectRoot.resolve("packages");
-
-                        if (!Files.exists(packageFolder)) {
-                            Files.createDirectories(packageFolder);
-                            System.out.println("Created packages directory: " + packageFolder);
-                        }
-
-                        String sourceCode = new String(Files.readAllBytes(Paths.get(filePath)));
-                        Interpreter interpreter = new Interpreter(packageFolder.toString());
-
-                        loadAvailableLibraries(interpreter, packageFolder.toString(), false);
-
-                        String libraryFolder = System.getenv("VG_LIBRARIES_PATH");
-                        if (libraryFolder != null && !libraryFolder.isEmpty()) {
-                            loadAvailableLibraries(interpreter, libraryFolder, false);
-                        }
-
-                        Path projectsFolder = projectRoot.resolve("projects");
-                        if (Files.exists(projectsFolder) && Files.isDirectory(projectsFolder)) {
-                            Path projectPackagesFolder = projectsFolder.resolve("packages");
-                            if (Files.exists(projectPackagesFolder)) {
-                                loadAvailableLibraries(interpreter, projectPackagesFolder.toString(), false);
-                            }
-                        }
-
-                        try {
-                            interpreter.interpret(sourceCode);
-                        } catch (ErrorHandler.VGException e) {
-                            int line = e.getLine();
-                            int column = e.getColumn();
-
-                            if (line <= 0) {
-                                System.err.println("VG Error: " + e.getMessage());
-                            } else {
-                                ErrorHandler.reportRuntimeError(line, column, e.getMessage());
-                            }
-                        } catch (Exception e) {
-                            System.err.println("Runtime error: " + e.getMessage());
-                        }
-                    } catch (IOException e) {
-                        ErrorHandler.reportError("File Error", "Error reading file: " + e.getMessage());
+                    if (!Daemon.forward(args[1])) {
+                        runFile(args[1]);
                     }
+                } else {
+                    runFile(args[0]);
                 }
             } else {
                 startREPL();
             }
         } catch (Exception e) {
-            System.err.println("VG Language internal error: " + e.getMessage());
-            System.err.println("Please report this issue to the VG Language team.");
+            reportInternalError(e);
+        }
+    }
+
+    private static void runFile(String filePath) {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            ErrorHandler.reportError("File Error", "Could not find file: " + filePath);
+            return;
+        }
+
+        if (!file.canRead()) {
+            ErrorHandler.reportError("File Error", "Cannot read file: " + filePath + ". Check permissions.");
+            return;
+        }
+
+        if (!filePath.toLowerCase().endsWith(".vg")) {
+            ErrorHandler.reportError("File Error", "File must have .vg extension: " + filePath);
+            return;
+        }
+        ErrorHandler.setCurrentFile(filePath);
+        try {
+            Path scriptPath = Paths.get(filePath).toAbsolutePath();
+            Path projectRoot = scriptPath.getParent();
+            Path packageFolder = projectRoot.resolve("packages");
+
+            if (!Files.exists(packageFolder)) {
+                Files.createDirectories(packageFolder);
+                System.out.println("Created packages directory: " + packageFolder);
+            }
+
+            String sourceCode = new String(Files.readAllBytes(Paths.get(filePath)));
+            // The script parses while the interpreter starts up
+            Future<Object> parsed = Interpreter.parseInBackground(scriptPath, sourceCode);
+            Interpreter interpreter = new Interpreter(packageFolder.toString());
+
+            try {
+                interpreter.interpretFile(scriptPath, sourceCode, parsed);
+            } catch (ErrorHandler.VGException e) {
+                int line = e.getLine();
+                int column = e.getColumn();
+
+                if (line <= 0) {
+                    System.err.println("VG Error: " + e.getMessage());
+                } else {
+                    ErrorHandler.reportRuntimeError(line, column, e.getMessage());
+                }
+            } catch (Exception e) {
+                System.err.println("Runtime error: " + e.getMessage());
+            }
+        } catch (IOException e) {
+            ErrorHandler.reportError("File Error", "Error reading file: " + e.getMessage());
+        }
+    }
+
+    // For the daemon, which has no main() around each script to report what escapes it
+    private static void runFileReportingErrors(String filePath) {
+        try {
+            runFile(filePath);
+        } catch (Exception e) {
+            reportInternalError(e);
         }
     }
 
+    private static void reportInternalError(Exception e) {
+        System.err.println("VG Language internal error: " + e.getMessage());
+        System.err.println("Please report this issue to the VG Language team.");
+    }
+
     private static void startREPL() {
         System.out.println("VG Language Interactive REPL (Read-Eval-Print Loop)");
         System.out.println("Type 'exit' or 'quit' to exit the REPL");
@@ -342,6 +365,9 @@ public class Main {
         System.out.println("  vg --docgen <in> <out>     Generate documentation");
         System.out.println("  vg --debug <file> [breakpoints] [--profile-port <port>]   Run with debugging and profiling");
         System.out.println("  vg --profile <file> [port] Run the program with profiling enabled (default port: 8888)");
+        System.out.println("  vg --snapshot [file]       Write a startup snapshot, trained on <file> or a built-in script");
+        System.out.println("  vg --daemon                Keep a warm interpreter running for --client");
+        System.out.println("  vg --client <file>         Run a VG program on the daemon, or here if none can run it");
         System.out.println("");
         System.out.println("Documentation Generation:");
         System.out.println("  vg --docgen <input-path> <output-directory>");
@@ -360,6 +386,19 @@ public class Main {
         System.out.println("    Enables performance profiling without debugging");
         System.out.println("    Starts a server on the specified port (default: 8888) for IDE integration");
         System.out.println("");
+        System.out.println("Startup Snapshot:");
+        System.out.println("  vg --snapshot [file]");
+        System.out.println("    Archives the classes a run loads to ~/.vg/vg.jsa (needs Java 13 or later)");
+        System.out.println("    Start VG with -XX:SharedArchiveFile=~/.vg/vg.jsa to start from it");
+        System.out.println("");
+        System.out.println("Daemon:");
+        System.out.println("  vg --daemon");
+        System.out.println("    Serves --client runs, one at a time, from this directory and environment");
+        System.out.println("  vg --client <file>");
+        System.out.println("    Runs <file> on the daemon, forwarding stdin, stdout and stderr");
+        System.out.println("    Runs it in this process if no daemon is running, it is busy or it serves another");
+        System.out.println("    directory or environment");
+        System.out.println("");
         System.out.println("Examples:");
         System.out.println("  vg program.vg              Run program.vg");
         System.out.println("  vg --docgen program.vg ./docs");
@@ -1,7 +1,12 @@
 package components;
 
-public class BreakException extends RuntimeException {
-    public BreakException() {
+public class BreakException extends ControlFlowSignal {
+    private static final long serialVersionUID = 1L;
+
+    /** Carries no state, so every {@code break} throws this one instance. */
+    public static final BreakException INSTANCE = new BreakException();
+
+    private BreakException() {
         super();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package components;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The value of an array literal whose elements are all constants. Each
+ * evaluation of the literal yields its own array, but they all read the
+ * literal's elements until one of them is first changed, at which point that
+ * one copies them into a list of its own.
+ */
+public final class ConstantArray extends AbstractList<Object> implements RandomAccess {
+    private final Object[] shared;
+    private List<Object> own;
+
+    /** {@code shared} must only hold immutable values, and is never written. */
+    public ConstantArray(Object[] shared) {
+        this.shared = shared;
+    }
+
+    private List<Object> writable() {
+        if (own == null) {
+            own = new ArrayList<>(Arrays.asList(shared));
+        }
+        return own;
+    }
+
+    @Override
+    public Object get(int index) {
+        if (own != null) {
+            return own.get(index);
+        }
+        if (index < 0 || index >= shared.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + shared.length);
+        }
+        return shared[index];
+    }
+
+    @Override
+    public int size() {
+        return own != null ? own.size() : shared.length;
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        return writable().set(index, element);
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        writable().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public Object remove(int index) {
+        Object removed = writable().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        writable().clear();
+        modCount++;
+    }
+}
@@ -1,7 +1,12 @@
 package components;
 
-public class ContinueException extends RuntimeException {
-    public ContinueException() {
+public class ContinueException extends ControlFlowSignal {
+    private static final long serialVersionUID = 1L;
+
+    /** Carries no state, so every {@code continue} throws this one instance. */
+    public static final ContinueException INSTANCE = new ContinueException();
+
+    private ContinueException() {
         super();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package components;
+
+/**
+ * Base of the exceptions that carry {@code break}, {@code continue} and
+ * {@code return} out of the statements that contain them. They are part of
+ * normal control flow rather than errors, so they record no stack trace and
+ * cannot be suppressed: throwing one costs no more than the unwinding itself.
+ */
+public abstract class ControlFlowSignal extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    protected ControlFlowSignal() {
+        super(null, null, false, false);
+    }
+}
@@ -0,0 +1,488 @@
+package components;
+
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.awt.Window;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A long-lived interpreter process that runs scripts for {@code vg --client},
+ * so that short scripts skip JVM startup and run on warm, compiled
+ * interpreter code, with the ANTLR DFA, the parsed allowlist and the
+ * library cache already in memory.
+ * <p>
+ * The daemon listens on a loopback port and writes the port and a random
+ * secret to {@code ~/.vg/daemon} ({@code -Dvg.daemon.file} overrides it);
+ * only clients that can read that file can run scripts. Each connection is
+ * handled on a thread of its own, so a client that stalls before sending
+ * its script only times out itself. Scripts replace the process's standard
+ * streams with the client's stdin, stdout and stderr, so they run one at a
+ * time, each in a fresh {@link Interpreter}; a client that finds the daemon
+ * busy, slow or unreachable runs the script itself. So does one whose
+ * working directory or environment differs from the daemon's, since scripts
+ * resolve paths against the one and can read any variable of the other.
+ * <p>
+ * A session lasts as long as the script would have kept a process of its
+ * own alive: until the windows it opened are closed. Windows and timers it
+ * leaves behind, including when the client goes away first, are disposed
+ * of and stopped when the session ends.
+ */
+public final class Daemon {
+    private static final int VERSION = 2;
+    private static final Path INFO_FILE = Paths.get(System.getProperty("vg.daemon.file",
+        Paths.get(System.getProperty("user.home"), ".vg", "daemon").toString()));
+
+    // How long the daemon waits for a client's request, and for the script before it to finish
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5000;
+    private static final int BUSY_TIMEOUT_MILLIS = 1000;
+    // How long a client waits to connect, and for the daemon to take or decline its script
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int REPLY_TIMEOUT_MILLIS = 5000;
+    // How often the daemon checks on the windows and the client of a finished script
+    private static final int WINDOW_POLL_MILLIS = 200;
+
+    // Variables shells maintain per command; the working directory is compared by itself
+    private static final List<String> SHELL_VARIABLES = Arrays.asList("_", "SHLVL", "OLDPWD", "PWD");
+
+    // Frames sent to the client
+    private static final int EXIT = 0;
+    private static final int STDOUT = 1;
+    private static final int STDERR = 2;
+    private static final int DECLINED = 3;
+    private static final int ACCEPTED = 4;
+
+    // Held by the connection whose script owns the process's standard streams
+    private static final ReentrantLock RUNNING = new ReentrantLock();
+
+    private Daemon() {
+    }
+
+    /** Runs a script file as {@code vg <file>} does. */
+    public interface ScriptRunner {
+        void run(String filePath);
+    }
+
+    /** Serves clients until the process is stopped. */
+    public static void serve(ScriptRunner runner) throws IOException {
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        publish(server.getLocalPort(), secret);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                Files.deleteIfExists(INFO_FILE);
+            } catch (IOException ignored) {
+                // Clients find nothing listening and run scripts themselves
+            }
+        }));
+        System.out.println("VG daemon listening on port " + server.getLocalPort());
+
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        InputStream in = System.in;
+        while (true) {
+            Socket socket = server.accept();
+            Thread worker = new Thread(() -> {
+                try (Socket connection = socket) {
+                    serve(connection, secret, runner, out, err, in);
+                } catch (IOException e) {
+                    err.println("VG daemon: client disconnected: " + e.getMessage());
+                }
+            }, "vg-daemon-client");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private static void serve(Socket socket, byte[] secret, ScriptRunner runner,
+                              PrintStream out, PrintStream err, InputStream in) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+        byte[] presented = new byte[secret.length];
+        input.readFully(presented);
+        if (!MessageDigest.isEqual(presented, secret)) {
+            return;
+        }
+        if (input.readInt() != VERSION) {
+            decline(output);
+            return;
+        }
+        String workingDirectory = input.readUTF();
+        Map<String, String> environment = readEnvironment(input);
+        String filePath = input.readUTF();
+        if (!workingDirectory.equals(workingDirectory()) || !environment.equals(environment())) {
+            decline(output);
+            return;
+        }
+        if (!acquire()) {
+            // Declined well within the client's wait, so it never runs a script the daemon also runs
+            decline(output);
+            return;
+        }
+
+        try {
+            socket.setSoTimeout(0);
+            output.writeByte(ACCEPTED);
+            output.flush();
+
+            PrintStream scriptOut = new PrintStream(new FrameOutputStream(output, STDOUT), true);
+            PrintStream scriptErr = new PrintStream(new FrameOutputStream(output, STDERR), true);
+            System.setOut(scriptOut);
+            System.setErr(scriptErr);
+            System.setIn(new FrameInputStream(input));
+            ErrorHandler.resetErrorTracking();
+            Session session = new Session();
+            try {
+                runner.run(filePath);
+                session.awaitWindows(output);
+            } catch (RuntimeException | Error e) {
+                // What would have ended a process of its own only ends this script
+                Thread.getDefaultUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+            } finally {
+                session.end();
+                scriptOut.flush();
+                scriptErr.flush();
+            }
+            synchronized (output) {
+                output.writeByte(EXIT);
+                output.flush();
+            }
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+            System.setIn(in);
+            RUNNING.unlock();
+        }
+    }
+
+    private static boolean acquire() {
+        try {
+            return RUNNING.tryLock(BUSY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void decline(DataOutputStream output) throws IOException {
+        output.writeByte(DECLINED);
+        output.flush();
+    }
+
+    /**
+     * Runs {@code filePath} on a daemon if one is listening and can run it
+     * for this process, forwarding stdin, stdout and stderr. Returns false,
+     * having run nothing, if not.
+     */
+    public static boolean forward(String filePath) {
+        List<String> info;
+        try {
+            info = Files.readAllLines(INFO_FILE, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return false;
+        }
+        if (info.size() < 2) {
+            return false;
+        }
+
+        boolean started = false;
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                Integer.parseInt(info.get(0).trim())), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(REPLY_TIMEOUT_MILLIS);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            output.write(fromHex(info.get(1).trim()));
+            output.writeInt(VERSION);
+            output.writeUTF(workingDirectory());
+            writeEnvironment(output, environment());
+            output.writeUTF(filePath);
+            output.flush();
+
+            Thread stdin = new Thread(() -> pumpStdin(output), "vg-client-stdin");
+            stdin.setDaemon(true);
+            while (true) {
+                int frame = input.readUnsignedByte();
+                if (frame == DECLINED) {
+                    return false;
+                }
+                if (frame == ACCEPTED) {
+                    // Only now, so that a declined script still has all of stdin to run with
+                    started = true;
+                    // The script may take as long as it likes
+                    socket.setSoTimeout(0);
+                    stdin.start();
+                    continue;
+                }
+                if (frame == EXIT) {
+                    System.out.flush();
+                    System.err.flush();
+                    return true;
+                }
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                PrintStream target = frame == STDERR ? System.err : System.out;
+                target.write(bytes, 0, bytes.length);
+                target.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!started) {
+                // Nothing ran: a stale daemon file, or a daemon that is busy, stuck or went away
+                return false;
+            }
+            System.err.println("VG Error: Lost connection to the VG daemon: " + e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Returns the variables a script sees, except those a shell sets anew
+     * for every command it runs, which would otherwise keep any two
+     * processes apart.
+     */
+    private static Map<String, String> environment() {
+        Map<String, String> environment = new HashMap<>(System.getenv());
+        environment.keySet().removeAll(SHELL_VARIABLES);
+        return environment;
+    }
+
+    private static void writeEnvironment(DataOutputStream output, Map<String, String> environment)
+            throws IOException {
+        output.writeInt(environment.size());
+        for (Map.Entry<String, String> variable : environment.entrySet()) {
+            output.writeUTF(variable.getKey());
+            output.writeUTF(variable.getValue());
+        }
+    }
+
+    private static Map<String, String> readEnvironment(DataInputStream input) throws IOException {
+        int size = input.readInt();
+        Map<String, String> environment = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            environment.put(input.readUTF(), input.readUTF());
+        }
+        return environment;
+    }
+
+    private static void pumpStdin(DataOutputStream output) {
+        byte[] buffer = new byte[8192];
+        try {
+            for (int n; (n = System.in.read(buffer)) > 0; ) {
+                synchronized (output) {
+                    output.writeInt(n);
+                    output.write(buffer, 0, n);
+                    output.flush();
+                }
+            }
+            synchronized (output) {
+                output.writeInt(-1);
+                output.flush();
+            }
+        } catch (IOException ignored) {
+            // The script has finished, or the daemon went away
+        }
+    }
+
+    private static void publish(int port, byte[] secret) throws IOException {
+        Files.createDirectories(INFO_FILE.getParent());
+        // Temporary files are readable by their owner only
+        Path temporary = Files.createTempFile(INFO_FILE.getParent(), "daemon", ".tmp");
+        Files.write(temporary, (port + "\n" + toHex(secret) + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, INFO_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String workingDirectory() {
+        return Paths.get("").toAbsolutePath().toString();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /**
+     * The windows and timers one script starts. A script that opens a
+     * window keeps its session, like its process, alive until the window is
+     * closed; whatever is left when the session ends goes with it.
+     */
+    private static final class Session {
+        private final Set<Window> before = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Session() {
+            if (!GraphicsEnvironment.isHeadless()) {
+                before.addAll(Arrays.asList(Window.getWindows()));
+            }
+        }
+
+        /**
+         * Waits until the script's windows are all closed, checking that the
+         * client is still there while they are not.
+         */
+        void awaitWindows(DataOutputStream output) throws IOException {
+            while (!windows().isEmpty()) {
+                try {
+                    Thread.sleep(WINDOW_POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // An empty frame, which fails once the client has gone away
+                synchronized (output) {
+                    output.writeByte(STDOUT);
+                    output.writeInt(0);
+                    output.flush();
+                }
+            }
+        }
+
+        void end() {
+            Interpreter.stopAllTimers();
+            for (Window window : windows()) {
+                EventQueue.invokeLater(() -> {
+                    if (window instanceof MyGUI) {
+                        ((MyGUI) window).killAllTimers();
+                    }
+                    window.dispose();
+                });
+            }
+        }
+
+        // The windows the script opened that are still open
+        private List<Window> windows() {
+            List<Window> windows = new ArrayList<>();
+            if (GraphicsEnvironment.isHeadless()) {
+                return windows;
+            }
+            for (Window window : Window.getWindows()) {
+                if (window.isDisplayable() && !before.contains(window)) {
+                    windows.add(window);
+                }
+            }
+            return windows;
+        }
+    }
+
+    /** Sends what a script writes to one of its streams as frames tagged with the stream. */
+    private static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream output;
+        private final int stream;
+
+        FrameOutputStream(DataOutputStream output, int stream) {
+            this.output = output;
+            this.stream = stream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (output) {
+                output.writeByte(stream);
+                output.writeInt(len);
+                output.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (output) {
+                output.flush();
+            }
+        }
+    }
+
+    /** Reads the client's stdin from the frames it sends, a negative length marking its end. */
+    private static final class FrameInputStream extends InputStream {
+        private final DataInputStream input;
+        private int remaining;
+        private boolean ended;
+
+        FrameInputStream(DataInputStream input) {
+            this.input = input;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (remaining == 0) {
+                if (ended) {
+                    return -1;
+                }
+                try {
+                    remaining = input.readInt();
+                } catch (EOFException e) {
+                    remaining = -1;
+                }
+                if (remaining < 0) {
+                    remaining = 0;
+                    ended = true;
+                }
+            }
+            int n = input.read(b, off, Math.min(len, remaining));
+            if (n < 0) {
+                ended = true;
+                remaining = 0;
+                return -1;
+            }
+            remaining -= n;
+            return n;
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class ErrorHandler implements Thread.UncaughtExceptionHandler {
     private static boolean useColorOutput = true;
     private static String currentFilePath = "";
     private static Set<String> reportedErrors = new HashSet<>();
+    private static boolean awtHandlerInstalled = false;
     private static final long ERROR_RESET_INTERVAL = 5000; // 5 seconds
 
     static {
@@ -26,9 +27,6 @@ public class ErrorHandler implements Thread.UncaughtExceptionHandler {
         // Disable standard Java stack traces
         System.setProperty("java.awt.exceptionHandler", "components.ErrorHandler");
         
-        // Install our custom exception handler for AWT events
-        installAWTExceptionHandler();
-        
         // Start a timer to reset error tracking
         Thread resetThread = new Thread(() -> {
             while (true) {
@@ -47,7 +45,7 @@ public class ErrorHandler implements Thread.UncaughtExceptionHandler {
     /**
      * Reset the error tracking to allow errors to be shown again
      */
-    private static synchronized void resetErrorTracking() {
+    static synchronized void resetErrorTracking() {
         reportedErrors.clear();
     }
     
@@ -115,6 +113,20 @@ public class ErrorHandler implements Thread.UncaughtExceptionHandler {
         }
     }
 
+    /**
+     * Installs the AWT exception handler before a script first uses a class
+     * from AWT, Swing or {@link MyGUI}. Installing it starts the event
+     * dispatch thread, which keeps the JVM alive for a second after
+     * everything else is done, so scripts without a GUI never start it.
+     */
+    static synchronized void prepareFor(String className) {
+        if (!awtHandlerInstalled && (className.startsWith("java.awt.") || className.startsWith("javax.swing.")
+                || className.startsWith("components.MyGUI"))) {
+            awtHandlerInstalled = true;
+            installAWTExceptionHandler();
+        }
+    }
+
     /**
      * Installs a custom exception handler for AWT event dispatch thread
      */
@@ -389,6 +401,7 @@ public class ErrorHandler implements Thread.UncaughtExceptionHandler {
 
 
     public static class VGException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
         private final int line;
         private final int column;
 
@@ -432,36 +445,48 @@ public class ErrorHandler implements Thread.UncaughtExceptionHandler {
     }
 
     public static class VGTypeException extends VGException {
+        private static final long serialVersionUID = 1L;
+
         public VGTypeException(String message, int line, int column) {
             super(message, line, column);
         }
     }
 
     public static class VGNameException extends VGException {
+        private static final long serialVersionUID = 1L;
+
         public VGNameException(String message, int line, int column) {
             super(message, line, column);
         }
     }
 
     public static class VGImportException extends VGException {
+        private static final long serialVersionUID = 1L;
+
         public VGImportException(String message, int line, int column) {
             super(message, line, column);
         }
     }
 
     public static class VGSyntaxException extends VGException {
+        private static final long serialVersionUID = 1L;
+
         public VGSyntaxException(String message, int line, int column) {
             super("Syntax error: " + message, line, column);
         }
     }
     
     public static class VGFileException extends VGException {
+        private static final long serialVersionUID = 1L;
+
         public VGFileException(String message, int line, int column) {
             super("File error: " + message, line, column);
         }
     }
     
     public static class VGArgumentException extends VGException {
+        private static final long serialVersionUID = 1L;
+
         public VGArgumentException(String message, int line, int column) {
             super("Argument error: " + message, line, column);
         }
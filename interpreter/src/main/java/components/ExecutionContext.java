@@ -0,0 +1,34 @@
+package components;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * What one thread running code in an {@link Interpreter} changes as it
+ * goes: its scope stack, the position errors are reported at and its call
+ * depth. Each thread has its own, so GUI callbacks and other threads never
+ * push onto the stack the main script is using. The program, libraries and
+ * the global scope at the bottom of every stack are shared.
+ */
+public final class ExecutionContext {
+    private final Deque<SymbolTable> symbolTableStack = new ArrayDeque<>();
+    int currentLine;
+    int currentColumn;
+    int callDepth;
+
+    ExecutionContext(SymbolTable globalSymbolTable) {
+        symbolTableStack.push(globalSymbolTable);
+    }
+
+    public Deque<SymbolTable> getSymbolTableStack() {
+        return symbolTableStack;
+    }
+
+    public int getCurrentLine() {
+        return currentLine;
+    }
+
+    public int getCurrentColumn() {
+        return currentColumn;
+    }
+}
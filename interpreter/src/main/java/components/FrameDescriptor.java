@@ -0,0 +1,125 @@
+package components;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Static layout of a function, loop or catch scope: the names it can declare
+ * and the slot each one occupies. Scopes created from a descriptor store
+ * those names in a flat array instead of a map.
+ * <p>
+ * Each descriptor also keeps the scopes of finished calls, so that a call
+ * can reuse one instead of allocating. The pool belongs to the first thread
+ * that releases a scope to it, which claims it atomically, so only that
+ * thread ever touches it; scopes made or finished on any other thread
+ * bypass it.
+ */
+public class FrameDescriptor implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int POOL_SIZE = 16;
+
+    private final String[] names;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final int[] parameterSlots;
+
+    private static final AtomicReferenceFieldUpdater<FrameDescriptor, Thread> OWNER =
+        AtomicReferenceFieldUpdater.newUpdater(FrameDescriptor.class, Thread.class, "owner");
+
+    private transient volatile Thread owner;
+    // The global table last told the names of this frame; each interpreter's is told once
+    private transient volatile SymbolTable registeredWith;
+    private transient SymbolTable[] pool;
+    private transient int pooled;
+
+    public FrameDescriptor(List<String> parameters, Collection<String> locals) {
+        this.parameterSlots = new int[parameters.size()];
+        for (int i = 0; i < parameters.size(); i++) {
+            parameterSlots[i] = addName(parameters.get(i));
+        }
+        for (String local : locals) {
+            addName(local);
+        }
+        this.names = new String[slots.size()];
+        for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+            names[entry.getValue()] = entry.getKey();
+        }
+    }
+
+    private int addName(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(name, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slot of {@code name}, or -1 if this frame does not declare it.
+     */
+    public int getSlot(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Slot of each parameter, in declaration order. A repeated parameter name
+     * maps to the same slot, so the last argument wins as with named scopes.
+     */
+    public int[] getParameterSlots() {
+        return parameterSlots;
+    }
+
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+    public int getSize() {
+        return names.length;
+    }
+
+    /**
+     * Returns an empty scope for this frame under {@code global}, reusing a
+     * released one if there is one.
+     */
+    SymbolTable obtain(SymbolTable global) {
+        if (owner == Thread.currentThread() && pooled > 0) {
+            SymbolTable scope = pool[--pooled];
+            pool[pooled] = null;
+            scope.attach(global);
+            return scope;
+        }
+        return new SymbolTable(this, global);
+    }
+
+    /**
+     * Tells {@code global} that scopes of its interpreter may bind the names
+     * of this frame, before the first such scope is made.
+     */
+    void registerNames(SymbolTable global) {
+        if (registeredWith != global) {
+            global.addLocalNames(slots.keySet());
+            registeredWith = global;
+        }
+    }
+
+    /** Keeps {@code scope}, which no one refers to any more, for a later {@link #obtain}. */
+    void release(SymbolTable scope) {
+        Thread current = Thread.currentThread();
+        if (owner != current) {
+            if (owner != null || !OWNER.compareAndSet(this, null, current)) {
+                return;
+            }
+            pool = new SymbolTable[POOL_SIZE];
+        }
+        if (pooled == POOL_SIZE) {
+            return;
+        }
+        scope.clear();
+        pool[pooled++] = scope;
+    }
+}
@@ -1,15 +1,24 @@
 package components;
 
+import components.nodes.FunctionBodyNode;
+import components.nodes.NodeBuilder;
+
 import java.util.List;
 public class Function {
     private List<String> parameters;
     private vg_langParser.BlockContext block;
+    private FunctionBodyNode body;
     private Interpreter interpreter;
 
 
     public Function(List<String> parameters, vg_langParser.BlockContext block, Interpreter interpreter) {
+        this(parameters, block, null, interpreter);
+    }
+
+    public Function(List<String> parameters, vg_langParser.BlockContext block, FunctionBodyNode body, Interpreter interpreter) {
         this.parameters = parameters;
         this.block = block;
+        this.body = body;
         this.interpreter = interpreter;
     }
 
@@ -17,10 +26,26 @@ public class Function {
 
     public vg_langParser.BlockContext getBlock() {return block;}
 
+    /**
+     * Executable body, lowered on first use so library functions that are
+     * never called cost nothing beyond parsing.
+     */
+    public FunctionBodyNode getBody() {
+        if (body == null) {
+            body = new NodeBuilder(interpreter.isDebugMode()).buildFunctionBody(parameters, false, block);
+        }
+        return body;
+    }
+
     public Object call(List<Object> args) {
         if (args.size() != parameters.size()) {
             int line = block != null && block.start != null ? block.start.getLine() : 0;
             int column = block != null && block.start != null ? block.start.getCharPositionInLine() : 0;
+            if (block == null && body != null) {
+                // Declared by a program read back from its .vgc cache, which keeps no parse tree
+                line = body.getLine();
+                column = body.getColumn();
+            }
             
             throw new ErrorHandler.VGArgumentException(
                 "Function expects " + parameters.size() + " arguments but got " + args.size(),
@@ -28,23 +53,6 @@ public class Function {
             );
         }
         
-        SymbolTable functionScope = new SymbolTable();
-        
-        for (int i = 0; i < parameters.size(); i++) {
-            functionScope.set(parameters.get(i), args.get(i));
-        }
-        
-        interpreter.getSymbolTableStack().push(functionScope);
-        
-        Object result = null;
-        try {
-            interpreter.visit(block);
-        } catch (ReturnException e) {
-            result = e.getValue();
-        } finally {
-            interpreter.getSymbolTableStack().pop();
-        }
-        
-        return result;
+        return getBody().invoke(interpreter, null, args);
     }
 }
@@ -13,7 +13,11 @@ public class FunctionReference {
     }
 
     public Object call(List<Object> args) {
-        List<Object> finalArgs = new ArrayList<>(capturedArgs);
+        if (capturedArgs.isEmpty()) {
+            return function.call(args);
+        }
+        List<Object> finalArgs = new ArrayList<>(capturedArgs.size() + args.size());
+        finalArgs.addAll(capturedArgs);
         finalArgs.addAll(args);
         return function.call(finalArgs);
     }
@@ -1,5 +1,11 @@
 package components;
 
+import components.nodes.NodeBuilder;
+import components.nodes.ProgramNode;
+import components.vm.LibraryCache;
+import components.vm.VgcFile;
+import components.vm.Vm;
+import components.vm.VmCode;
 import components.visitors.*;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
@@ -17,6 +23,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import org.antlr.v4.runtime.Token;
 import java.util.stream.Stream;
 import org.antlr.v4.runtime.BaseErrorListener;
@@ -24,19 +34,25 @@ import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 
 public class Interpreter extends vg_langBaseVisitor<Object> {
-    private Deque<SymbolTable> symbolTableStack = new ArrayDeque<>();
+    // Execution state of the thread that created the interpreter, and of any other thread running code in it
+    private final Thread ownerThread = Thread.currentThread();
+    private final ExecutionContext ownerContext;
+    private final ThreadLocal<ExecutionContext> threadContexts =
+        ThreadLocal.withInitial(() -> new ExecutionContext(this.globalSymbolTable));
     private Map<String, Set<String>> allowedMethods = new HashMap<>();
     private Set<String> allowedClasses = new HashSet<>();
+    private final SystemCallHandler.Cache systemCalls = new SystemCallHandler.Cache();
+    private static final Map<String, LangConfig> langConfigs = new ConcurrentHashMap<>();
     public Map<String, BuiltInFunction> builtInFunction = new HashMap<>();
 
     SymbolTable globalSymbolTable;
     ModuleRegistry moduleRegistry;
     private String libraryFolder = System.getenv("VG_LIBRARIES_PATH");
-    private int currentLine = 0;
-    private int currentColumn = 0;
 
     // Debug support
     private boolean debugMode = false;
+    // Whether a library was loaded from the cache, so debug mode reloads it from source
+    private boolean librariesFromCache = false;
     private Set<Integer> breakpoints = new HashSet<>();
     private Scanner debugScanner = null;
     private boolean debugPaused = false;
@@ -47,7 +63,6 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
     private boolean skipNextStatement = false;
     private int stepOverDepth = 0;
     private int stepOutTargetDepth = 0;
-    private int currentCallDepth = 0;
     
     // Background command processing
     private volatile boolean isRunning = true;
@@ -75,23 +90,27 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
         }
     }
 
+    /**
+     * Stops and unregisters every timer, once the script that started them has ended
+     */
+    public static void stopAllTimers() {
+        synchronized (globalTimers) {
+            for (javax.swing.Timer timer : globalTimers) {
+                timer.stop();
+            }
+            globalTimers.clear();
+        }
+    }
+
     // Visitor instances
-    private ProgramVisitor programVisitor;
-    private ExpressionVisitor expressionVisitor;
-    private StatementVisitor statementVisitor;
     private DeclarationVisitor declarationVisitor;
-    private FunctionVisitor functionVisitor;
-    private VariableVisitor variableVisitor;
-    private LiteralVisitor literalVisitor;
     private ImportVisitor importVisitor;
-    private ArithmeticVisitor arithmeticVisitor;
-    private BasicExpressionVisitor basicExpressionVisitor;
-    private SimpleStatementVisitor simpleStatementVisitor;
     private ClassVisitor classVisitor;
+    private NodeBuilder nodeBuilder = new NodeBuilder(false);
 
     public Interpreter(String projectPackageFolder) {
-        globalSymbolTable = new SymbolTable();
-        symbolTableStack.push(globalSymbolTable);
+        globalSymbolTable = SymbolTable.createGlobal();
+        ownerContext = new ExecutionContext(globalSymbolTable);
         
         globalSymbolTable.setConstant("true", true);
         globalSymbolTable.setConstant("false", false);
@@ -101,24 +120,16 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
         String configPath = System.getenv("VG_APP_CONFIG");
         loadLangConfigFile(configPath + "/allowed_configurations.vgenv");
         moduleRegistry = new ModuleRegistry();
+        // Cached bodies carry no debugger probes
+        moduleRegistry.setLoader(file -> declareLibraries(readLibraryFile(file.toString(), !debugMode)));
 
         // Initialize visitors first
-        programVisitor = new ProgramVisitor(this);
-        expressionVisitor = new ExpressionVisitor(this);
-        statementVisitor = new StatementVisitor(this);
         declarationVisitor = new DeclarationVisitor(this);
-        functionVisitor = new FunctionVisitor(this);
-        variableVisitor = new VariableVisitor(this);
-        literalVisitor = new LiteralVisitor(this);
         importVisitor = new ImportVisitor(this);
-        arithmeticVisitor = new ArithmeticVisitor(this);
-        basicExpressionVisitor = new BasicExpressionVisitor(this);
-        simpleStatementVisitor = new SimpleStatementVisitor(this);
         classVisitor = new ClassVisitor(this);
 
-        // Load libraries after visitors are initialized
-        loadLibrariesFromFolder(libraryFolder);
-        loadLibrariesFromFolder(projectPackageFolder);
+        // Index libraries after visitors are initialized
+        loadLibraries(libraryFolder, projectPackageFolder);
     }
 
     public SymbolTable getGlobalSymbolTable() {
@@ -129,8 +140,16 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
         return moduleRegistry;
     }
 
+    /**
+     * Returns the execution state of the calling thread, created the first
+     * time a thread other than the interpreter's own runs code in it.
+     */
+    public ExecutionContext getContext() {
+        return Thread.currentThread() == ownerThread ? ownerContext : threadContexts.get();
+    }
+
     public Deque<SymbolTable> getSymbolTableStack() {
-        return symbolTableStack;
+        return getContext().getSymbolTableStack();
     }
 
     public ClassVisitor getClassVisitor() {
@@ -149,71 +168,203 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
     }
 
     public void loadLibrariesFromFolder(String folderPath) {
-        try {
-            Path path = Paths.get(folderPath);
-            if (!Files.exists(path)) {
-                Files.createDirectories(path);
-                System.out.println("Created packages directory: " + folderPath);
+        loadLibraries(folderPath);
+    }
+
+    /**
+     * Indexes every library file under {@code folderPaths}, creating folders
+     * that do not exist. A file reached through more than one folder is
+     * indexed once. Nothing is parsed here: a file is loaded, from the
+     * {@link LibraryCache} or its source, when a script first uses one of
+     * the libraries it declares.
+     */
+    public void loadLibraries(String... folderPaths) {
+        Set<Path> files = new LinkedHashSet<>();
+        for (String folderPath : folderPaths) {
+            try {
+                Path path = Paths.get(folderPath);
+                if (!Files.exists(path)) {
+                    Files.createDirectories(path);
+                    System.out.println("Created packages directory: " + folderPath);
+                }
+
+                try (Stream<Path> paths = Files.walk(path)) {
+                    paths.filter(Files::isRegularFile)
+                            .filter(p -> p.toString().endsWith(".vglib"))
+                            .forEach(p -> files.add(canonical(p)));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error loading libraries from folder: " + folderPath, e);
             }
+        }
 
-            try (Stream<Path> paths = Files.walk(path)) {
-                paths.filter(Files::isRegularFile)
-                        .filter(p -> p.toString().endsWith(".vglib"))
-                        .forEach(p -> loadLibraryFile(p.toString()));
+        for (Path file : files) {
+            for (String library : declaredLibraries(readLibrarySource(file.toString()))) {
+                moduleRegistry.index(library, file);
             }
+        }
+    }
+
+    /**
+     * Returns the names of the libraries {@code source} declares: each name
+     * between a {@code library} keyword and an opening brace in its tokens.
+     * Lexing is enough to index a file and, unlike matching the text, never
+     * mistakes a header inside a comment or string for one.
+     */
+    static List<String> declaredLibraries(String source) {
+        vg_langLexer lexer = new vg_langLexer(CharStreams.fromString(source));
+        // A file that does not lex is reported when it is loaded
+        lexer.removeErrorListeners();
+        List<? extends Token> tokens = lexer.getAllTokens();
+        List<String> libraries = new ArrayList<>();
+        for (int i = 0; i + 2 < tokens.size(); i++) {
+            if (isLiteral(tokens.get(i), "library") && tokens.get(i + 1).getType() == vg_langLexer.IDENTIFIER
+                    && isLiteral(tokens.get(i + 2), "{")) {
+                libraries.add(tokens.get(i + 1).getText());
+            }
+        }
+        return libraries;
+    }
+
+    private static boolean isLiteral(Token token, String text) {
+        return ("'" + text + "'").equals(vg_langLexer.VOCABULARY.getLiteralName(token.getType()));
+    }
+
+    private static Path canonical(Path file) {
+        try {
+            return file.toRealPath();
         } catch (IOException e) {
-            throw new RuntimeException("Error loading libraries from folder: " + folderPath, e);
+            return file.toAbsolutePath().normalize();
         }
     }
 
-    private void updatePosition(Token token) {
-        if (token != null) {
-            currentLine = token.getLine();
-            currentColumn = token.getCharPositionInLine();
-            
-            // Check for breakpoint when line changes
-            checkBreakpoint(currentLine);
+    /**
+     * Returns the result of a parse running on another thread, rethrowing
+     * whatever it failed with as if it had run on this one.
+     */
+    private static <T> T await(Future<T> parse) {
+        try {
+            return parse.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records the position of the statement about to run and pauses there
+     * if a breakpoint or step command applies. Only debugger probes call
+     * this; everything else uses {@link #recordPosition}.
+     */
+    public void updatePosition(int line, int column) {
+        recordPosition(line, column);
+        
+        // Check for breakpoint when line changes
+        checkBreakpoint(line);
+    }
+
+    /**
+     * Records the position errors raised from here on are reported at.
+     */
+    public void recordPosition(int line, int column) {
+        ExecutionContext context = getContext();
+        context.currentLine = line;
+        context.currentColumn = column;
+    }
+
+    /**
+     * Returns true, once, if a step-over command asked to skip the statement
+     * whose position was just recorded.
+     */
+    public boolean consumeSkipNextStatement() {
+        if (!skipNextStatement) {
+            return false;
         }
+        skipNextStatement = false;
+        return true;
     }
 
     public void loadLibraryFile(String filePath) {
-        try {
-            String content = new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
+        declareLibraries(readLibraryFile(filePath, false));
+    }
 
-            CharStream input = CharStreams.fromString(content);
-            vg_langLexer lexer = new vg_langLexer(input);
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-            vg_langParser parser = new vg_langParser(tokens);
-            
-            setupErrorHandling(parser);
+    /**
+     * Returns the libraries a library file declares: lowered, from the cache
+     * or built and cached here, if {@code cached} and the file can be;
+     * otherwise its parse tree.
+     */
+    private Object readLibraryFile(String filePath, boolean cached) {
+        String content = readLibrarySource(filePath);
+        List<LibraryCache.LibraryImage> libraries = cached ? LibraryCache.read(content) : null;
+        if (libraries != null) {
+            return libraries;
+        }
 
-            vg_langParser.ProgramContext programCtx = parser.program();
+        CharStream input = CharStreams.fromString(content);
+        vg_langLexer lexer = new vg_langLexer(input);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        vg_langParser parser = new vg_langParser(tokens);
 
-            for (vg_langParser.StatementContext stmtCtx : programCtx.statement()) {
-                if (stmtCtx.libraryDeclaration() != null) {
-                    importVisitor.visitLibraryDeclaration(stmtCtx.libraryDeclaration());
-                }
-            }
+        setupErrorHandling(parser);
+
+        vg_langParser.ProgramContext programCtx = Parsing.program(parser);
+        libraries = cached ? LibraryCache.build(programCtx) : null;
+        if (libraries == null) {
+            return programCtx;
+        }
+        LibraryCache.write(content, libraries);
+        return libraries;
+    }
+
+    private String readLibrarySource(String filePath) {
+        try {
+            return new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
         } catch (IOException e) {
             if (e instanceof java.nio.file.NoSuchFileException) {
                 throw new ErrorHandler.VGFileException(
                     "Library file not found: " + filePath + ". Make sure the Software is installed correctly or that the file exists.",
-                    currentLine, currentColumn
+                    getCurrentLine(), getCurrentColumn()
                 );
             } else {
                 throw new ErrorHandler.VGFileException(
                     "Error reading library file: " + filePath + " - " + e.getMessage(),
-                    currentLine, currentColumn
+                    getCurrentLine(), getCurrentColumn()
                 );
             }
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private void declareLibraries(Object libraries) {
+        if (libraries instanceof vg_langParser.ProgramContext) {
+            for (vg_langParser.StatementContext stmtCtx : ((vg_langParser.ProgramContext) libraries).statement()) {
+                if (stmtCtx.libraryDeclaration() != null) {
+                    importVisitor.visitLibraryDeclaration(stmtCtx.libraryDeclaration());
+                }
+            }
+            return;
+        }
+        for (LibraryCache.LibraryImage library : (List<LibraryCache.LibraryImage>) libraries) {
+            importVisitor.declareLibrary(library);
+        }
+        librariesFromCache = true;
+    }
+
     private void registerBuiltInFunction() {
         BuiltInFunction VgSystemCall = new BuiltInFunction() {
             @Override
             public Object call(List<Object> args) {
-                SystemCallHandler handler = new SystemCallHandler(allowedMethods, allowedClasses, currentLine, currentColumn);
+                SystemCallHandler handler = new SystemCallHandler(allowedMethods, allowedClasses, getCurrentLine(), getCurrentColumn(),
+                    systemCalls);
                 return handler.handleSystemCall(args);
             }
         };
@@ -227,10 +378,45 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
         try {
             String fileContent = new String(Files.readAllBytes(Paths.get(filepath)), StandardCharsets.UTF_8);
 
-            if (fileContent.startsWith("ENCRYPTED:")) {
+            LangConfig config = langConfigs.get(filepath);
+            if (config == null || !config.source.equals(fileContent)) {
+                config = LangConfig.parse(fileContent);
+                langConfigs.put(filepath, config);
+            }
+            if (config.encrypted) {
+                System.out.println("Decrypted the configuration file.");
+            }
+
+            allowedClasses.addAll(config.allowedClasses);
+            for (Map.Entry<String, Set<String>> entry : config.allowedMethods.entrySet()) {
+                allowedMethods.put(entry.getKey(), new HashSet<>(entry.getValue()));
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error reading allowed configuration file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * An allowlist as its configuration file declares it. Parsed files are
+     * kept by path, so a process that creates many interpreters, such as
+     * the daemon, decrypts and parses each file once while it is unchanged.
+     */
+    private static final class LangConfig {
+        final String source;
+        final boolean encrypted;
+        final Set<String> allowedClasses = new HashSet<>();
+        final Map<String, Set<String>> allowedMethods = new HashMap<>();
+
+        private LangConfig(String source, boolean encrypted) {
+            this.source = source;
+            this.encrypted = encrypted;
+        }
+
+        static LangConfig parse(String fileContent) throws Exception {
+            LangConfig config = new LangConfig(fileContent, fileContent.startsWith("ENCRYPTED:"));
+            if (config.encrypted) {
                 String encryptedPart = fileContent.substring("ENCRYPTED:".length());
                 fileContent = CryptoUtil.decrypt(encryptedPart);
-                System.out.println("Decrypted the configuration file.");
             }
 
             List<String> lines = Arrays.asList(fileContent.split("\\r?\\n"));
@@ -245,7 +431,7 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
                     throw new RuntimeException("Invalid config line (missing colon): " + line);
                 }
                 String className = parts[0].trim();
-                allowedClasses.add(className);
+                config.allowedClasses.add(className);
 
                 String methodsPart = parts[1].trim();
                 String[] methods = methodsPart.split(",");
@@ -256,89 +442,31 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
                         methodsSet.add(method);
                     }
                 }
-                allowedMethods.put(className, methodsSet);
+                config.allowedMethods.put(className, methodsSet);
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Error reading allowed configuration file: " + e.getMessage(), e);
+            return config;
         }
     }
 
     // Getters for current line and column
     public int getCurrentLine() {
-        return currentLine;
+        return getContext().currentLine;
     }
 
     public int getCurrentColumn() {
-        return currentColumn;
+        return getContext().currentColumn;
     }
 
     // Setters for current line and column
     public void setCurrentLine(int line) {
-        this.currentLine = line;
+        getContext().currentLine = line;
     }
 
     public void setCurrentColumn(int column) {
-        this.currentColumn = column;
-    }
-
-    // Delegate visitor methods to specialized visitors
-    @Override
-    public Object visitProgram(vg_langParser.ProgramContext ctx) {
-        return programVisitor.visitProgram(ctx);
-    }
-
-    @Override
-    public Object visitFunctionDeclaration(vg_langParser.FunctionDeclarationContext ctx) {
-        // Update position for debugging and check if we should skip
-        if (ctx.getStart() != null) {
-            updatePosition(ctx.getStart());
-            
-            // After updatePosition (which may have triggered a pause and step-over command),
-            // check if we should skip this statement
-            if (skipNextStatement) {
-                System.out.println("Debug: Skipping function declaration due to step-over");
-                skipNextStatement = false; // Reset the flag
-                return null; // Skip the function declaration entirely
-            }
-        }
-        
-        return functionVisitor.visitFunctionDeclaration(ctx);
-    }
-
-    @Override
-    public Object visitFunctionCall(vg_langParser.FunctionCallContext ctx) {
-        return functionVisitor.visitFunctionCall(ctx);
-    }
-
-    @Override
-    public Object visitFunctionReference(vg_langParser.FunctionReferenceContext ctx) {
-        return functionVisitor.visitFunctionReference(ctx);
-    }
-
-    @Override
-    public Object visitReturnStatement(vg_langParser.ReturnStatementContext ctx) {
-        return simpleStatementVisitor.visitReturnStatement(ctx);
-    }
-
-    @Override
-    public Object visitVariableDeclaration(vg_langParser.VariableDeclarationContext ctx) {
-        // Update position for debugging
-        if (ctx.getStart() != null) {
-            updatePosition(ctx.getStart());
-        }
-        return declarationVisitor.visitVariableDeclaration(ctx);
-    }
-
-    @Override
-    public Object visitVariableDeclarationNoSemi(vg_langParser.VariableDeclarationNoSemiContext ctx) {
-        return declarationVisitor.visitVariableDeclarationNoSemi(ctx);
-    }
-
-    @Override
-    public Object visitConstDeclaration(vg_langParser.ConstDeclarationContext ctx) {
-        return declarationVisitor.visitConstDeclaration(ctx);
+        getContext().currentColumn = column;
     }
 
+    // Declarations that are not lowered to nodes are delegated to specialized visitors
     @Override
     public Object visitStructDeclaration(vg_langParser.StructDeclarationContext ctx) {
         return declarationVisitor.visitStructDeclaration(ctx);
@@ -354,93 +482,6 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
         return classVisitor.visitClassDeclaration(ctx);
     }
 
-    @Override
-    public Object visitNewExpression(vg_langParser.NewExpressionContext ctx) {
-        return classVisitor.visitNewExpression(ctx);
-    }
-
-    @Override
-    public Object visitAssignment(vg_langParser.AssignmentContext ctx) {
-        // Update position for debugging
-        if (ctx.getStart() != null) {
-            updatePosition(ctx.getStart());
-        }
-        return variableVisitor.visitAssignment(ctx);
-    }
-
-    @Override
-    public Object visitAssignmentNoSemi(vg_langParser.AssignmentNoSemiContext ctx) {
-        return variableVisitor.visitAssignmentNoSemi(ctx);
-    }
-
-    @Override
-    public Object visitLeftHandSide(vg_langParser.LeftHandSideContext ctx) {
-        return variableVisitor.visitLeftHandSide(ctx);
-    }
-
-    @Override
-    public Object visitPrintStatement(vg_langParser.PrintStatementContext ctx) {
-        // Update position for debugging
-        if (ctx.getStart() != null) {
-            updatePosition(ctx.getStart());
-        }
-        return simpleStatementVisitor.visitPrintStatement(ctx);
-    }
-
-    @Override
-    public Object visitIfStatement(vg_langParser.IfStatementContext ctx) {
-        // Update position for debugging
-        if (ctx.getStart() != null) {
-            updatePosition(ctx.getStart());
-        }
-        return statementVisitor.visitIfStatement(ctx);
-    }
-
-    @Override
-    public Object visitForStatement(vg_langParser.ForStatementContext ctx) {
-        return statementVisitor.visitForStatement(ctx);
-    }
-
-    @Override
-    public Object visitForEachStatement(vg_langParser.ForEachStatementContext ctx) {
-        return statementVisitor.visitForEachStatement(ctx);
-    }
-
-    @Override
-    public Object visitWhileStatement(vg_langParser.WhileStatementContext ctx) {
-        return statementVisitor.visitWhileStatement(ctx);
-    }
-
-    @Override
-    public Object visitDoWhileStatement(vg_langParser.DoWhileStatementContext ctx) {
-        return statementVisitor.visitDoWhileStatement(ctx);
-    }
-
-    @Override
-    public Object visitSwitchStatement(vg_langParser.SwitchStatementContext ctx) {
-        return statementVisitor.visitSwitchStatement(ctx);
-    }
-
-    @Override
-    public Object visitBreakStatement(vg_langParser.BreakStatementContext ctx) {
-        return statementVisitor.visitBreakStatement(ctx);
-    }
-
-    @Override
-    public Object visitContinueStatement(vg_langParser.ContinueStatementContext ctx) {
-        return statementVisitor.visitContinueStatement(ctx);
-    }
-
-    @Override
-    public Object visitTryStatement(vg_langParser.TryStatementContext ctx) {
-        return statementVisitor.visitTryStatement(ctx);
-    }
-
-    @Override
-    public Object visitThrowStatement(vg_langParser.ThrowStatementContext ctx) {
-        return simpleStatementVisitor.visitThrowStatement(ctx);
-    }
-
     @Override
     public Object visitLibraryDeclaration(vg_langParser.LibraryDeclarationContext ctx) {
         return importVisitor.visitLibraryDeclaration(ctx);
@@ -456,54 +497,12 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
         return importVisitor.visitImportStatement(ctx);
     }
 
-    @Override
-    public Object visitLogicalOrExpression(vg_langParser.LogicalOrExpressionContext ctx) {
-        return expressionVisitor.visitLogicalOrExpression(ctx);
-    }
-
-    @Override
-    public Object visitEqualityExpression(vg_langParser.EqualityExpressionContext ctx) {
-        return expressionVisitor.visitEqualityExpression(ctx);
-    }
-
-    @Override
-    public Object visitRelationalExpression(vg_langParser.RelationalExpressionContext ctx) {
-        return expressionVisitor.visitRelationalExpression(ctx);
-    }
-
-    @Override
-    public Object visitAdditiveExpression(vg_langParser.AdditiveExpressionContext ctx) {
-        return arithmeticVisitor.visitAdditiveExpression(ctx);
-    }
-
-    @Override
-    public Object visitMultiplicativeExpression(vg_langParser.MultiplicativeExpressionContext ctx) {
-        return arithmeticVisitor.visitMultiplicativeExpression(ctx);
-    }
-
-    @Override
-    public Object visitUnaryExpression(vg_langParser.UnaryExpressionContext ctx) {
-        return basicExpressionVisitor.visitUnaryExpression(ctx);
-    }
-
-    @Override
-    public Object visitPrimary(vg_langParser.PrimaryContext ctx) {
-        return basicExpressionVisitor.visitPrimary(ctx);
-    }
-
-    @Override
-    public Object visitLiteral(vg_langParser.LiteralContext ctx) {
-        return literalVisitor.visitLiteral(ctx);
-    }
-
-    @Override
-    public Object visitArrayLiteral(vg_langParser.ArrayLiteralContext ctx) {
-        return literalVisitor.visitArrayLiteral(ctx);
-    }
-
-    @Override
-    public Object visitPostfixExpression(vg_langParser.PostfixExpressionContext ctx) {
-        return basicExpressionVisitor.visitPostfixExpression(ctx);
+    /**
+     * Evaluates a standalone expression, such as a field default or a
+     * namespace constant, outside of any lowered program.
+     */
+    public Object evaluate(vg_langParser.ExpressionContext ctx) {
+        return nodeBuilder.buildExpression(ctx).execute(this);
     }
 
     private boolean toBoolean(Object value) {
@@ -572,34 +571,113 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
 
     public Object interpret(String code) {
         try {
-            CharStream input = CharStreams.fromString(code);
-            vg_langLexer lexer = new vg_langLexer(input);
-            
-            lexer.removeErrorListeners();
-            lexer.addErrorListener(new VGErrorListener());
-            
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-            vg_langParser parser = new vg_langParser(tokens);
-            
-            parser.removeErrorListeners();
-            parser.addErrorListener(new VGErrorListener());
-            
-            vg_langParser.ProgramContext programCtx = parser.program();
-            return visit(programCtx);
+            return run(buildProgram(code));
+        } catch (ErrorHandler.VGException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ErrorHandler.VGException("Error interpreting code: " + e.getMessage(), getCurrentLine(), getCurrentColumn());
+        }
+    }
+
+    /**
+     * Runs the script at {@code sourcePath}, whose contents are {@code code}.
+     * The lowered program is cached in a .vgc file next to the script, and
+     * read back instead of parsing while the script is unchanged.
+     */
+    public Object interpretFile(Path sourcePath, String code) {
+        return interpretFile(sourcePath, code, null);
+    }
+
+    /**
+     * Starts reading back or parsing the script at {@code sourcePath} on
+     * another thread, so that it overlaps with creating the interpreter.
+     * Pass the result to {@link #interpretFile(Path, String, Future)}.
+     */
+    public static Future<Object> parseInBackground(Path sourcePath, String code) {
+        return ForkJoinPool.commonPool().submit(() -> {
+            ProgramNode program = VgcFile.read(sourcePath, code);
+            return program != null ? program : parse(code);
+        });
+    }
+
+    /**
+     * {@link #interpretFile(Path, String)} for a script whose parse was
+     * started by {@link #parseInBackground}; null parses it here.
+     */
+    public Object interpretFile(Path sourcePath, String code, Future<Object> parsed) {
+        try {
+            Object source = parsed != null ? await(parsed) : VgcFile.read(sourcePath, code);
+            ProgramNode program;
+            if (source instanceof ProgramNode) {
+                program = (ProgramNode) source;
+            } else {
+                program = nodeBuilder.buildProgram(source != null ? (vg_langParser.ProgramContext) source : parse(code));
+                VgcFile.write(sourcePath, code, program);
+            }
+            return run(program);
         } catch (ErrorHandler.VGException e) {
             throw e;
         } catch (Exception e) {
-            throw new ErrorHandler.VGException("Error interpreting code: " + e.getMessage(), currentLine, currentColumn);
+            throw new ErrorHandler.VGException("Error interpreting code: " + e.getMessage(), getCurrentLine(), getCurrentColumn());
         }
     }
 
+    private ProgramNode buildProgram(String code) {
+        return nodeBuilder.buildProgram(parse(code));
+    }
+
+    private static vg_langParser.ProgramContext parse(String code) {
+        CharStream input = CharStreams.fromString(code);
+        vg_langLexer lexer = new vg_langLexer(input);
+
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new VGErrorListener());
+
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        vg_langParser parser = new vg_langParser(tokens);
+
+        parser.removeErrorListeners();
+        parser.addErrorListener(new VGErrorListener());
+
+        return Parsing.program(parser);
+    }
+
+    private Object run(ProgramNode program) {
+        // The debugger pauses inside statement nodes, so it needs the tree
+        VmCode code = debugMode ? null : program.getVmCode();
+        return code != null ? Vm.run(this, code) : program.execute(this);
+    }
+
     // Debug support methods
     public void enableDebugMode() {
         this.debugMode = true;
+        // Programs lowered from now on carry the probes the debugger pauses at
+        this.nodeBuilder = new NodeBuilder(true);
+        if (librariesFromCache) {
+            // Cached library functions were lowered without them; load those from source
+            librariesFromCache = false;
+            moduleRegistry.reload();
+        }
         this.debugScanner = new Scanner(System.in);
         startCommandListener();
     }
 
+    public boolean isDebugMode() {
+        return debugMode;
+    }
+
+    /**
+     * Whether the configuration lets {@code VgSystemCall} call
+     * {@code methodName} on {@code className}.
+     */
+    public boolean isSystemCallAllowed(String className, String methodName) {
+        if (!allowedClasses.contains(className)) {
+            return false;
+        }
+        Set<String> methods = allowedMethods.get(className);
+        return methods != null && (methods.contains(methodName) || methods.contains("*"));
+    }
+
     public void addBreakpoint(int lineNumber) {
         this.breakpoints.add(lineNumber);
     }
@@ -617,17 +695,19 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
     }
 
     public void incrementCallDepth() {
-        currentCallDepth++;
+        getContext().callDepth++;
     }
 
     public void decrementCallDepth() {
-        currentCallDepth--;
+        getContext().callDepth--;
     }
 
     private void checkBreakpoint(int line) {
         if (!debugMode) return;
         
-        currentLine = line;
+        ExecutionContext context = getContext();
+        context.currentLine = line;
+        int currentCallDepth = context.callDepth;
         
         boolean shouldPause = false;
         
@@ -803,7 +883,7 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
 
     private void printCurrentVariables() {
         System.out.println("Current variables:");
-        SymbolTable currentScope = symbolTableStack.peek();
+        SymbolTable currentScope = getSymbolTableStack().peek();
         if (currentScope != null && !currentScope.getVariables().isEmpty()) {
             currentScope.getVariables().forEach((name, value) -> {
                 System.out.println("  " + name + " = " + value);
@@ -817,7 +897,7 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
         System.out.println("Defined functions:");
         // Check all symbol tables for functions (starting from global)
         boolean foundFunctions = false;
-        for (SymbolTable scope : symbolTableStack) {
+        for (SymbolTable scope : getSymbolTableStack()) {
             if (!scope.getFunctions().isEmpty()) {
                 scope.getFunctions().forEach((name, function) -> {
                     System.out.println("  " + name + "()");
@@ -831,7 +911,7 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
     }
 
     private void printCurrentVariablesForIDE() {
-        SymbolTable currentScope = symbolTableStack.peek();
+        SymbolTable currentScope = getSymbolTableStack().peek();
         if (currentScope != null && !currentScope.getVariables().isEmpty()) {
             currentScope.getVariables().forEach((name, value) -> {
                 // Only show variables that are NOT built-in functions or constants
@@ -845,7 +925,7 @@ public class Interpreter extends vg_langBaseVisitor<Object> {
 
     private void printCurrentFunctionsForIDE() {
         // Check all symbol tables for functions, but exclude built-in functions
-        for (SymbolTable scope : symbolTableStack) {
+        for (SymbolTable scope : getSymbolTableStack()) {
             if (!scope.getFunctions().isEmpty()) {
                 scope.getFunctions().forEach((name, function) -> {
                     // Only show functions that are NOT built-in functions
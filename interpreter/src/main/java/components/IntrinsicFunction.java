@@ -0,0 +1,49 @@
+package components;
+
+import components.nodes.FunctionBodyNode;
+
+import java.util.List;
+
+/**
+ * A library function with a Java implementation bound from {@link Intrinsics}.
+ * Calls run the Java implementation, which returns what the VG body would;
+ * arguments it does not handle, and every call in debug mode, run the body.
+ */
+public class IntrinsicFunction extends Function {
+    private final BuiltInFunction intrinsic;
+    private final Interpreter interpreter;
+
+    public IntrinsicFunction(List<String> parameters, vg_langParser.BlockContext block, FunctionBodyNode body,
+                             BuiltInFunction intrinsic, Interpreter interpreter) {
+        super(parameters, block, body, interpreter);
+        this.intrinsic = intrinsic;
+        this.interpreter = interpreter;
+    }
+
+    @Override
+    public Object call(List<Object> args) {
+        if (args.size() == getParameters().size() && !interpreter.isDebugMode() && !wrapsJavaObject(args)) {
+            Object result;
+            try {
+                result = intrinsic.call(args);
+            } catch (RuntimeException e) {
+                // Failed before changing anything, so the body reports it as it always has
+                result = Intrinsics.FALLBACK;
+            }
+            if (result != Intrinsics.FALLBACK) {
+                return result;
+            }
+        }
+        return super.call(args);
+    }
+
+    // VgSystemCall treats wrapped Java objects specially, so their calls are left to the body
+    private static boolean wrapsJavaObject(List<Object> args) {
+        for (Object arg : args) {
+            if (arg instanceof LanguageObjectWrapper) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
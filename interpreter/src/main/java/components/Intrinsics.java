@@ -0,0 +1,484 @@
+package components;
+
+import components.nodes.BinaryOperator;
+import components.nodes.FunctionBodyNode;
+import components.nodes.Operations;
+import components.nodes.UnaryOperator;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Java implementations of standard library functions, bound by their
+ * {@code Library.namespace.function} name when a library is loaded.
+ * <p>
+ * Each implementation computes what the function's VG body computes, step
+ * for step and with the same int and double arithmetic, so binding one never
+ * changes a result; where the body is a {@code VgSystemCall}, the call is made
+ * directly and its result wrapped the same way. An implementation is only
+ * bound while the body is the one it was written for, and while the
+ * configuration allows the system calls that body makes. For arguments it
+ * does not handle it returns {@link #FALLBACK}, and the body runs instead.
+ * <p>
+ * The {@link #fingerprint}s of the bodies the implementations were written
+ * for are in {@code intrinsics.properties} next to this class. IntrinsicsTest
+ * checks them against the bundled libraries, so a library edit that
+ * changes a body fails the build until its implementation is reviewed.
+ */
+public final class Intrinsics {
+    /** Returned by an implementation to have the VG body handle the call. */
+    public static final Object FALLBACK = new Object();
+
+    private static final Map<String, Intrinsic> INTRINSICS = new HashMap<>();
+    private static final Properties FINGERPRINTS = loadFingerprints();
+
+    // The constants the trig bodies declare
+    private static final double PI = 3.14159;
+    private static final double TOLERANCE = 1.0 / 1000000000000000.0;
+
+    static {
+        register("MathLib.constants.pi", args -> 3.14159);
+        register("MathLib.constants.e", args -> 2.718281828459045);
+
+        register("MathLib.arithmetic.add", args -> numbers(args) ? add(args.get(0), args.get(1)) : FALLBACK);
+        register("MathLib.arithmetic.subtract", args -> numbers(args) ? subtract(args.get(0), args.get(1)) : FALLBACK);
+        register("MathLib.arithmetic.multiply", args -> numbers(args) ? multiply(args.get(0), args.get(1)) : FALLBACK);
+        register("MathLib.arithmetic.divide", args -> {
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            return Objects.equals(args.get(1), 0) ? "Error: Division by zero" : divide(args.get(0), args.get(1));
+        });
+        register("MathLib.arithmetic.abs", args -> {
+            Object x = args.get(0);
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            return less(x, 0) ? Operations.unary(UnaryOperator.NEGATE, x) : x;
+        });
+        register("MathLib.arithmetic.min", args -> numbers(args) ? (greater(args.get(0), args.get(1)) ? args.get(1) : args.get(0)) : FALLBACK);
+        register("MathLib.arithmetic.max", args -> numbers(args) ? (greater(args.get(0), args.get(1)) ? args.get(0) : args.get(1)) : FALLBACK);
+        register("MathLib.arithmetic.floor", args -> {
+            Object x = args.get(0);
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            Object floor = subtract(x, modulo(x, 1));
+            return Operations.compare(BinaryOperator.GREATER_EQUAL, x, 0) ? floor : subtract(floor, 1);
+        });
+        register("MathLib.arithmetic.ceil", args -> {
+            Object x = args.get(0);
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            if (Objects.equals(modulo(x, 1), 0)) {
+                return x;
+            }
+            Object truncated = subtract(x, modulo(x, 1));
+            return greater(x, 0) ? add(truncated, 1) : truncated;
+        });
+
+        register("MathLib.power.pow", args -> {
+            Object base = args.get(0);
+            Object exponent = args.get(1);
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            boolean negative = less(exponent, 0);
+            if (negative) {
+                exponent = Operations.unary(UnaryOperator.NEGATE, exponent);
+            }
+            double count = ((Number) exponent).doubleValue();
+            Object result = 1;
+            for (int i = 0; i < count; i = i + 1) {
+                result = multiply(result, base);
+            }
+            return negative ? divide(1, result) : result;
+        });
+        register("MathLib.power.sqrt", args -> {
+            Object x = args.get(0);
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            if (less(x, 0)) {
+                return -1;
+            }
+            // 1 / 100000 is an int division in the body, so the tolerance is 0
+            Object guess = x;
+            while (greater(subtract(multiply(guess, guess), x), 0) || less(subtract(multiply(guess, guess), x), 0)) {
+                guess = divide(add(guess, divide(x, guess)), 2);
+            }
+            return guess;
+        });
+
+        register("MathLib.sequence.factorial", args -> {
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            double n = ((Number) args.get(0)).doubleValue();
+            int result = 1;
+            for (int i = 2; i <= n; i = i + 1) {
+                result = result * i;
+            }
+            return result;
+        });
+        register("MathLib.sequence.fibonacci", args -> {
+            Object n = args.get(0);
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            if (Objects.equals(n, 0)) {
+                return 0;
+            }
+            if (Objects.equals(n, 1)) {
+                return 1;
+            }
+            double limit = ((Number) n).doubleValue();
+            int a = 0;
+            int b = 1;
+            int result = 0;
+            for (int i = 2; i <= limit; i = i + 1) {
+                result = a + b;
+                a = b;
+                b = result;
+            }
+            return result;
+        });
+
+        // After the reduction every value in these bodies is a double
+        register("MathLib.trig.sin", args -> numbers(args) ? sine(reduce(((Number) args.get(0)).doubleValue())) : FALLBACK);
+        register("MathLib.trig.cos", args -> numbers(args) ? cosine(reduce(((Number) args.get(0)).doubleValue())) : FALLBACK);
+        register("MathLib.trig.tan", args -> {
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            double x = reduce(((Number) args.get(0)).doubleValue());
+            double sin = sine(x);
+            double cos = cosine(x);
+            // '&&' yields its last operand, so only the second comparison decides
+            if (cos < TOLERANCE) {
+                return sin > 0 ? 1 / TOLERANCE : -1 / TOLERANCE;
+            }
+            return sin / cos;
+        });
+        register("MathLib.trig.hypot", args -> {
+            Object x = args.get(0);
+            Object y = args.get(1);
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            Object sum = add(multiply(x, x), multiply(y, y));
+            Object guess = sum;
+            double tolerance = 1.0 / 100000.0;
+            while (greater(subtract(multiply(guess, guess), sum), tolerance)
+                    || less(subtract(multiply(guess, guess), sum), -tolerance)) {
+                guess = divide(add(guess, divide(sum, guess)), 2);
+            }
+            return guess;
+        });
+
+        register("Random.number.integer", args -> {
+            Object min = args.get(0);
+            Object max = args.get(1);
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            Object range = add(subtract(max, min), 1);
+            Object scaled = multiply(Math.random(), range);
+            return add(Math.floor((Double) scaled), min);
+        }, "java.lang.Math.random", "java.lang.Math.floor");
+        register("Random.number.float", args -> Math.random(), "java.lang.Math.random");
+        register("Random.number.floatRange", args -> {
+            Object min = args.get(0);
+            Object max = args.get(1);
+            if (!numbers(args)) {
+                return FALLBACK;
+            }
+            double random = Math.random();
+            return add(min, multiply(random, subtract(max, min)));
+        }, "java.lang.Math.random");
+        register("Random.number.boolean", args -> Math.random() < 0.5, "java.lang.Math.random");
+        register("Random.arrayTools.element", args -> {
+            // An empty array makes the body fail on its 'null'
+            if (!(args.get(0) instanceof List) || ((List<?>) args.get(0)).isEmpty()) {
+                return FALLBACK;
+            }
+            List<?> array = (List<?>) args.get(0);
+            double index = Math.floor(Math.random() * array.size());
+            return array.get((int) index);
+        }, "components.ArrayUtils.length", "java.lang.Math.random", "java.lang.Math.floor");
+        register("Random.arrayTools.shuffle", args -> {
+            if (!(args.get(0) instanceof List)) {
+                return FALLBACK;
+            }
+            @SuppressWarnings("unchecked")
+            List<Object> array = (List<Object>) args.get(0);
+            for (int i = array.size() - 1; i > 0; i = i - 1) {
+                int j = (int) Math.floor(Math.random() * (i + 1));
+                Object temp = array.get(i);
+                array.set(i, array.get(j));
+                array.set(j, temp);
+            }
+            return array;
+        }, "components.ArrayUtils.length", "java.lang.Math.random", "java.lang.Math.floor");
+
+        register("Arrays.array.getLength", args -> ArrayUtils.length(args.get(0)),
+            "components.ArrayUtils.length");
+        register("Arrays.array.push", args -> {
+            if (!(args.get(0) instanceof List)) {
+                return FALLBACK;
+            }
+            ArrayUtils.push(list(args.get(0)), args.get(1));
+            return args.get(0);
+        }, "components.ArrayUtils.push");
+        register("Arrays.array.pop", args -> args.get(0) instanceof List ? wrap(ArrayUtils.pop(list(args.get(0)))) : FALLBACK,
+            "components.ArrayUtils.pop");
+        register("Arrays.array.unshift", args -> {
+            if (!(args.get(0) instanceof List)) {
+                return FALLBACK;
+            }
+            ArrayUtils.unshift(list(args.get(0)), args.get(1));
+            return args.get(0);
+        }, "components.ArrayUtils.unshift");
+        register("Arrays.array.shift", args -> args.get(0) instanceof List ? wrap(ArrayUtils.shift(list(args.get(0)))) : FALLBACK,
+            "components.ArrayUtils.shift");
+
+        register("Util.Type.getType", args -> Util.getType(args.get(0)), "components.Util.getType");
+        register("Util.Integer.toInt", args -> Util.toInt(args.get(0)), "components.Util.toInt");
+        register("Util.Double.toDouble", args -> Util.toDouble(args.get(0)), "components.Util.toDouble");
+        register("Util.String.toString", args -> Util.toString(args.get(0)), "components.Util.toString");
+        register("Util.String.indexOf", args -> args.get(0) instanceof String && args.get(1) instanceof String
+            ? Util.indexOfString((String) args.get(0), (String) args.get(1)) : FALLBACK,
+            "components.Util.indexOfString");
+        register("Util.String.substring", args -> {
+            if (!(args.get(0) instanceof String && args.get(1) instanceof Integer && args.get(2) instanceof Integer)) {
+                return FALLBACK;
+            }
+            return Util.substringString((String) args.get(0), (Integer) args.get(1), (Integer) args.get(2));
+        }, "components.Util.substringString");
+        register("Util.String.stringLength", args -> args.get(0) instanceof String ? Util.stringLength((String) args.get(0)) : FALLBACK,
+            "components.Util.stringLength");
+        register("Util.String.toUpper", args -> args.get(0) instanceof String ? Util.upperCase((String) args.get(0)) : FALLBACK,
+            "components.Util.upperCase");
+        register("Util.String.fromCharCode", args -> args.get(0) instanceof Integer ? Util.charToString((Integer) args.get(0)) : FALLBACK,
+            "components.Util.charToString");
+        register("Util.Boolean.toBoolean", args -> Util.toBoolean(args.get(0)), "components.Util.toBoolean");
+    }
+
+    private Intrinsics() {
+    }
+
+    /**
+     * Returns the function a library declares as {@code name}: bound to its
+     * Java implementation if there is one that applies, a plain function
+     * otherwise.
+     */
+    public static Function bind(String name, List<String> parameters, vg_langParser.BlockContext block,
+                                Interpreter interpreter) {
+        String fingerprint = block != null && isRegistered(name) ? fingerprint(block) : null;
+        return bind(name, parameters, block, null, fingerprint, interpreter);
+    }
+
+    /**
+     * Returns the function a cached library declares as {@code name}, whose
+     * body is already built and whose block has the given fingerprint, null
+     * if it has no Java implementation.
+     */
+    public static Function bind(String name, List<String> parameters, vg_langParser.BlockContext block,
+                                FunctionBodyNode body, String fingerprint, Interpreter interpreter) {
+        Intrinsic intrinsic = INTRINSICS.get(name);
+        if (intrinsic == null || (block == null && body == null) || !intrinsic.appliesTo(fingerprint, interpreter)) {
+            return new Function(parameters, block, body, interpreter);
+        }
+        return new IntrinsicFunction(parameters, block, body, intrinsic.implementation, interpreter);
+    }
+
+    /** Whether there is a Java implementation for the library function {@code name}. */
+    public static boolean isRegistered(String name) {
+        return INTRINSICS.containsKey(name);
+    }
+
+    /**
+     * The SHA-256, in hex, of a function body's tokens, which changes with
+     * anything but its comments and layout.
+     */
+    public static String fingerprint(vg_langParser.BlockContext block) {
+        StringBuilder tokens = new StringBuilder();
+        appendTokens(block, tokens);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(tokens.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java runtime has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Separated, so that tokens that only differ in where one ends and the next begins hash differently
+    private static void appendTokens(ParseTree tree, StringBuilder tokens) {
+        if (tree instanceof TerminalNode) {
+            tokens.append(tree.getText()).append(' ');
+            return;
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            appendTokens(tree.getChild(i), tokens);
+        }
+    }
+
+    /** The names of the library functions that have a Java implementation. */
+    static Set<String> names() {
+        return Collections.unmodifiableSet(INTRINSICS.keySet());
+    }
+
+    /** The Java implementation of the library function {@code name}, or null. */
+    static BuiltInFunction implementation(String name) {
+        Intrinsic intrinsic = INTRINSICS.get(name);
+        return intrinsic != null ? intrinsic.implementation : null;
+    }
+
+    /**
+     * @param systemCalls the {@code class.method} names of the system calls the body makes
+     */
+    private static void register(String name, BuiltInFunction implementation, String... systemCalls) {
+        INTRINSICS.put(name, new Intrinsic(FINGERPRINTS.getProperty(name), implementation, systemCalls));
+    }
+
+    private static Properties loadFingerprints() {
+        Properties fingerprints = new Properties();
+        try (InputStream in = Intrinsics.class.getResourceAsStream("intrinsics.properties")) {
+            if (in != null) {
+                fingerprints.load(in);
+            }
+        } catch (IOException e) {
+            // Without fingerprints nothing is bound, and every body runs as written
+        }
+        return fingerprints;
+    }
+
+    private static double reduce(double x) {
+        x = x % (2 * PI);
+        if (x > PI) {
+            x = x - (2 * PI);
+        } else if (x < -PI) {
+            x = x + (2 * PI);
+        }
+        return x;
+    }
+
+    private static double sine(double x) {
+        double sum = x;
+        double term = x;
+        int n = 1;
+        while (term > TOLERANCE || term < -TOLERANCE) {
+            term = term * -1 * x * x / ((2 * n) * (2 * n + 1));
+            sum = sum + term;
+            n = n + 1;
+        }
+        return sum;
+    }
+
+    private static double cosine(double x) {
+        double sum = 1;
+        double term = 1;
+        int n = 1;
+        while (term > TOLERANCE || term < -TOLERANCE) {
+            term = term * -1 * x * x / ((2 * n - 1) * (2 * n));
+            sum = sum + term;
+            n = n + 1;
+        }
+        return sum;
+    }
+
+    // Only ints and doubles behave as the body's arithmetic expects
+    private static boolean numbers(List<Object> args) {
+        for (Object arg : args) {
+            if (!(arg instanceof Integer || arg instanceof Double)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object add(Object left, Object right) {
+        return Operations.arithmetic(BinaryOperator.ADD, left, right);
+    }
+
+    private static Object subtract(Object left, Object right) {
+        return Operations.arithmetic(BinaryOperator.SUBTRACT, left, right);
+    }
+
+    private static Object multiply(Object left, Object right) {
+        return Operations.arithmetic(BinaryOperator.MULTIPLY, left, right);
+    }
+
+    private static Object divide(Object left, Object right) {
+        return Operations.arithmetic(BinaryOperator.DIVIDE, left, right);
+    }
+
+    private static Object modulo(Object left, Object right) {
+        return Operations.arithmetic(BinaryOperator.MODULO, left, right);
+    }
+
+    private static boolean less(Object left, Object right) {
+        return Operations.compare(BinaryOperator.LESS, left, right);
+    }
+
+    private static boolean greater(Object left, Object right) {
+        return Operations.compare(BinaryOperator.GREATER, left, right);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Object value) {
+        return (List<Object>) value;
+    }
+
+    // As VgSystemCall returns a Java object
+    private static Object wrap(Object result) {
+        return result != null && !SystemCallHandler.isPrimitiveOrWrapper(result.getClass())
+            ? LanguageObjectWrapper.of(result)
+            : result;
+    }
+
+    private static final class Intrinsic {
+        // Null if there is none, which binds nothing
+        final String fingerprint;
+        final BuiltInFunction implementation;
+        final String[] systemCalls;
+
+        Intrinsic(String fingerprint, BuiltInFunction implementation, String[] systemCalls) {
+            this.fingerprint = fingerprint;
+            this.implementation = implementation;
+            this.systemCalls = systemCalls;
+        }
+
+        boolean appliesTo(String fingerprint, Interpreter interpreter) {
+            if (this.fingerprint == null || !this.fingerprint.equals(fingerprint)) {
+                return false;
+            }
+            for (String call : systemCalls) {
+                int dot = call.lastIndexOf('.');
+                if (!interpreter.isSystemCallAllowed(call.substring(0, dot), call.substring(dot + 1))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,14 +1,72 @@
 package components;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
 public class LanguageObjectWrapper {
+    // The wrapper handed out for each Java object still in use, by identity
+    private static final Map<Key, WeakReference<LanguageObjectWrapper>> wrappers = new HashMap<>();
+    private static final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
     private Object languageObject;
     public LanguageObjectWrapper(Object languageObject) {
         this.languageObject = languageObject;
     }
+
+    /**
+     * Returns the wrapper for {@code object}: the same one for as long as
+     * scripts hold on to it, so a Java object that crosses into VG again is
+     * still the same value there.
+     */
+    public static LanguageObjectWrapper of(Object object) {
+        synchronized (wrappers) {
+            for (Reference<?> key; (key = collected.poll()) != null; ) {
+                wrappers.remove(key);
+            }
+            WeakReference<LanguageObjectWrapper> reference = wrappers.get(new Key(object, null));
+            LanguageObjectWrapper wrapper = reference != null ? reference.get() : null;
+            if (wrapper == null) {
+                wrapper = new LanguageObjectWrapper(object);
+                wrappers.put(new Key(object, collected), new WeakReference<>(wrapper));
+            }
+            return wrapper;
+        }
+    }
+
     public Object getLanguageObject() {
         return languageObject;
     }
     public Object getObject() {
         return languageObject;
     }
+
+    /** Refers to an object by identity without keeping it alive. */
+    private static final class Key extends WeakReference<Object> {
+        private final int hash;
+
+        Key(Object object, ReferenceQueue<Object> queue) {
+            super(object, queue);
+            this.hash = System.identityHashCode(object);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Object object = get();
+            return object != null && object == ((Key) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
@@ -1,20 +1,85 @@
 package components;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+// Synchronized because threads running code in one interpreter share it and
+// the first lookup of a library loads its file
 public class ModuleRegistry {
     private Map<String, Library> libraries = new HashMap<>();
+    // Library files by the names of the libraries they declare, loaded on first use
+    private Map<String, Path> index = new HashMap<>();
+    // Files whose libraries have been declared, and files being loaded now
+    private Set<Path> loaded = new LinkedHashSet<>();
+    private Set<Path> pending = new HashSet<>();
+    private Consumer<Path> loader;
+    private Path loading;
 
-    public void addLibrary(Library lib) {
+    /** Sets what declares the libraries in an indexed file when one of them is first used. */
+    public synchronized void setLoader(Consumer<Path> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Records that {@code file} declares the library {@code name}, to be
+     * loaded when the library is first looked up. A later file declaring the
+     * same name replaces the earlier one, as loading both in order would.
+     */
+    public synchronized void index(String name, Path file) {
+        index.put(name, file);
+    }
+
+    public synchronized void addLibrary(Library lib) {
+        Path owner = index.get(lib.getName());
+        if (loading != null && owner != null && !owner.equals(loading)) {
+            // A later file declares this library too, and that one wins
+            return;
+        }
         libraries.put(lib.getName(), lib);
     }
 
-    public Library getLibrary(String name) {
-        return libraries.get(name);
+    public synchronized Library getLibrary(String name) {
+        Library library = libraries.get(name);
+        if (library == null) {
+            Path file = index.get(name);
+            // A file that failed to load is tried again, so every lookup reports why
+            if (file != null && !loaded.contains(file) && pending.add(file)) {
+                try {
+                    load(file);
+                } finally {
+                    pending.remove(file);
+                }
+                loaded.add(file);
+                library = libraries.get(name);
+            }
+        }
+        return library;
+    }
+
+    public synchronized boolean containsLibrary(String name) {
+        return libraries.containsKey(name) || index.containsKey(name);
+    }
+
+    /** Declares the libraries of every indexed file loaded so far again, in the order they were first loaded. */
+    public synchronized void reload() {
+        for (Path file : new ArrayList<>(loaded)) {
+            load(file);
+        }
     }
 
-    public boolean containsLibrary(String name) {
-        return libraries.containsKey(name);
+    private void load(Path file) {
+        Path previous = loading;
+        loading = file;
+        try {
+            loader.accept(file);
+        } finally {
+            loading = previous;
+        }
     }
 }
@@ -623,6 +623,7 @@ public class MyGUI extends JFrame {
         }
     }
     public class LineNumberingTextArea extends JTextArea {
+        private static final long serialVersionUID = 1L;
 
 
         public LineNumberingTextArea()
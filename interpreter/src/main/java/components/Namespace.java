@@ -9,6 +9,8 @@ public class Namespace {
     private Map<String, Namespace> children = new HashMap<>();
     private Map<String, Function> functions = new HashMap<>();
     private Map<String, ClassDefinition> classes = new HashMap<>();
+    // Bumped whenever a symbol is added, so that cached lookups can tell they are stale
+    private int version;
 
     public Namespace(String name) {
         this.name = name;
@@ -20,6 +22,11 @@ public class Namespace {
 
     public void addSymbol(String symbolName, Object symbol) {
         symbols.put(symbolName, symbol);
+        version++;
+    }
+
+    public int getVersion() {
+        return version;
     }
 
     public Object getSymbol(String symbolName) {
@@ -0,0 +1,59 @@
+package components;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Two-stage parsing: SLL prediction first, which is much faster and gets
+ * nearly every VG source right, and full LL only for input SLL gives up on.
+ * The second stage runs with the parser's own error strategy and listeners,
+ * so syntax errors are reported exactly as a plain LL parse reports them.
+ */
+public final class Parsing {
+    private Parsing() {
+    }
+
+    /** A parser rule, such as {@code vg_langParser::program}. */
+    public interface Rule<T extends ParserRuleContext> {
+        T parse(vg_langParser parser);
+    }
+
+    public static vg_langParser.ProgramContext program(vg_langParser parser) {
+        return parse(parser, vg_langParser::program);
+    }
+
+    public static <T extends ParserRuleContext> T parse(vg_langParser parser, Rule<T> rule) {
+        List<ANTLRErrorListener> listeners = new ArrayList<>(parser.getErrorListeners());
+        ANTLRErrorStrategy strategy = parser.getErrorHandler();
+
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        try {
+            return rule.parse(parser);
+        } catch (ParseCancellationException e) {
+            // SLL failed: a syntax error, or input only full LL can decide
+            parser.setErrorHandler(strategy);
+            for (ANTLRErrorListener listener : listeners) {
+                parser.addErrorListener(listener);
+            }
+            parser.reset();
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            return rule.parse(parser);
+        } finally {
+            if (parser.getErrorHandler() != strategy) {
+                parser.setErrorHandler(strategy);
+                for (ANTLRErrorListener listener : listeners) {
+                    parser.addErrorListener(listener);
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package components;
 
-public class ReturnException extends RuntimeException {
+public class ReturnException extends ControlFlowSignal {
+    private static final long serialVersionUID = 1L;
     private Object value;
 
     public ReturnException(Object value) {this.value = value;}
@@ -0,0 +1,129 @@
+package components;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Startup snapshots for {@code vg --snapshot}: a class data sharing archive
+ * of every class a typical run loads, already parsed and verified, which
+ * the JVM maps into memory at startup instead of loading the classes from
+ * the jar.
+ * <p>
+ * The archive is written by a child JVM that runs a training script, the
+ * given one or a built-in one, with {@code -XX:ArchiveClassesAtExit}. It is
+ * only valid for the Java runtime and jar that wrote it, so it is made on
+ * the machine that uses it rather than at build time.
+ */
+public final class Snapshot {
+    private static final Path ARCHIVE = Paths.get(System.getProperty("vg.snapshot.file",
+        Paths.get(System.getProperty("user.home"), ".vg", "vg.jsa").toString()));
+    private static final String TRAINING = "vg.snapshot.training";
+
+    // Touches what most scripts do: libraries, system calls, functions, loops, strings and arrays
+    private static final String TRAINING_SCRIPT = String.join("\n",
+        "import MathLib.arithmetic;",
+        "import MathLib.trig.*;",
+        "import Arrays.array;",
+        "function fib(n) {",
+        "    if (n < 2) {",
+        "        return n;",
+        "    }",
+        "    return fib(n - 1) + fib(n - 2);",
+        "}",
+        "var xs = [1, 2, 3];",
+        "array.push(xs, fib(10));",
+        "var total = 0;",
+        "for (var i = 0; i < 1000; i = i + 1) {",
+        "    total = total + arithmetic.abs(i - 500) % 7;",
+        "}",
+        "var s = \"\";",
+        "var n = 0;",
+        "while (n < 10) {",
+        "    s = s + \"x\" + n;",
+        "    n = n + 1;",
+        "}",
+        "print(xs, total, sin(0.5), VgSystemCall(\"java.lang.Math\", \"floor\", 2.5), s);",
+        "");
+
+    private Snapshot() {
+    }
+
+    /** Whether this process is the training run of {@link #create}. */
+    public static boolean isTraining() {
+        return Boolean.getBoolean(TRAINING);
+    }
+
+    /**
+     * Writes the archive by running {@code mainClass} with
+     * {@code --snapshot} and {@code trainingScript}, which may be null for
+     * the built-in script, in a child JVM.
+     */
+    public static void create(String mainClass, String trainingScript) throws IOException, InterruptedException {
+        Files.createDirectories(ARCHIVE.getParent());
+        List<String> command = new ArrayList<>(Arrays.asList(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-XX:ArchiveClassesAtExit=" + ARCHIVE,
+            // Otherwise it warns about every JDK class it cannot archive
+            "-Xlog:cds=off",
+            "-D" + TRAINING + "=true",
+            "-cp", System.getProperty("java.class.path"),
+            mainClass, "--snapshot"));
+        if (trainingScript != null) {
+            command.add(trainingScript);
+        }
+
+        Files.deleteIfExists(ARCHIVE);
+        int status = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (status != 0 || !Files.exists(ARCHIVE)) {
+            throw new IOException("Could not write the startup snapshot (exit code " + status
+                + "). Snapshots need Java 13 or later and VG run from its jar.");
+        }
+        System.out.println("Startup snapshot written to: " + ARCHIVE);
+        System.out.println("Start VG with -XX:SharedArchiveFile=" + ARCHIVE
+            + " to use it, for example through JAVA_TOOL_OPTIONS.");
+    }
+
+    /**
+     * The training run: runs {@code trainingScript}, or the built-in script
+     * twice so that both parsing and reading back its .vgc file are covered,
+     * with its output discarded.
+     */
+    public static void train(String trainingScript, Daemon.ScriptRunner runner) throws IOException {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                // Discarded
+            }
+        }));
+        try {
+            if (trainingScript != null) {
+                runner.run(trainingScript);
+                return;
+            }
+            Path directory = Files.createTempDirectory("vg-snapshot");
+            try {
+                Path script = directory.resolve("training.vg");
+                Files.write(script, TRAINING_SCRIPT.getBytes(StandardCharsets.UTF_8));
+                runner.run(script.toString());
+                runner.run(script.toString());
+            } finally {
+                try (Stream<Path> paths = Files.walk(directory)) {
+                    paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+                }
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+}
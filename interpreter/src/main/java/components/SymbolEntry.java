@@ -18,6 +18,10 @@ public class SymbolEntry {
     public Object getValue() {
         return value;
     }
+
+    void setValue(Object value) {
+        this.value = value;
+    }
     
     public String getOriginNamespace() {
         return originNamespace;
@@ -1,81 +1,304 @@
 package components;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 public class SymbolTable {
-    private Map<String, SymbolEntry> variables = new HashMap<>();
-    private Set<String> constants = new HashSet<>();
-    private Map<String, Function> functions = new HashMap<>();
+    /** Returned by {@link #getSlot(int)} for a slot that has not been assigned yet. */
+    public static final Object UNDEFINED = new Object();
+
+    // Stands in for a null value so that a null array element can mean "unassigned"
+    private static final Object NULL_VALUE = new Object();
+
+    private static final AtomicIntegerFieldUpdater<SymbolTable> VERSION =
+        AtomicIntegerFieldUpdater.newUpdater(SymbolTable.class, "version");
+
+    private final FrameDescriptor frame;
+    private final Object[] slots;
+    private final boolean global;
+    // The global table of the interpreter this scope belongs to; itself for a global table
+    private SymbolTable globalTable;
+    // Global tables only: every name ever bound outside the global scope in
+    // their interpreter. A name that is not in here can only live in the
+    // global table, so lookups can go straight there.
+    private final Set<String> localNames;
+
+    // Allocated on first use; most function and loop scopes only use slots.
+    // The global table's are concurrent, since every thread's stack shares it.
+    private Map<String, SymbolEntry> variables;
+    private Set<String> constants;
+    private Map<String, Function> functions;
+    // Bumped whenever a name gets a new entry or function here, so that lookups
+    // cached on an entry can tell it may no longer be the binding. Bumped
+    // atomically, since threads sharing the global table may declare at once.
+    private volatile int version;
+
+    /** Creates a scope for {@code frame}, which may be null, under the global table {@code global}. */
+    public SymbolTable(FrameDescriptor frame, SymbolTable global) {
+        this(frame, false);
+        attach(global);
+    }
+
+    private SymbolTable(FrameDescriptor frame, boolean global) {
+        this.frame = frame;
+        this.slots = frame != null ? new Object[frame.getSize()] : null;
+        this.global = global;
+        if (global) {
+            variables = new ConcurrentHashMap<>();
+            constants = ConcurrentHashMap.newKeySet();
+            functions = new ConcurrentHashMap<>();
+            localNames = ConcurrentHashMap.newKeySet();
+            globalTable = this;
+        } else {
+            localNames = null;
+        }
+    }
+
+    /**
+     * Returns an empty scope for {@code frame} under the global table
+     * {@code global}, which may be one that an earlier call released.
+     */
+    public static SymbolTable obtain(FrameDescriptor frame, SymbolTable global) {
+        return frame != null ? frame.obtain(global) : new SymbolTable(null, global);
+    }
+
+    /** Makes this scope one of {@code global}'s interpreter, whose names its frame may bind. */
+    void attach(SymbolTable global) {
+        globalTable = global;
+        if (frame != null) {
+            frame.registerNames(global);
+        }
+    }
+
+    /**
+     * Hands this scope back to its frame for reuse. Only the code that
+     * obtained the scope may release it, once it has been popped and nothing
+     * can reach it any more.
+     */
+    public void release() {
+        if (frame != null && !global) {
+            frame.release(this);
+        }
+    }
+
+    void clear() {
+        Arrays.fill(slots, null);
+        variables = null;
+        constants = null;
+        functions = null;
+    }
+
+    static SymbolTable createGlobal() {
+        return new SymbolTable(null, true);
+    }
+
+    void addLocalNames(Collection<String> names) {
+        localNames.addAll(names);
+    }
+
+    /**
+     * Returns false if {@code name} has never been bound in a non-global
+     * scope of this table's interpreter, in which case only the global
+     * table can define it.
+     */
+    public boolean isLocalName(String name) {
+        return globalTable.localNames.contains(name);
+    }
+
+    public FrameDescriptor getFrame() {
+        return frame;
+    }
+
+    private int slotOf(String name) {
+        return frame != null ? frame.getSlot(name) : -1;
+    }
+
+    private Map<String, SymbolEntry> variables() {
+        if (variables == null) {
+            variables = new HashMap<>();
+        }
+        return variables;
+    }
+
+    private void putEntry(String name, SymbolEntry entry) {
+        if (!global && (variables == null || !variables.containsKey(name))) {
+            globalTable.localNames.add(name);
+        }
+        variables().put(name, entry);
+        VERSION.incrementAndGet(this);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the value in {@code slot}, or {@link #UNDEFINED} if the name
+     * for that slot has not been declared in this scope yet.
+     */
+    public Object getSlot(int slot) {
+        Object value = slots[slot];
+        if (value == null) {
+            return UNDEFINED;
+        }
+        return value == NULL_VALUE ? null : value;
+    }
+
+    public void setSlot(int slot, Object value) {
+        slots[slot] = value != null ? value : NULL_VALUE;
+    }
 
     public void set(String name, Object value) {
-        variables.put(name, new SymbolEntry(value, null));
+        int slot = slotOf(name);
+        if (slot >= 0) {
+            setSlot(slot, value);
+            return;
+        }
+        SymbolEntry existing = variables != null ? variables.get(name) : null;
+        if (existing != null && existing.getOriginNamespace() == null && !existing.isAmbiguous()) {
+            // Same binding, new value: the entry, and any lookup cached on it, stays valid
+            existing.setValue(value);
+            return;
+        }
+        putEntry(name, new SymbolEntry(value, null));
     }
     
     public void setWithOrigin(String name, Object value, String originNamespace) {
-        SymbolEntry existing = variables.get(name);
+        int slot = slotOf(name);
+        if (slot >= 0) {
+            setSlot(slot, value);
+            return;
+        }
+        SymbolEntry existing = variables != null ? variables.get(name) : null;
         if (existing != null && existing.getOriginNamespace() != null && 
             !existing.getOriginNamespace().equals(originNamespace)) {
             // Mark both symbols as ambiguous
             existing.setAmbiguous(true);
             SymbolEntry newEntry = new SymbolEntry(value, originNamespace);
             newEntry.setAmbiguous(true);
-            variables.put(name, newEntry);
+            putEntry(name, newEntry);
         } else {
-            variables.put(name, new SymbolEntry(value, originNamespace));
+            putEntry(name, new SymbolEntry(value, originNamespace));
         }
     }
 
     public Object get(String name) {
-        SymbolEntry entry = variables.get(name);
+        int slot = slotOf(name);
+        if (slot >= 0) {
+            Object value = getSlot(slot);
+            return value != UNDEFINED ? value : null;
+        }
+        SymbolEntry entry = variables != null ? variables.get(name) : null;
         return entry != null ? entry.getValue() : null;
     }
     
     public SymbolEntry getEntry(String name) {
-        return variables.get(name);
+        int slot = slotOf(name);
+        if (slot >= 0) {
+            Object value = getSlot(slot);
+            return value != UNDEFINED ? new SymbolEntry(value, null) : null;
+        }
+        return variables != null ? variables.get(name) : null;
     }
     
     public boolean isAmbiguous(String name) {
+        if (variables == null) {
+            return false;
+        }
         SymbolEntry entry = variables.get(name);
         return entry != null && entry.isAmbiguous();
     }
 
     public boolean contains(String name) {
-        return variables.containsKey(name);
+        int slot = slotOf(name);
+        if (slot >= 0) {
+            return slots[slot] != null;
+        }
+        return variables != null && variables.containsKey(name);
     }
     
+    /**
+     * Returns true if every name bound here is also bound in {@code inner},
+     * so a lookup that reaches {@code inner} first can never get to this scope.
+     */
+    public boolean isShadowedBy(SymbolTable inner) {
+        if (frame != null) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] != null && !inner.contains(frame.getName(i))) {
+                    return false;
+                }
+            }
+        }
+        if (variables != null) {
+            for (String name : variables.keySet()) {
+                if (!inner.contains(name)) {
+                    return false;
+                }
+            }
+        }
+        if (functions != null) {
+            for (String name : functions.keySet()) {
+                if (!inner.contains(name)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public boolean isConstant(String name) {
-        return constants.contains(name);
+        return constants != null && constants.contains(name);
     }
     
     public void setConstant(String name, Object value) {
-        variables.put(name, new SymbolEntry(value, null));
+        set(name, value);
+        if (constants == null) {
+            constants = new HashSet<>();
+        }
         constants.add(name);
     }
 
     public Map<String, Object> getVariables() {
         Map<String, Object> result = new HashMap<>();
-        for (Map.Entry<String, SymbolEntry> entry : variables.entrySet()) {
-            result.put(entry.getKey(), entry.getValue().getValue());
+        if (frame != null) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] != null) {
+                    result.put(frame.getName(i), getSlot(i));
+                }
+            }
+        }
+        if (variables != null) {
+            for (Map.Entry<String, SymbolEntry> entry : variables.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().getValue());
+            }
         }
         return result;
     }
     
     public void setFunction(String name, Function function) {
+        if (functions == null) {
+            functions = new HashMap<>();
+        }
         functions.put(name, function);
+        VERSION.incrementAndGet(this);
     }
 
     public Function getFunction(String name) {
-        return functions.get(name);
+        return functions != null ? functions.get(name) : null;
     }
 
     public boolean containsFunction(String name) {
-        return functions.containsKey(name);
+        return functions != null && functions.containsKey(name);
     }
 
     public Map<String, Function> getFunctions() {
-        return functions;
+        return functions != null ? functions : Collections.<String, Function>emptyMap();
     }
 }
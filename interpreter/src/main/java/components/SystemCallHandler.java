@@ -1,20 +1,34 @@
 package components;
 
 import java.awt.event.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SystemCallHandler {
     private final Map<String, Set<String>> allowedMethods;
     private final Set<String> allowedClasses;
     private final int currentLine;
     private final int currentColumn;
+    private final Cache cache;
 
     public SystemCallHandler(Map<String, Set<String>> allowedMethods, Set<String> allowedClasses, int currentLine, int currentColumn) {
+        this(allowedMethods, allowedClasses, currentLine, currentColumn, new Cache());
+    }
+
+    /**
+     * @param cache the calls already resolved against the same allowed classes and methods
+     */
+    public SystemCallHandler(Map<String, Set<String>> allowedMethods, Set<String> allowedClasses, int currentLine,
+                             int currentColumn, Cache cache) {
         this.allowedMethods = allowedMethods;
         this.allowedClasses = allowedClasses;
         this.currentLine = currentLine;
         this.currentColumn = currentColumn;
+        this.cache = cache;
     }
 
     public Object handleSystemCall(List<Object> args) {
@@ -24,7 +38,16 @@ public class SystemCallHandler {
         String className = args.get(0).toString();
         String memberName = args.get(1).toString();
         List<Object> methodArgs = args.size() > 2 ? args.subList(2, args.size()) : Collections.emptyList();
+        // Only calls that went the general way below are cached, so a hit is never one of the special cases
+        Signature signature = Signature.of(className, memberName, methodArgs);
+        Target cached = signature != null ? cache.targets.get(signature) : null;
         try {
+            if (cached != null) {
+                Object instance = signature.receiver ? ((LanguageObjectWrapper) methodArgs.get(0)).getLanguageObject() : null;
+                List<Object> callArgs = signature.receiver ? methodArgs.subList(1, methodArgs.size()) : methodArgs;
+                return finish(instance, memberName, cached.invoke(instance, callArgs));
+            }
+            ErrorHandler.prepareFor(className);
             Class<?> clazz = Class.forName(className);
             if (className.equals("components.MyGUI$MyButton") && memberName.equals("setOnClick") && methodArgs.size() == 2) {
                 Object instanceObj = methodArgs.get(0);
@@ -162,7 +185,7 @@ public class SystemCallHandler {
                     Interpreter.registerTimer((javax.swing.Timer) instance);
                 }
 
-                return new LanguageObjectWrapper(instance);
+                return LanguageObjectWrapper.of(instance);
             }
             if (!isMethodAllowed(clazz, memberName)) {
                 throw new RuntimeException("Access to method '" + memberName + "' in class '" + className + "' is not allowed.");
@@ -191,29 +214,20 @@ public class SystemCallHandler {
             }
 
             Object[] javaArgs = convertArguments(methodArgs, accessibleObject);
-
             Object result;
             if (accessibleObject instanceof java.lang.reflect.Constructor<?>) {
                 result = ((java.lang.reflect.Constructor<?>) accessibleObject).newInstance(javaArgs);
             } else {
                 result = ((java.lang.reflect.Method) accessibleObject).invoke(instance, javaArgs);
-                
-                // Track Timer operations for debugging
-                if (instance instanceof javax.swing.Timer) {
-                    javax.swing.Timer timer = (javax.swing.Timer) instance;
-                    if (memberName.equals("stop")) {
-                        Interpreter.unregisterTimer(timer);
-                    }
-                }
             }
-
-            if (result != null && !isPrimitiveOrWrapper(result.getClass())) {
-                return new LanguageObjectWrapper(result);
-            } else if (result instanceof List) {
-                return convertJavaListToLanguageArray((List<?>) result);
-            } else {
-                return result;
+            // Only once the call has gone through, so a call that cannot be made is never cached
+            if (signature != null) {
+                Target target = Target.of(accessibleObject, instance);
+                if (target != null) {
+                    cache.targets.putIfAbsent(signature, target);
+                }
             }
+            return finish(instance, memberName, result);
         } catch (InvocationTargetException ite) {
             Throwable cause = ite.getCause();
             if (cause != null) {
@@ -233,6 +247,24 @@ public class SystemCallHandler {
         }
     }
 
+    private Object finish(Object instance, String memberName, Object result) {
+        // Track Timer operations for debugging
+        if (instance instanceof javax.swing.Timer) {
+            javax.swing.Timer timer = (javax.swing.Timer) instance;
+            if (memberName.equals("stop")) {
+                Interpreter.unregisterTimer(timer);
+            }
+        }
+
+        if (result != null && !isPrimitiveOrWrapper(result.getClass())) {
+            return LanguageObjectWrapper.of(result);
+        } else if (result instanceof List) {
+            return convertJavaListToLanguageArray((List<?>) result);
+        } else {
+            return result;
+        }
+    }
+
     private boolean isMethodAllowed(Class<?> clazz, String methodName) {
         String className = clazz.getName();
         if (!allowedClasses.contains(className)) {
@@ -308,6 +340,10 @@ public class SystemCallHandler {
             paramTypes = ((java.lang.reflect.Constructor<?>) accessibleObject).getParameterTypes();
         }
 
+        return unwrap(args);
+    }
+
+    private static Object[] unwrap(List<Object> args) {
         Object[] convertedArgs = new Object[args.size()];
         for (int i = 0; i < args.size(); i++) {
             Object arg = args.get(i);
@@ -324,7 +360,7 @@ public class SystemCallHandler {
         List<Object> result = new ArrayList<>();
         for (Object item : javaList) {
             if (item != null && !isPrimitiveOrWrapper(item.getClass())) {
-                result.add(new LanguageObjectWrapper(item));
+                result.add(LanguageObjectWrapper.of(item));
             } else {
                 result.add(item);
             }
@@ -332,7 +368,7 @@ public class SystemCallHandler {
         return result;
     }
 
-    private boolean isPrimitiveOrWrapper(Class<?> clazz) {
+    static boolean isPrimitiveOrWrapper(Class<?> clazz) {
         return clazz.isPrimitive() ||
                 clazz == Boolean.class ||
                 clazz == Character.class ||
@@ -352,4 +388,194 @@ public class SystemCallHandler {
         }
         throw new RuntimeException("Expected a function reference");
     }
+
+    /**
+     * The methods and constructors that calls have resolved to, kept by an
+     * interpreter for all of its system calls. Entries are only made after
+     * the allowed classes and methods have been checked, so a cache must not
+     * be shared between handlers with different ones.
+     */
+    public static final class Cache {
+        private final Map<Signature, Target> targets = new ConcurrentHashMap<>();
+
+        int size() {
+            return targets.size();
+        }
+    }
+
+    /**
+     * What decides which method or constructor a call resolves to: the class,
+     * the member, and the runtime types of the receiver and the arguments.
+     */
+    private static final class Signature {
+        final String className;
+        final String memberName;
+        final boolean receiver;
+        final Class<?>[] types;
+        final int hash;
+
+        private Signature(String className, String memberName, boolean receiver, Class<?>[] types) {
+            this.className = className;
+            this.memberName = memberName;
+            this.receiver = receiver;
+            this.types = types;
+            this.hash = Objects.hash(className, memberName, receiver) * 31 + Arrays.hashCode(types);
+        }
+
+        /** Returns the signature of a call, or null for one that is never cached. */
+        static Signature of(String className, String memberName, List<Object> methodArgs) {
+            boolean receiver = !memberName.equals("<init>") && !methodArgs.isEmpty()
+                && methodArgs.get(0) instanceof LanguageObjectWrapper;
+            Class<?>[] types = new Class<?>[methodArgs.size()];
+            for (int i = 0; i < types.length; i++) {
+                Object arg = methodArgs.get(i);
+                if (arg instanceof LanguageObjectWrapper) {
+                    arg = ((LanguageObjectWrapper) arg).getObject();
+                    if (arg == null) {
+                        // Fails in resolution, which is left to report it
+                        return null;
+                    }
+                }
+                types[i] = arg == null ? null : arg.getClass();
+            }
+            return new Signature(className, memberName, receiver, types);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature other = (Signature) o;
+            return receiver == other.receiver && className.equals(other.className)
+                && memberName.equals(other.memberName) && Arrays.equals(types, other.types);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A resolved method or constructor, taking the receiver and the
+     * arguments. Members with up to {@link #DIRECT} parameters take them
+     * one by one, so calling them allocates no argument array.
+     * <p>
+     * What the member throws comes out wrapped in an
+     * {@link InvocationTargetException}, as reflection reports it. A call
+     * whose arguments the handle cannot convert is made reflectively
+     * instead, so that it fails exactly as an uncached call does.
+     */
+    private static final class Target {
+        private static final int DIRECT = 3;
+        private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+        private static final MethodHandle REPORT;
+
+        static {
+            try {
+                REPORT = MethodHandles.lookup().findStatic(Target.class, "report",
+                    MethodType.methodType(Object.class, Throwable.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final AccessibleObject member;
+        private final MethodHandle handle;
+        private final int arity;
+
+        private Target(AccessibleObject member, MethodHandle handle, int arity) {
+            this.member = member;
+            this.handle = handle;
+            this.arity = arity;
+        }
+
+        /**
+         * Returns the target for a call resolved to {@code member}, or null if
+         * invoking it reflectively fails in a way a handle would report
+         * differently, such as an instance method without a fitting receiver.
+         */
+        static Target of(AccessibleObject member, Object instance) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                MethodHandle handle;
+                int arity;
+                if (member instanceof java.lang.reflect.Constructor<?>) {
+                    java.lang.reflect.Constructor<?> constructor = (java.lang.reflect.Constructor<?>) member;
+                    handle = MethodHandles.dropArguments(reporting(lookup.unreflectConstructor(constructor)), 0,
+                        Object.class);
+                    arity = constructor.getParameterCount();
+                } else {
+                    java.lang.reflect.Method method = (java.lang.reflect.Method) member;
+                    boolean isStatic = Modifier.isStatic(method.getModifiers());
+                    if (!isStatic && !method.getDeclaringClass().isInstance(instance)) {
+                        return null;
+                    }
+                    handle = reporting(lookup.unreflect(method));
+                    if (isStatic) {
+                        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                    }
+                    arity = method.getParameterCount();
+                }
+                handle = arity <= DIRECT
+                    ? handle.asType(MethodType.genericMethodType(arity + 1))
+                    : handle.asSpreader(Object[].class, arity).asType(SPREAD_TYPE);
+                return new Target(member, handle, arity);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        // Wraps what the member throws, so that it can be told from a failure to convert the arguments
+        private static MethodHandle reporting(MethodHandle member) {
+            MethodType type = member.type();
+            MethodHandle handler = REPORT.asType(MethodType.methodType(type.returnType(), Throwable.class));
+            return MethodHandles.catchException(member, Throwable.class,
+                MethodHandles.dropArguments(handler, 1, type.parameterList()));
+        }
+
+        private static Object report(Throwable thrown) throws InvocationTargetException {
+            throw new InvocationTargetException(thrown);
+        }
+
+        Object invoke(Object instance, List<Object> args) throws InvocationTargetException {
+            try {
+                switch (arity) {
+                    case 0:
+                        return (Object) handle.invokeExact(instance);
+                    case 1:
+                        return (Object) handle.invokeExact(instance, unwrap(args.get(0)));
+                    case 2:
+                        return (Object) handle.invokeExact(instance, unwrap(args.get(0)), unwrap(args.get(1)));
+                    case 3:
+                        return (Object) handle.invokeExact(instance, unwrap(args.get(0)), unwrap(args.get(1)),
+                            unwrap(args.get(2)));
+                    default:
+                        return (Object) handle.invokeExact(instance, SystemCallHandler.unwrap(args));
+                }
+            } catch (InvocationTargetException e) {
+                throw e;
+            } catch (Throwable t) {
+                // The arguments did not convert, and the member never ran
+                return invokeReflectively(instance, args);
+            }
+        }
+
+        private Object invokeReflectively(Object instance, List<Object> args) throws InvocationTargetException {
+            Object[] javaArgs = SystemCallHandler.unwrap(args);
+            try {
+                if (member instanceof java.lang.reflect.Constructor<?>) {
+                    return ((java.lang.reflect.Constructor<?>) member).newInstance(javaArgs);
+                }
+                return ((java.lang.reflect.Method) member).invoke(instance, javaArgs);
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static Object unwrap(Object arg) {
+            return arg instanceof LanguageObjectWrapper ? ((LanguageObjectWrapper) arg).getObject() : arg;
+        }
+    }
 } 
\ No newline at end of file
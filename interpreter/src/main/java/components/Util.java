@@ -5,6 +5,10 @@ public class Util {
         if (variable == null) {
             return "null";
         }
+        if (variable instanceof ConstantArray) {
+            // Stands in for the list the literal used to build
+            return "ArrayList";
+        }
         return variable.getClass().getSimpleName();
     }
     
@@ -1,20 +1,28 @@
 package components;
 
+import components.nodes.FunctionBodyNode;
+import components.nodes.NodeBuilder;
+
 import java.util.List;
 
 public class VGConstructor {
     private List<String> parameters;
     private vg_langParser.BlockContext codeBlock;
+    private FunctionBodyNode body;
     private boolean isPrivate;
     private int line;
     private int column;
+    // Whether the body is lowered with the probes a debug session pauses at
+    private boolean instrumented;
     
-    public VGConstructor(List<String> parameters, vg_langParser.BlockContext codeBlock, boolean isPrivate, int line, int column) {
+    public VGConstructor(List<String> parameters, vg_langParser.BlockContext codeBlock, boolean isPrivate, int line, int column,
+                         boolean instrumented) {
         this.parameters = parameters;
         this.codeBlock = codeBlock;
         this.isPrivate = isPrivate;
         this.line = line;
         this.column = column;
+        this.instrumented = instrumented;
     }
     
     public List<String> getParameters() {
@@ -29,6 +37,13 @@ public class VGConstructor {
         return codeBlock;
     }
     
+    public FunctionBodyNode getBody() {
+        if (body == null) {
+            body = new NodeBuilder(instrumented).buildFunctionBody(parameters, true, codeBlock);
+        }
+        return body;
+    }
+    
     public boolean isPrivate() {
         return isPrivate;
     }
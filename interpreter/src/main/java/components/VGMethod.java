@@ -1,19 +1,25 @@
 package components;
 
+import components.nodes.FunctionBodyNode;
+import components.nodes.NodeBuilder;
+
 import java.util.List;
 
 public class VGMethod {
     private String name;
     private List<String> parameters;
     private vg_langParser.BlockContext codeBlock;
+    private FunctionBodyNode body;
     private boolean isPrivate;
     private boolean isStatic;
     private boolean isConst;
     private int line;
     private int column;
+    // Whether the body is lowered with the probes a debug session pauses at
+    private boolean instrumented;
     
     public VGMethod(String name, List<String> parameters, vg_langParser.BlockContext codeBlock, 
-                 boolean isPrivate, boolean isStatic, boolean isConst, int line, int column) {
+                 boolean isPrivate, boolean isStatic, boolean isConst, int line, int column, boolean instrumented) {
         this.name = name;
         this.parameters = parameters;
         this.codeBlock = codeBlock;
@@ -22,6 +28,7 @@ public class VGMethod {
         this.isConst = isConst;
         this.line = line;
         this.column = column;
+        this.instrumented = instrumented;
     }
     
     public String getName() {
@@ -40,6 +47,14 @@ public class VGMethod {
         return codeBlock;
     }
     
+    public FunctionBodyNode getBody() {
+        if (body == null) {
+            // Instance methods bind 'this' alongside the parameters
+            body = new NodeBuilder(instrumented).buildFunctionBody(parameters, !isStatic, codeBlock);
+        }
+        return body;
+    }
+    
     public boolean isPrivate() {
         return isPrivate;
     }
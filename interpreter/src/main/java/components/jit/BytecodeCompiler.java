@@ -0,0 +1,1103 @@
+package components.jit;
+
+import components.FrameDescriptor;
+import components.nodes.ArithmeticNode;
+import components.nodes.AssignmentNode;
+import components.nodes.BinaryOperator;
+import components.nodes.BlockNode;
+import components.nodes.BreakNode;
+import components.nodes.ContinueNode;
+import components.nodes.DoWhileNode;
+import components.nodes.EqualityNode;
+import components.nodes.ForNode;
+import components.nodes.FunctionBodyNode;
+import components.nodes.IfNode;
+import components.nodes.IndexNode;
+import components.nodes.LeftHandSideNode;
+import components.nodes.LiteralNode;
+import components.nodes.LocalVariableNode;
+import components.nodes.LogicalAndNode;
+import components.nodes.LogicalOrNode;
+import components.nodes.Node;
+import components.nodes.PrintNode;
+import components.nodes.RelationalNode;
+import components.nodes.ReturnNode;
+import components.nodes.ThrowNode;
+import components.nodes.UnaryNode;
+import components.nodes.UnaryOperator;
+import components.nodes.VariableDeclarationNode;
+import components.nodes.VariableNode;
+import components.nodes.WhileNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static components.jit.CodeWriter.*;
+
+/**
+ * Compiles a function body to a JVM class whose locals hold the body's
+ * variables, unboxed where their type is known.
+ *
+ * Only leaf bodies are compiled: statements and expressions that cannot call
+ * back into VG code. Scoping in VG is dynamic, so a callee may read or assign
+ * the caller's locals by name; a body that makes no calls is the one case
+ * where its variables can safely leave the scope stack. Arithmetic, loops,
+ * branches, printing, array reads and reads of non-local names are covered;
+ * anything else makes {@link #compile} return null and the body stays
+ * interpreted.
+ *
+ * Each variable read must be preceded by an assignment on every path, as
+ * otherwise the interpreter would look the name up in the caller's scopes.
+ */
+final class BytecodeCompiler {
+    private static final String COMPILED_BODY = "components/jit/CompiledBody";
+    private static final String INTERPRETER = "components/Interpreter";
+    private static final String NODE = "components/nodes/Node";
+    private static final String JIT_TYPE = "components/jit/JitType";
+    private static final String OPERATIONS = "components/nodes/Operations";
+    private static final String BINARY_OPERATOR = "components/nodes/BinaryOperator";
+    private static final String UNARY_OPERATOR = "components/nodes/UnaryOperator";
+    private static final String JIT_SUPPORT = "components/jit/JitSupport";
+    private static final String OBJECT_DESCRIPTOR = "Ljava/lang/Object;";
+
+    private static final JitClassLoader LOADER = new JitClassLoader();
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    // JVM locals of run(): this, interpreter, args
+    private static final int INTERPRETER_LOCAL = 1;
+    private static final int ARGS_LOCAL = 2;
+
+    /** Thrown when the body uses something the compiler does not handle. */
+    private static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Variable {
+        private final String name;
+        private JitType type;
+        private int local = -1;
+
+        Variable(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class Loop {
+        private final CodeWriter.Label breakLabel = new CodeWriter.Label();
+        private final CodeWriter.Label continueLabel;
+        // Variables assigned on every path reaching a break or continue
+        private Set<Variable> breakState;
+        private Set<Variable> continueState;
+
+        Loop(CodeWriter.Label continueLabel) {
+            this.continueLabel = continueLabel;
+        }
+    }
+
+    private final FunctionBodyNode body;
+    private final JitType[] argumentTypes;
+    private final Map<FrameDescriptor, Variable[]> variables = new IdentityHashMap<>();
+    // Frames of the scopes enclosing the code being compiled, innermost last
+    private final List<FrameDescriptor> scopes = new ArrayList<>();
+    private final Deque<Loop> loops = new ArrayDeque<>();
+    private final List<Node> nodes = new ArrayList<>();
+    private boolean changed;
+
+    private ClassWriter classWriter;
+    private CodeWriter code;
+
+    private BytecodeCompiler(FunctionBodyNode body, JitType[] argumentTypes) {
+        this.body = body;
+        this.argumentTypes = argumentTypes;
+    }
+
+    /**
+     * Compiles {@code body} specialized to the types of {@code args}, or
+     * returns null if the body cannot be compiled.
+     */
+    static CompiledBody compile(FunctionBodyNode body, List<Object> args) {
+        if (body.getFrame() == null) {
+            return null;
+        }
+        JitType[] argumentTypes = new JitType[args.size()];
+        for (int i = 0; i < argumentTypes.length; i++) {
+            argumentTypes[i] = JitType.of(args.get(i));
+        }
+        try {
+            return new BytecodeCompiler(body, argumentTypes).compile();
+        } catch (Unsupported | IllegalStateException | ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private CompiledBody compile() throws ReflectiveOperationException {
+        scopes.add(body.getFrame());
+        int[] argumentSlots = body.getArgumentSlots();
+
+        Set<Variable> assigned = new HashSet<>();
+        for (int slot : argumentSlots) {
+            assigned.add(variable(body.getFrame(), slot));
+        }
+        checkStatement(body, assigned);
+
+        for (int i = 0; i < argumentSlots.length; i++) {
+            Variable parameter = variable(body.getFrame(), argumentSlots[i]);
+            parameter.type = JitType.join(parameter.type, argumentTypes[i]);
+        }
+        do {
+            changed = false;
+            inferStatement(body);
+        } while (changed);
+
+        String className = "components/jit/generated/Body" + CLASS_COUNTER.incrementAndGet();
+        classWriter = new ClassWriter();
+        emitConstructor();
+        emitRun(argumentSlots);
+        byte[] classFile = classWriter.toByteArray(className, COMPILED_BODY);
+
+        Class<?> compiledClass = LOADER.define(className.replace('/', '.'), classFile);
+        return (CompiledBody) compiledClass.getConstructor(Node[].class, JitType[].class)
+            .newInstance(nodes.toArray(new Node[0]), argumentTypes);
+    }
+
+    // Variables
+
+    private Variable variable(FrameDescriptor frame, int slot) {
+        Variable[] frameVariables = variables.get(frame);
+        if (frameVariables == null) {
+            frameVariables = new Variable[frame.getSize()];
+            variables.put(frame, frameVariables);
+        }
+        if (frameVariables[slot] == null) {
+            frameVariables[slot] = new Variable(frame.getName(slot));
+        }
+        return frameVariables[slot];
+    }
+
+    /**
+     * The variable a name resolved to {@code depth} scopes out refers to. A
+     * depth beyond the body's own scopes is a caller's variable.
+     */
+    private Variable resolve(int depth, int slot) {
+        int index = scopes.size() - 1 - depth;
+        if (index < 0 || slot < 0) {
+            throw new Unsupported();
+        }
+        return variable(scopes.get(index), slot);
+    }
+
+    private Variable declared(int slot) {
+        if (slot < 0) {
+            throw new Unsupported();
+        }
+        return variable(scopes.get(scopes.size() - 1), slot);
+    }
+
+    private Variable assignedTarget(AssignmentNode assignment) {
+        LeftHandSideNode target = assignment.getTarget();
+        if (target.getKind() != LeftHandSideNode.Kind.VARIABLE || target.getIndices().length != 0) {
+            throw new Unsupported();
+        }
+        return resolve(target.getDepth(), target.getSlot());
+    }
+
+    // Support and definite assignment. A null state means unreachable.
+
+    private Set<Variable> checkStatement(Node node, Set<Variable> state) {
+        if (node instanceof VariableDeclarationNode) {
+            VariableDeclarationNode declaration = (VariableDeclarationNode) node;
+            if (declaration.isConstant()) {
+                throw new Unsupported();
+            }
+            checkExpression(declaration.getValue(), state);
+            return assign(state, declared(declaration.getSlot()));
+        } else if (node instanceof AssignmentNode) {
+            AssignmentNode assignment = (AssignmentNode) node;
+            requireAssigned(state, assignedTarget(assignment));
+            checkExpression(assignment.getValue(), state);
+            return state;
+        } else if (node instanceof BlockNode) {
+            for (Node statement : ((BlockNode) node).getStatements()) {
+                state = checkStatement(statement, state);
+            }
+            return state;
+        } else if (node instanceof IfNode) {
+            IfNode ifNode = (IfNode) node;
+            Set<Variable> result = null;
+            for (int i = 0; i < ifNode.getConditions().length; i++) {
+                checkExpression(ifNode.getConditions()[i], state);
+                result = meet(result, checkStatement(ifNode.getBlocks()[i], copy(state)));
+            }
+            Set<Variable> otherwise = ifNode.getElseBlock() != null
+                ? checkStatement(ifNode.getElseBlock(), copy(state))
+                : state;
+            return meet(result, otherwise);
+        } else if (node instanceof WhileNode) {
+            WhileNode whileNode = (WhileNode) node;
+            checkExpression(whileNode.getCondition(), state);
+            loops.push(new Loop(null));
+            checkStatement(whileNode.getBody(), copy(state));
+            loops.pop();
+            return state;
+        } else if (node instanceof DoWhileNode) {
+            DoWhileNode doWhile = (DoWhileNode) node;
+            Loop loop = new Loop(null);
+            loops.push(loop);
+            Set<Variable> bodyState = checkStatement(doWhile.getBody(), copy(state));
+            loops.pop();
+            Set<Variable> conditionState = meet(bodyState, loop.continueState);
+            checkExpression(doWhile.getCondition(), conditionState);
+            return meet(conditionState, loop.breakState);
+        } else if (node instanceof ForNode) {
+            ForNode forNode = (ForNode) node;
+            scopes.add(forNode.getFrame());
+            try {
+                Set<Variable> initialized = forNode.getInit() != null
+                    ? checkStatement(forNode.getInit(), copy(state))
+                    : copy(state);
+                if (forNode.getCondition() != null) {
+                    checkExpression(forNode.getCondition(), initialized);
+                }
+                Loop loop = new Loop(null);
+                loops.push(loop);
+                Set<Variable> bodyState = checkStatement(forNode.getBody(), copy(initialized));
+                loops.pop();
+                if (forNode.getUpdate() != null) {
+                    checkStatement(forNode.getUpdate(), meet(bodyState, loop.continueState));
+                }
+                return forNode.getCondition() != null ? initialized : loop.breakState;
+            } finally {
+                scopes.remove(scopes.size() - 1);
+            }
+        } else if (node instanceof PrintNode) {
+            for (Node value : ((PrintNode) node).getValues()) {
+                checkExpression(value, state);
+            }
+            return state;
+        } else if (node instanceof ReturnNode) {
+            Node value = ((ReturnNode) node).getValue();
+            if (value != null) {
+                checkExpression(value, state);
+            }
+            return null;
+        } else if (node instanceof ThrowNode) {
+            checkExpression(((ThrowNode) node).getValue(), state);
+            return null;
+        } else if (node instanceof BreakNode) {
+            Loop loop = innermostLoop();
+            loop.breakState = meet(loop.breakState, state);
+            return null;
+        } else if (node instanceof ContinueNode) {
+            Loop loop = innermostLoop();
+            loop.continueState = meet(loop.continueState, state);
+            return null;
+        }
+        checkExpression(node, state);
+        return state;
+    }
+
+    private void checkExpression(Node node, Set<Variable> state) {
+        if (node instanceof LiteralNode) {
+            Object value = ((LiteralNode) node).getValue();
+            if (value != null && !(value instanceof Integer) && !(value instanceof Double)
+                    && !(value instanceof Boolean) && !(value instanceof String)) {
+                throw new Unsupported();
+            }
+        } else if (node instanceof LocalVariableNode) {
+            LocalVariableNode local = (LocalVariableNode) node;
+            requireAssigned(state, resolve(local.getDepth(), local.getSlot()));
+        } else if (node instanceof VariableNode) {
+            // Not declared by the body, so looked up by name as before
+        } else if (node instanceof ArithmeticNode) {
+            checkExpression(((ArithmeticNode) node).getLeft(), state);
+            checkExpression(((ArithmeticNode) node).getRight(), state);
+        } else if (node instanceof RelationalNode) {
+            checkExpression(((RelationalNode) node).getLeft(), state);
+            checkExpression(((RelationalNode) node).getRight(), state);
+        } else if (node instanceof EqualityNode) {
+            checkExpression(((EqualityNode) node).getLeft(), state);
+            checkExpression(((EqualityNode) node).getRight(), state);
+        } else if (node instanceof UnaryNode) {
+            checkExpression(((UnaryNode) node).getOperand(), state);
+        } else if (node instanceof LogicalAndNode) {
+            checkOperands(((LogicalAndNode) node).getOperands(), state);
+        } else if (node instanceof LogicalOrNode) {
+            checkOperands(((LogicalOrNode) node).getOperands(), state);
+        } else if (node instanceof IndexNode) {
+            checkExpression(((IndexNode) node).getReceiver(), state);
+            checkExpression(((IndexNode) node).getIndex(), state);
+        } else {
+            throw new Unsupported();
+        }
+    }
+
+    private void checkOperands(Node[] operands, Set<Variable> state) {
+        if (operands.length == 0) {
+            throw new Unsupported();
+        }
+        for (Node operand : operands) {
+            checkExpression(operand, state);
+        }
+    }
+
+    private Loop innermostLoop() {
+        if (loops.isEmpty()) {
+            // Would unwind into the caller's loop
+            throw new Unsupported();
+        }
+        return loops.peek();
+    }
+
+    private static void requireAssigned(Set<Variable> state, Variable variable) {
+        if (state != null && !state.contains(variable)) {
+            throw new Unsupported();
+        }
+    }
+
+    private static Set<Variable> assign(Set<Variable> state, Variable variable) {
+        if (state != null) {
+            state.add(variable);
+        }
+        return state;
+    }
+
+    private static Set<Variable> copy(Set<Variable> state) {
+        return state != null ? new HashSet<>(state) : null;
+    }
+
+    private static Set<Variable> meet(Set<Variable> a, Set<Variable> b) {
+        if (a == null) {
+            return copy(b);
+        }
+        if (b == null) {
+            return a;
+        }
+        Set<Variable> result = new HashSet<>(a);
+        result.retainAll(b);
+        return result;
+    }
+
+    // Type inference
+
+    private void inferStatement(Node node) {
+        if (node instanceof VariableDeclarationNode) {
+            VariableDeclarationNode declaration = (VariableDeclarationNode) node;
+            widen(declared(declaration.getSlot()), typeOf(declaration.getValue()));
+        } else if (node instanceof AssignmentNode) {
+            AssignmentNode assignment = (AssignmentNode) node;
+            widen(assignedTarget(assignment), typeOf(assignment.getValue()));
+        } else if (node instanceof BlockNode) {
+            for (Node statement : ((BlockNode) node).getStatements()) {
+                inferStatement(statement);
+            }
+        } else if (node instanceof IfNode) {
+            IfNode ifNode = (IfNode) node;
+            for (Node block : ifNode.getBlocks()) {
+                inferStatement(block);
+            }
+            if (ifNode.getElseBlock() != null) {
+                inferStatement(ifNode.getElseBlock());
+            }
+        } else if (node instanceof WhileNode) {
+            inferStatement(((WhileNode) node).getBody());
+        } else if (node instanceof DoWhileNode) {
+            inferStatement(((DoWhileNode) node).getBody());
+        } else if (node instanceof ForNode) {
+            ForNode forNode = (ForNode) node;
+            scopes.add(forNode.getFrame());
+            if (forNode.getInit() != null) {
+                inferStatement(forNode.getInit());
+            }
+            inferStatement(forNode.getBody());
+            if (forNode.getUpdate() != null) {
+                inferStatement(forNode.getUpdate());
+            }
+            scopes.remove(scopes.size() - 1);
+        }
+    }
+
+    private void widen(Variable variable, JitType type) {
+        JitType joined = JitType.join(variable.type, type);
+        if (joined != variable.type) {
+            variable.type = joined;
+            changed = true;
+        }
+    }
+
+    /**
+     * Static type of an expression given the current variable types, or null
+     * if it depends on a variable whose type is not known yet.
+     */
+    private JitType typeOf(Node node) {
+        if (node instanceof LiteralNode) {
+            return JitType.of(((LiteralNode) node).getValue());
+        } else if (node instanceof LocalVariableNode) {
+            LocalVariableNode local = (LocalVariableNode) node;
+            return resolve(local.getDepth(), local.getSlot()).type;
+        } else if (node instanceof ArithmeticNode) {
+            ArithmeticNode arithmetic = (ArithmeticNode) node;
+            JitType left = typeOf(arithmetic.getLeft());
+            JitType right = typeOf(arithmetic.getRight());
+            if (left == null || right == null) {
+                return null;
+            }
+            return arithmeticType(arithmetic.getOperator(), left, right);
+        } else if (node instanceof RelationalNode || node instanceof EqualityNode) {
+            return JitType.BOOLEAN;
+        } else if (node instanceof UnaryNode) {
+            UnaryNode unary = (UnaryNode) node;
+            if (unary.getOperator() == UnaryOperator.NOT) {
+                return JitType.BOOLEAN;
+            }
+            JitType operand = typeOf(unary.getOperand());
+            if (operand == null) {
+                return null;
+            }
+            return operand.isNumeric() ? operand : JitType.OBJECT;
+        } else if (node instanceof LogicalOrNode) {
+            Node[] operands = ((LogicalOrNode) node).getOperands();
+            return operands.length == 1 ? typeOf(operands[0]) : JitType.BOOLEAN;
+        } else if (node instanceof LogicalAndNode) {
+            Node[] operands = ((LogicalAndNode) node).getOperands();
+            return typeOf(operands[operands.length - 1]);
+        }
+        // Non-local names and array elements
+        return JitType.OBJECT;
+    }
+
+    private static JitType arithmeticType(BinaryOperator operator, JitType left, JitType right) {
+        if (left.isNumeric() && right.isNumeric()) {
+            return left == JitType.INT && right == JitType.INT ? JitType.INT : JitType.DOUBLE;
+        }
+        if ((left == JitType.STRING || right == JitType.STRING)
+                && left != JitType.OBJECT && right != JitType.OBJECT && operator == BinaryOperator.ADD) {
+            return JitType.STRING;
+        }
+        // Anything else is left to Operations, which may throw
+        return JitType.OBJECT;
+    }
+
+    // Code generation
+
+    private void emitConstructor() {
+        String descriptor = "([L" + NODE + ";[L" + JIT_TYPE + ";)V";
+        CodeWriter constructor = new CodeWriter(classWriter, 3);
+        constructor.load(JitType.OBJECT, 0);
+        constructor.load(JitType.OBJECT, 1);
+        constructor.load(JitType.OBJECT, 2);
+        constructor.invokeSpecial(COMPILED_BODY, "<init>", descriptor);
+        constructor.op(RETURN, 0);
+        classWriter.addMethod(ClassWriter.ACC_PUBLIC, "<init>", descriptor, constructor);
+    }
+
+    private void emitRun(int[] argumentSlots) {
+        code = new CodeWriter(classWriter, 3);
+
+        // Give every variable a local, initialized so the verifier sees it assigned
+        for (Variable[] frameVariables : variables.values()) {
+            for (Variable variable : frameVariables) {
+                if (variable == null || variable.type == null) {
+                    continue;
+                }
+                variable.local = code.newLocal(variable.type);
+                pushDefault(variable.type);
+                code.store(variable.type, variable.local);
+            }
+        }
+
+        for (int i = 0; i < argumentSlots.length; i++) {
+            Variable parameter = variable(body.getFrame(), argumentSlots[i]);
+            code.load(JitType.OBJECT, ARGS_LOCAL);
+            code.pushInt(i);
+            code.invokeInterface("java/util/List", "get", "(I)" + OBJECT_DESCRIPTOR);
+            if (parameter.type != JitType.OBJECT) {
+                unbox(argumentTypes[i]);
+            }
+            code.store(parameter.type, parameter.local);
+        }
+
+        emitStatement(body);
+        if (code.isReachable()) {
+            code.op(ACONST_NULL, 1);
+            code.op(ARETURN, -1);
+        }
+
+        classWriter.addMethod(ClassWriter.ACC_PUBLIC, "run",
+            "(L" + INTERPRETER + ";Ljava/util/List;)" + OBJECT_DESCRIPTOR, code);
+    }
+
+    private void emitStatement(Node node) {
+        if (node instanceof VariableDeclarationNode) {
+            VariableDeclarationNode declaration = (VariableDeclarationNode) node;
+            if (declaration.tracksPosition()) {
+                emitRecordPosition(node);
+            }
+            storeVariable(declared(declaration.getSlot()), declaration.getValue());
+        } else if (node instanceof AssignmentNode) {
+            AssignmentNode assignment = (AssignmentNode) node;
+            if (assignment.tracksPosition()) {
+                emitRecordPosition(node);
+            }
+            storeVariable(assignedTarget(assignment), assignment.getValue());
+        } else if (node instanceof BlockNode) {
+            for (Node statement : ((BlockNode) node).getStatements()) {
+                if (!code.isReachable()) {
+                    break;
+                }
+                emitStatement(statement);
+            }
+        } else if (node instanceof IfNode) {
+            IfNode ifNode = (IfNode) node;
+            emitRecordPosition(node);
+            CodeWriter.Label end = new CodeWriter.Label();
+            for (int i = 0; i < ifNode.getConditions().length; i++) {
+                CodeWriter.Label next = new CodeWriter.Label();
+                emitBranch(ifNode.getConditions()[i], false, next);
+                emitStatement(ifNode.getBlocks()[i]);
+                code.jump(GOTO, end);
+                code.mark(next);
+            }
+            if (ifNode.getElseBlock() != null) {
+                emitStatement(ifNode.getElseBlock());
+            }
+            code.mark(end);
+        } else if (node instanceof WhileNode) {
+            WhileNode whileNode = (WhileNode) node;
+            CodeWriter.Label head = new CodeWriter.Label();
+            Loop loop = new Loop(head);
+            code.mark(head);
+            emitBranch(whileNode.getCondition(), false, loop.breakLabel);
+            loops.push(loop);
+            emitStatement(whileNode.getBody());
+            loops.pop();
+            code.jump(GOTO, head);
+            code.mark(loop.breakLabel);
+        } else if (node instanceof DoWhileNode) {
+            DoWhileNode doWhile = (DoWhileNode) node;
+            CodeWriter.Label head = new CodeWriter.Label();
+            Loop loop = new Loop(new CodeWriter.Label());
+            code.mark(head);
+            loops.push(loop);
+            emitStatement(doWhile.getBody());
+            loops.pop();
+            code.mark(loop.continueLabel);
+            emitBranch(doWhile.getCondition(), true, head);
+            code.mark(loop.breakLabel);
+        } else if (node instanceof ForNode) {
+            emitFor((ForNode) node);
+        } else if (node instanceof PrintNode) {
+            emitPrint((PrintNode) node);
+        } else if (node instanceof ReturnNode) {
+            Node value = ((ReturnNode) node).getValue();
+            if (value != null) {
+                emitValue(value, JitType.OBJECT);
+            } else {
+                code.op(ACONST_NULL, 1);
+            }
+            code.op(ARETURN, -1);
+        } else if (node instanceof ThrowNode) {
+            int message = code.newLocal(JitType.OBJECT);
+            emitValue(((ThrowNode) node).getValue(), JitType.OBJECT);
+            code.checkCast("java/lang/String");
+            code.store(JitType.OBJECT, message);
+            code.newObject("java/lang/RuntimeException");
+            code.op(DUP, 1);
+            code.load(JitType.OBJECT, message);
+            code.invokeSpecial("java/lang/RuntimeException", "<init>", "(Ljava/lang/String;)V");
+            code.op(ATHROW, -1);
+        } else if (node instanceof BreakNode) {
+            code.jump(GOTO, loops.peek().breakLabel);
+        } else if (node instanceof ContinueNode) {
+            code.jump(GOTO, loops.peek().continueLabel);
+        } else {
+            pop(emitExpression(node));
+        }
+    }
+
+    private void emitFor(ForNode forNode) {
+        emitRecordPosition(forNode);
+
+        scopes.add(forNode.getFrame());
+        if (forNode.getInit() != null) {
+            emitStatement(forNode.getInit());
+        }
+        CodeWriter.Label head = new CodeWriter.Label();
+        Loop loop = new Loop(new CodeWriter.Label());
+        code.mark(head);
+        if (forNode.getCondition() != null) {
+            emitBranch(forNode.getCondition(), false, loop.breakLabel);
+        }
+        loops.push(loop);
+        emitStatement(forNode.getBody());
+        loops.pop();
+        code.mark(loop.continueLabel);
+        if (forNode.getUpdate() != null) {
+            emitStatement(forNode.getUpdate());
+        }
+        code.jump(GOTO, head);
+        code.mark(loop.breakLabel);
+        scopes.remove(scopes.size() - 1);
+    }
+
+    private void emitPrint(PrintNode print) {
+        emitRecordPosition(print);
+        code.getStatic("java/lang/System", "out", "Ljava/io/PrintStream;");
+        code.newObject("java/lang/StringBuilder");
+        code.op(DUP, 1);
+        code.invokeSpecial("java/lang/StringBuilder", "<init>", "()V");
+        for (Node value : print.getValues()) {
+            JitType type = emitExpression(value);
+            code.invokeVirtual("java/lang/StringBuilder", "append",
+                "(" + type.getDescriptor() + ")Ljava/lang/StringBuilder;");
+            code.pushString(" ");
+            code.invokeVirtual("java/lang/StringBuilder", "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;");
+        }
+        code.invokeVirtual("java/lang/StringBuilder", "toString", "()Ljava/lang/String;");
+        code.invokeVirtual("java/lang/String", "trim", "()Ljava/lang/String;");
+        code.invokeVirtual("java/io/PrintStream", "println", "(Ljava/lang/String;)V");
+    }
+
+    private void emitRecordPosition(Node node) {
+        code.load(JitType.OBJECT, INTERPRETER_LOCAL);
+        code.pushInt(node.getLine());
+        code.pushInt(node.getColumn());
+        code.invokeVirtual(INTERPRETER, "recordPosition", "(II)V");
+    }
+
+    private void storeVariable(Variable variable, Node value) {
+        if (variable.type == null) {
+            throw new Unsupported();
+        }
+        emitValue(value, variable.type);
+        code.store(variable.type, variable.local);
+    }
+
+    /**
+     * Emits {@code node} and converts its value to {@code target}, which must
+     * be its own type or Object.
+     */
+    private void emitValue(Node node, JitType target) {
+        JitType type = emitExpression(node);
+        if (type == target) {
+            return;
+        }
+        if (target != JitType.OBJECT) {
+            throw new Unsupported();
+        }
+        box(type);
+    }
+
+    private JitType emitExpression(Node node) {
+        JitType type = knownType(node);
+
+        if (node instanceof LiteralNode) {
+            emitLiteral(((LiteralNode) node).getValue());
+        } else if (node instanceof LocalVariableNode) {
+            LocalVariableNode local = (LocalVariableNode) node;
+            Variable variable = resolve(local.getDepth(), local.getSlot());
+            code.load(type, variable.local);
+            if (type == JitType.OBJECT) {
+                // A stored null reads as undefined
+                CodeWriter.Label defined = new CodeWriter.Label();
+                code.op(DUP, 1);
+                code.jump(IFNONNULL, defined);
+                code.op(POP, -1);
+                code.pushString(variable.name);
+                code.invokeStatic(JIT_SUPPORT, "undefinedVariable", "(Ljava/lang/String;)Ljava/lang/RuntimeException;");
+                code.op(ATHROW, -1);
+                code.mark(defined);
+            }
+        } else if (node instanceof IndexNode) {
+            IndexNode index = (IndexNode) node;
+            loadNode(index);
+            code.checkCast("components/nodes/IndexNode");
+            code.load(JitType.OBJECT, INTERPRETER_LOCAL);
+            emitValue(index.getReceiver(), JitType.OBJECT);
+            emitValue(index.getIndex(), JitType.OBJECT);
+            code.invokeVirtual("components/nodes/IndexNode", "access",
+                "(L" + INTERPRETER + ";" + OBJECT_DESCRIPTOR + OBJECT_DESCRIPTOR + ")" + OBJECT_DESCRIPTOR);
+        } else if (node instanceof VariableNode) {
+            loadNode(node);
+            code.load(JitType.OBJECT, INTERPRETER_LOCAL);
+            code.invokeVirtual(NODE, "execute", "(L" + INTERPRETER + ";)" + OBJECT_DESCRIPTOR);
+        } else if (node instanceof ArithmeticNode) {
+            emitArithmetic((ArithmeticNode) node, type);
+        } else if (node instanceof RelationalNode) {
+            RelationalNode relational = (RelationalNode) node;
+            if (isNumeric(relational.getLeft(), relational.getRight())) {
+                emitBooleanValue(node);
+            } else {
+                emitOperatorCall(relational.getOperator(), relational.getLeft(), relational.getRight(),
+                    "compare", "Z");
+            }
+        } else if (node instanceof EqualityNode) {
+            EqualityNode equality = (EqualityNode) node;
+            if (hasFastEquality(equality)) {
+                emitBooleanValue(node);
+            } else {
+                emitOperatorCall(equality.getOperator(), equality.getLeft(), equality.getRight(),
+                    "equality", "Z");
+            }
+        } else if (node instanceof UnaryNode) {
+            emitUnary((UnaryNode) node, type);
+        } else if (node instanceof LogicalOrNode) {
+            Node[] operands = ((LogicalOrNode) node).getOperands();
+            if (operands.length == 1) {
+                emitExpression(operands[0]);
+            } else {
+                emitBooleanValue(node);
+            }
+        } else if (node instanceof LogicalAndNode) {
+            Node[] operands = ((LogicalAndNode) node).getOperands();
+            for (int i = 0; i < operands.length - 1; i++) {
+                pop(emitExpression(operands[i]));
+            }
+            emitExpression(operands[operands.length - 1]);
+        } else {
+            throw new Unsupported();
+        }
+        return type;
+    }
+
+    private void emitLiteral(Object value) {
+        if (value == null) {
+            code.op(ACONST_NULL, 1);
+        } else if (value instanceof Integer) {
+            code.pushInt((Integer) value);
+        } else if (value instanceof Double) {
+            code.pushDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            code.pushInt((Boolean) value ? 1 : 0);
+        } else {
+            code.pushString((String) value);
+        }
+    }
+
+    private void emitArithmetic(ArithmeticNode arithmetic, JitType type) {
+        BinaryOperator operator = arithmetic.getOperator();
+        if (type == JitType.INT) {
+            emitExpression(arithmetic.getLeft());
+            emitExpression(arithmetic.getRight());
+            switch (operator) {
+                case ADD:
+                    code.op(IADD, -1);
+                    break;
+                case SUBTRACT:
+                    code.op(ISUB, -1);
+                    break;
+                case MULTIPLY:
+                    code.op(IMUL, -1);
+                    break;
+                case DIVIDE:
+                    emitDivisionCheck(JitType.INT);
+                    code.op(IDIV, -1);
+                    break;
+                default:
+                    code.op(IREM, -1);
+                    break;
+            }
+        } else if (type == JitType.DOUBLE) {
+            emitAsDouble(arithmetic.getLeft());
+            emitAsDouble(arithmetic.getRight());
+            switch (operator) {
+                case ADD:
+                    code.op(DADD, -2);
+                    break;
+                case SUBTRACT:
+                    code.op(DSUB, -2);
+                    break;
+                case MULTIPLY:
+                    code.op(DMUL, -2);
+                    break;
+                case DIVIDE:
+                    emitDivisionCheck(JitType.DOUBLE);
+                    code.op(DDIV, -2);
+                    break;
+                default:
+                    code.op(DREM, -2);
+                    break;
+            }
+        } else {
+            emitOperatorCall(operator, arithmetic.getLeft(), arithmetic.getRight(), "arithmetic", OBJECT_DESCRIPTOR);
+            if (type == JitType.STRING) {
+                code.checkCast("java/lang/String");
+            }
+        }
+    }
+
+    /**
+     * Throws the interpreter's division error if the divisor on top of the
+     * stack is zero, leaving it in place otherwise.
+     */
+    private void emitDivisionCheck(JitType divisor) {
+        CodeWriter.Label nonZero = new CodeWriter.Label();
+        if (divisor == JitType.INT) {
+            code.op(DUP, 1);
+        } else {
+            code.op(DUP2, 2);
+            code.op(DCONST_0, 2);
+            code.op(DCMPL, -3);
+        }
+        code.jump(IFNE, nonZero);
+        code.invokeStatic(JIT_SUPPORT, "divisionByZero", "()Ljava/lang/RuntimeException;");
+        code.op(ATHROW, -1);
+        code.mark(nonZero);
+    }
+
+    private void emitAsDouble(Node node) {
+        if (emitExpression(node) == JitType.INT) {
+            code.op(I2D, 1);
+        }
+    }
+
+    private void emitUnary(UnaryNode unary, JitType type) {
+        UnaryOperator operator = unary.getOperator();
+        if (operator == UnaryOperator.NOT) {
+            emitBooleanValue(unary);
+        } else if (type == JitType.OBJECT) {
+            code.getStatic(UNARY_OPERATOR, operator.name(), "L" + UNARY_OPERATOR + ";");
+            emitValue(unary.getOperand(), JitType.OBJECT);
+            code.invokeStatic(OPERATIONS, "unary",
+                "(L" + UNARY_OPERATOR + ";" + OBJECT_DESCRIPTOR + ")" + OBJECT_DESCRIPTOR);
+        } else {
+            emitExpression(unary.getOperand());
+            if (operator == UnaryOperator.NEGATE) {
+                code.op(type == JitType.INT ? INEG : DNEG, 0);
+            }
+        }
+    }
+
+    /**
+     * Calls {@code Operations.<method>(operator, left, right)} with both
+     * operands boxed.
+     */
+    private void emitOperatorCall(BinaryOperator operator, Node left, Node right, String method, String result) {
+        code.getStatic(BINARY_OPERATOR, operator.name(), "L" + BINARY_OPERATOR + ";");
+        emitValue(left, JitType.OBJECT);
+        emitValue(right, JitType.OBJECT);
+        code.invokeStatic(OPERATIONS, method,
+            "(L" + BINARY_OPERATOR + ";" + OBJECT_DESCRIPTOR + OBJECT_DESCRIPTOR + ")" + result);
+    }
+
+    /**
+     * Pushes 1 or 0 for a condition that {@link #emitBranch} handles inline.
+     */
+    private void emitBooleanValue(Node node) {
+        CodeWriter.Label isFalse = new CodeWriter.Label();
+        CodeWriter.Label end = new CodeWriter.Label();
+        emitBranch(node, false, isFalse);
+        code.pushInt(1);
+        code.jump(GOTO, end);
+        code.mark(isFalse);
+        code.pushInt(0);
+        code.mark(end);
+    }
+
+    /**
+     * Jumps to {@code target} if the truthiness of {@code node} is
+     * {@code jumpIf}, and falls through otherwise.
+     */
+    private void emitBranch(Node node, boolean jumpIf, CodeWriter.Label target) {
+        if (node instanceof RelationalNode
+                && isNumeric(((RelationalNode) node).getLeft(), ((RelationalNode) node).getRight())) {
+            RelationalNode relational = (RelationalNode) node;
+            boolean ints = typeOf(relational.getLeft()) == JitType.INT && typeOf(relational.getRight()) == JitType.INT;
+            int condition;
+            if (ints) {
+                emitExpression(relational.getLeft());
+                emitExpression(relational.getRight());
+                condition = IF_ICMPLT;
+            } else {
+                emitAsDouble(relational.getLeft());
+                emitAsDouble(relational.getRight());
+                // NaN must compare false whichever way round
+                boolean less = relational.getOperator() == BinaryOperator.LESS
+                    || relational.getOperator() == BinaryOperator.LESS_EQUAL;
+                code.op(less ? DCMPG : DCMPL, -3);
+                condition = IFLT;
+            }
+            code.jump(relationalJump(relational.getOperator(), condition, jumpIf), target);
+        } else if (node instanceof EqualityNode && hasFastEquality((EqualityNode) node)) {
+            EqualityNode equality = (EqualityNode) node;
+            boolean jumpIfEqual = (equality.getOperator() == BinaryOperator.EQUAL) == jumpIf;
+            JitType type = emitExpression(equality.getLeft());
+            emitExpression(equality.getRight());
+            if (type == JitType.DOUBLE) {
+                code.invokeStatic(JIT_SUPPORT, "doubleEquals", "(DD)Z");
+                code.jump(jumpIfEqual ? IFNE : IFEQ, target);
+            } else {
+                code.jump(jumpIfEqual ? IF_ICMPEQ : IF_ICMPNE, target);
+            }
+        } else if (node instanceof UnaryNode && ((UnaryNode) node).getOperator() == UnaryOperator.NOT) {
+            emitBranch(((UnaryNode) node).getOperand(), !jumpIf, target);
+        } else if (node instanceof LogicalOrNode && ((LogicalOrNode) node).getOperands().length > 1) {
+            Node[] operands = ((LogicalOrNode) node).getOperands();
+            if (jumpIf) {
+                for (Node operand : operands) {
+                    emitBranch(operand, true, target);
+                }
+            } else {
+                CodeWriter.Label isTrue = new CodeWriter.Label();
+                for (int i = 0; i < operands.length - 1; i++) {
+                    emitBranch(operands[i], true, isTrue);
+                }
+                emitBranch(operands[operands.length - 1], false, target);
+                code.mark(isTrue);
+            }
+        } else if (node instanceof LogicalAndNode) {
+            Node[] operands = ((LogicalAndNode) node).getOperands();
+            for (int i = 0; i < operands.length - 1; i++) {
+                pop(emitExpression(operands[i]));
+            }
+            emitBranch(operands[operands.length - 1], jumpIf, target);
+        } else {
+            emitTruthTest(emitExpression(node), jumpIf, target);
+        }
+    }
+
+    /**
+     * Picks the jump for a relational operator, given the opcode that jumps
+     * when the comparison is "less than" ({@code IF_ICMPLT} or {@code IFLT});
+     * the other conditions follow it in the same order in both families.
+     */
+    private static int relationalJump(BinaryOperator operator, int lessThan, boolean jumpIf) {
+        // Offsets from lessThan: LT 0, GE 1, GT 2, LE 3
+        int offset;
+        switch (operator) {
+            case LESS:
+                offset = jumpIf ? 0 : 1;
+                break;
+            case GREATER_EQUAL:
+                offset = jumpIf ? 1 : 0;
+                break;
+            case GREATER:
+                offset = jumpIf ? 2 : 3;
+                break;
+            default:
+                offset = jumpIf ? 3 : 2;
+                break;
+        }
+        return lessThan + offset;
+    }
+
+    /**
+     * Applies {@code Operations.toBoolean} to a value of {@code type} on the
+     * stack and jumps to {@code target} if it equals {@code jumpIf}.
+     */
+    private void emitTruthTest(JitType type, boolean jumpIf, CodeWriter.Label target) {
+        switch (type) {
+            case DOUBLE:
+                code.op(DCONST_0, 2);
+                code.op(DCMPL, -3);
+                break;
+            case STRING:
+                code.invokeVirtual("java/lang/String", "isEmpty", "()Z");
+                jumpIf = !jumpIf;
+                break;
+            case OBJECT:
+                code.invokeStatic(OPERATIONS, "toBoolean", "(" + OBJECT_DESCRIPTOR + ")Z");
+                break;
+            default:
+                break;
+        }
+        code.jump(jumpIf ? IFNE : IFEQ, target);
+    }
+
+    private JitType knownType(Node node) {
+        JitType type = typeOf(node);
+        if (type == null) {
+            throw new Unsupported();
+        }
+        return type;
+    }
+
+    private boolean isNumeric(Node left, Node right) {
+        return knownType(left).isNumeric() && knownType(right).isNumeric();
+    }
+
+    private boolean hasFastEquality(EqualityNode equality) {
+        JitType left = knownType(equality.getLeft());
+        JitType right = knownType(equality.getRight());
+        return left == right && (left == JitType.INT || left == JitType.BOOLEAN || left == JitType.DOUBLE);
+    }
+
+    private void loadNode(Node node) {
+        code.load(JitType.OBJECT, 0);
+        code.getField(COMPILED_BODY, "nodes", "[L" + NODE + ";");
+        code.pushInt(nodes.size());
+        code.op(AALOAD, -1);
+        nodes.add(node);
+    }
+
+    private void pushDefault(JitType type) {
+        switch (type) {
+            case INT:
+            case BOOLEAN:
+                code.pushInt(0);
+                break;
+            case DOUBLE:
+                code.op(DCONST_0, 2);
+                break;
+            default:
+                code.op(ACONST_NULL, 1);
+                break;
+        }
+    }
+
+    private void pop(JitType type) {
+        if (type.getSize() == 2) {
+            code.op(POP2, -2);
+        } else {
+            code.op(POP, -1);
+        }
+    }
+
+    private void box(JitType type) {
+        switch (type) {
+            case INT:
+                code.invokeStatic("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+                break;
+            case DOUBLE:
+                code.invokeStatic("java/lang/Double", "valueOf", "(D)Ljava/lang/Double;");
+                break;
+            case BOOLEAN:
+                code.invokeStatic("java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void unbox(JitType type) {
+        switch (type) {
+            case INT:
+                code.checkCast("java/lang/Integer");
+                code.invokeVirtual("java/lang/Integer", "intValue", "()I");
+                break;
+            case DOUBLE:
+                code.checkCast("java/lang/Double");
+                code.invokeVirtual("java/lang/Double", "doubleValue", "()D");
+                break;
+            case BOOLEAN:
+                code.checkCast("java/lang/Boolean");
+                code.invokeVirtual("java/lang/Boolean", "booleanValue", "()Z");
+                break;
+            case STRING:
+                code.checkCast("java/lang/String");
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package components.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Emits the instructions of one method and tracks the operand stack depth
+ * and local count the Code attribute needs.
+ *
+ * Instructions emitted after an unconditional transfer (goto, return,
+ * athrow) and before the next label that is jumped to are dropped, so the
+ * compiler never has to reason about dead code.
+ */
+final class CodeWriter {
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int DCONST_0 = 0x0e;
+    static final int AALOAD = 0x32;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int DUP = 0x59;
+    static final int DUP_X1 = 0x5a;
+    static final int DUP2 = 0x5c;
+    static final int SWAP = 0x5f;
+    static final int IADD = 0x60;
+    static final int DADD = 0x63;
+    static final int ISUB = 0x64;
+    static final int DSUB = 0x67;
+    static final int IMUL = 0x68;
+    static final int DMUL = 0x6b;
+    static final int IDIV = 0x6c;
+    static final int DDIV = 0x6f;
+    static final int IREM = 0x70;
+    static final int DREM = 0x73;
+    static final int INEG = 0x74;
+    static final int DNEG = 0x77;
+    static final int IXOR = 0x82;
+    static final int I2D = 0x87;
+    static final int DCMPL = 0x97;
+    static final int DCMPG = 0x98;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFLT = 0x9b;
+    static final int IFGE = 0x9c;
+    static final int IFGT = 0x9d;
+    static final int IFLE = 0x9e;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int IF_ICMPLT = 0xa1;
+    static final int IF_ICMPGE = 0xa2;
+    static final int IF_ICMPGT = 0xa3;
+    static final int IF_ICMPLE = 0xa4;
+    static final int GOTO = 0xa7;
+    static final int ARETURN = 0xb0;
+    static final int RETURN = 0xb1;
+    static final int ATHROW = 0xbf;
+    static final int IFNONNULL = 0xc7;
+
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int ILOAD = 0x15;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD = 0x19;
+    private static final int ISTORE = 0x36;
+    private static final int DSTORE = 0x39;
+    private static final int ASTORE = 0x3a;
+    private static final int GETSTATIC = 0xb2;
+    private static final int GETFIELD = 0xb4;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int NEW = 0xbb;
+    private static final int CHECKCAST = 0xc0;
+    private static final int WIDE = 0xc4;
+
+    /**
+     * A jump target. The stack depth is recorded by the first jump to it, or
+     * by falling through to it, and restored when it is marked.
+     */
+    static final class Label {
+        private int position = -1;
+        private int stack = -1;
+        private boolean targeted;
+        private boolean reachable;
+        private final List<Integer> jumps = new ArrayList<>();
+    }
+
+    private final ClassWriter classWriter;
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final List<Label> labels = new ArrayList<>();
+    private int stack;
+    private int maxStack;
+    private int maxLocals;
+    private boolean reachable = true;
+
+    CodeWriter(ClassWriter classWriter, int argumentSlots) {
+        this.classWriter = classWriter;
+        this.maxLocals = argumentSlots;
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    int getMaxLocals() {
+        return maxLocals;
+    }
+
+    boolean isReachable() {
+        return reachable;
+    }
+
+    int newLocal(JitType type) {
+        int index = maxLocals;
+        maxLocals += type.getSize();
+        if (maxLocals > 0xFFFF) {
+            throw new IllegalStateException("Too many locals");
+        }
+        return index;
+    }
+
+    // Plain instructions
+
+    /**
+     * Emits an instruction without operands that changes the stack depth by
+     * {@code stackDelta}.
+     */
+    void op(int opcode, int stackDelta) {
+        if (!reachable) {
+            return;
+        }
+        code.write(opcode);
+        adjust(stackDelta);
+        if (opcode == ARETURN || opcode == RETURN || opcode == ATHROW) {
+            reachable = false;
+        }
+    }
+
+    void pushInt(int value) {
+        if (!reachable) {
+            return;
+        }
+        if (value >= -1 && value <= 5) {
+            code.write(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.write(BIPUSH);
+            code.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.write(SIPUSH);
+            writeShort(value);
+        } else {
+            loadConstant(classWriter.integer(value));
+        }
+        adjust(1);
+    }
+
+    void pushDouble(double value) {
+        if (!reachable) {
+            return;
+        }
+        code.write(LDC2_W);
+        writeShort(classWriter.doubleConstant(value));
+        adjust(2);
+    }
+
+    void pushString(String value) {
+        if (!reachable) {
+            return;
+        }
+        loadConstant(classWriter.string(value));
+        adjust(1);
+    }
+
+    private void loadConstant(int index) {
+        if (index <= 0xFF) {
+            code.write(LDC);
+            code.write(index);
+        } else {
+            code.write(LDC_W);
+            writeShort(index);
+        }
+    }
+
+    // Locals
+
+    void load(JitType type, int index) {
+        localInstruction(type == JitType.INT || type == JitType.BOOLEAN ? ILOAD
+            : type == JitType.DOUBLE ? DLOAD : ALOAD, index);
+        adjust(type.getSize());
+    }
+
+    void store(JitType type, int index) {
+        localInstruction(type == JitType.INT || type == JitType.BOOLEAN ? ISTORE
+            : type == JitType.DOUBLE ? DSTORE : ASTORE, index);
+        adjust(-type.getSize());
+    }
+
+    private void localInstruction(int opcode, int index) {
+        if (!reachable) {
+            return;
+        }
+        if (index <= 3) {
+            // iload_0 and friends follow each long form in blocks of four
+            int base = opcode < ISTORE ? 0x1a + (opcode - ILOAD) * 4 : 0x3b + (opcode - ISTORE) * 4;
+            code.write(base + index);
+        } else if (index <= 0xFF) {
+            code.write(opcode);
+            code.write(index);
+        } else {
+            code.write(WIDE);
+            code.write(opcode);
+            writeShort(index);
+        }
+    }
+
+    // Objects, fields and methods
+
+    void newObject(String internalName) {
+        typeInstruction(NEW, internalName);
+        adjust(1);
+    }
+
+    void checkCast(String internalName) {
+        typeInstruction(CHECKCAST, internalName);
+    }
+
+    private void typeInstruction(int opcode, String internalName) {
+        if (!reachable) {
+            return;
+        }
+        code.write(opcode);
+        writeShort(classWriter.classRef(internalName));
+    }
+
+    void getStatic(String owner, String name, String descriptor) {
+        if (!reachable) {
+            return;
+        }
+        code.write(GETSTATIC);
+        writeShort(classWriter.fieldRef(owner, name, descriptor));
+        adjust(sizeOf(descriptor, 0));
+    }
+
+    void getField(String owner, String name, String descriptor) {
+        if (!reachable) {
+            return;
+        }
+        code.write(GETFIELD);
+        writeShort(classWriter.fieldRef(owner, name, descriptor));
+        adjust(sizeOf(descriptor, 0) - 1);
+    }
+
+    void invokeStatic(String owner, String name, String descriptor) {
+        invoke(INVOKESTATIC, classWriter.methodRef(owner, name, descriptor), descriptor, false);
+    }
+
+    void invokeVirtual(String owner, String name, String descriptor) {
+        invoke(INVOKEVIRTUAL, classWriter.methodRef(owner, name, descriptor), descriptor, true);
+    }
+
+    void invokeSpecial(String owner, String name, String descriptor) {
+        invoke(INVOKESPECIAL, classWriter.methodRef(owner, name, descriptor), descriptor, true);
+    }
+
+    void invokeInterface(String owner, String name, String descriptor) {
+        if (!reachable) {
+            return;
+        }
+        int argumentSize = argumentSize(descriptor);
+        code.write(INVOKEINTERFACE);
+        writeShort(classWriter.interfaceMethodRef(owner, name, descriptor));
+        code.write(argumentSize + 1);
+        code.write(0);
+        adjust(returnSize(descriptor) - argumentSize - 1);
+    }
+
+    private void invoke(int opcode, int index, String descriptor, boolean hasReceiver) {
+        if (!reachable) {
+            return;
+        }
+        code.write(opcode);
+        writeShort(index);
+        adjust(returnSize(descriptor) - argumentSize(descriptor) - (hasReceiver ? 1 : 0));
+    }
+
+    // Control flow
+
+    void jump(int opcode, Label target) {
+        if (!reachable) {
+            return;
+        }
+        if (opcode == GOTO) {
+            adjust(0);
+        } else if (opcode >= IF_ICMPEQ && opcode <= IF_ICMPLE) {
+            adjust(-2);
+        } else {
+            adjust(-1);
+        }
+        if (target.position >= 0 && !target.reachable) {
+            throw new IllegalStateException("Backward jump to unreachable code");
+        }
+        if (!target.targeted && target.position < 0) {
+            target.stack = stack;
+            labels.add(target);
+        }
+        target.targeted = true;
+        target.jumps.add(code.size());
+        code.write(opcode);
+        writeShort(0);
+        if (opcode == GOTO) {
+            reachable = false;
+        }
+    }
+
+    void mark(Label label) {
+        if (label.position >= 0) {
+            throw new IllegalStateException("Label marked twice");
+        }
+        label.position = code.size();
+        if (label.targeted) {
+            reachable = true;
+            stack = label.stack;
+        } else {
+            if (reachable) {
+                label.stack = stack;
+            }
+            labels.add(label);
+        }
+        label.reachable = reachable;
+    }
+
+    byte[] toByteArray() {
+        byte[] bytes = code.toByteArray();
+        for (Label label : labels) {
+            if (label.position < 0) {
+                throw new IllegalStateException("Unmarked label");
+            }
+            for (int jump : label.jumps) {
+                int offset = label.position - jump;
+                if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                    throw new IllegalStateException("Method too large");
+                }
+                bytes[jump + 1] = (byte) (offset >> 8);
+                bytes[jump + 2] = (byte) offset;
+            }
+        }
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalStateException("Method too large");
+        }
+        return bytes;
+    }
+
+    private void adjust(int delta) {
+        stack += delta;
+        if (stack > maxStack) {
+            maxStack = stack;
+        }
+    }
+
+    private void writeShort(int value) {
+        code.write(value >> 8);
+        code.write(value);
+    }
+
+    private static int argumentSize(String descriptor) {
+        int size = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            size += sizeOf(descriptor, i);
+            i = skipType(descriptor, i);
+        }
+        return size;
+    }
+
+    private static int returnSize(String descriptor) {
+        return sizeOf(descriptor, descriptor.indexOf(')') + 1);
+    }
+
+    private static int sizeOf(String descriptor, int at) {
+        switch (descriptor.charAt(at)) {
+            case 'V':
+                return 0;
+            case 'D':
+            case 'J':
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    private static int skipType(String descriptor, int at) {
+        while (descriptor.charAt(at) == '[') {
+            at++;
+        }
+        if (descriptor.charAt(at) == 'L') {
+            return descriptor.indexOf(';', at) + 1;
+        }
+        return at + 1;
+    }
+}
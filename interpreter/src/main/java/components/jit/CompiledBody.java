@@ -0,0 +1,40 @@
+package components.jit;
+
+import components.Interpreter;
+import components.nodes.Node;
+
+import java.util.List;
+
+/**
+ * A function body compiled to JVM bytecode for one combination of argument
+ * types. Generated classes extend this and implement {@link #run}.
+ */
+public abstract class CompiledBody {
+    // Nodes the generated code calls back into, indexed by the compiler
+    protected final Node[] nodes;
+    // Final, so that a thread handed this version by another sees the types it guards on
+    private final JitType[] argumentTypes;
+
+    protected CompiledBody(Node[] nodes, JitType[] argumentTypes) {
+        this.nodes = nodes;
+        this.argumentTypes = argumentTypes;
+    }
+
+    /**
+     * Whether {@code args} have the types this version was compiled for. This
+     * is the only guard: inside the body every type is known statically.
+     */
+    public boolean accepts(List<Object> args) {
+        for (int i = 0; i < argumentTypes.length; i++) {
+            if (JitType.of(args.get(i)) != argumentTypes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs one call of the body and returns the value it returned, or null.
+     */
+    public abstract Object run(Interpreter interpreter, List<Object> args);
+}
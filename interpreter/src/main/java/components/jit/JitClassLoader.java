@@ -0,0 +1,14 @@
+package components.jit;
+
+/**
+ * Defines the classes generated for compiled function bodies.
+ */
+final class JitClassLoader extends ClassLoader {
+    JitClassLoader() {
+        super(JitClassLoader.class.getClassLoader());
+    }
+
+    Class<?> define(String name, byte[] classFile) {
+        return defineClass(name, classFile, 0, classFile.length);
+    }
+}
@@ -0,0 +1,26 @@
+package components.jit;
+
+/**
+ * Runtime helpers called from generated code, for the cases that are not
+ * worth emitting inline.
+ */
+public final class JitSupport {
+    private JitSupport() {
+    }
+
+    public static RuntimeException divisionByZero() {
+        return new RuntimeException("Division by zero");
+    }
+
+    public static RuntimeException undefinedVariable(String name) {
+        return new RuntimeException("Variable '" + name + "' is not defined.");
+    }
+
+    /**
+     * Equality of two doubles as {@code Objects.equals} sees them boxed, so
+     * NaN equals itself and 0.0 differs from -0.0.
+     */
+    public static boolean doubleEquals(double left, double right) {
+        return Double.doubleToLongBits(left) == Double.doubleToLongBits(right);
+    }
+}
@@ -0,0 +1,53 @@
+package components.jit;
+
+/**
+ * Static type of a value in compiled code. Ints, doubles and booleans live
+ * unboxed in JVM locals; anything whose type is not known is an Object.
+ */
+enum JitType {
+    INT("I"),
+    DOUBLE("D"),
+    BOOLEAN("Z"),
+    STRING("Ljava/lang/String;"),
+    OBJECT("Ljava/lang/Object;");
+
+    private final String descriptor;
+
+    JitType(String descriptor) {
+        this.descriptor = descriptor;
+    }
+
+    String getDescriptor() {
+        return descriptor;
+    }
+
+    boolean isNumeric() {
+        return this == INT || this == DOUBLE;
+    }
+
+    /**
+     * Number of JVM local or stack slots a value of this type occupies.
+     */
+    int getSize() {
+        return this == DOUBLE ? 2 : 1;
+    }
+
+    static JitType of(Object value) {
+        if (value instanceof Integer) return INT;
+        if (value instanceof Double) return DOUBLE;
+        if (value instanceof Boolean) return BOOLEAN;
+        if (value instanceof String) return STRING;
+        return OBJECT;
+    }
+
+    /**
+     * Least type that holds values of both {@code a} and {@code b}, where null
+     * means no value has been seen yet. An int is not widened to a double,
+     * since VG prints the two differently.
+     */
+    static JitType join(JitType a, JitType b) {
+        if (a == null) return b;
+        if (b == null || a == b) return a;
+        return OBJECT;
+    }
+}
@@ -0,0 +1,91 @@
+package components.jit;
+
+import components.Interpreter;
+import components.nodes.FunctionBodyNode;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Call and loop counters for one function body, and the versions of it
+ * compiled to bytecode once it is hot. A body the compiler cannot handle is
+ * marked unsupported and walked by the interpreter from then on.
+ *
+ * Compilation can be switched off with {@code -Dvg.jit=false}. A profile
+ * read back from a cached program starts over, cold.
+ * <p>
+ * Threads running the same body share its profile. The counters are only
+ * hints, so a count lost to a race merely delays compilation; the compiled
+ * versions are copied on write, so a thread never sees a partly grown list.
+ */
+public final class TierProfile implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final boolean ENABLED = !"false".equals(System.getProperty("vg.jit"));
+    private static final int CALL_THRESHOLD = 1000;
+    private static final int LOOP_THRESHOLD = 10000;
+    // Distinct argument type combinations compiled before giving up on new ones
+    private static final int MAX_VERSIONS = 4;
+
+    private static final CompiledBody[] NO_VERSIONS = new CompiledBody[0];
+
+    private int calls;
+    private int loopIterations;
+    private transient volatile CompiledBody[] versions = NO_VERSIONS;
+    private boolean unsupported = !ENABLED;
+
+    private Object readResolve() {
+        return new TierProfile();
+    }
+
+    public void countLoopIteration() {
+        loopIterations++;
+    }
+
+    /**
+     * Returns the compiled version of {@code body} to run for {@code args},
+     * compiling one if the body has become hot, or null if the call should
+     * be interpreted.
+     */
+    public CompiledBody select(FunctionBodyNode body, Interpreter interpreter, List<Object> args) {
+        CompiledBody[] current = versions;
+        for (CompiledBody version : current) {
+            if (version.accepts(args)) {
+                return version;
+            }
+        }
+        // The debugger inspects scopes, which compiled code does not create
+        if (unsupported || current.length == MAX_VERSIONS || interpreter.isDebugMode()) {
+            return null;
+        }
+        if (++calls < CALL_THRESHOLD && loopIterations < LOOP_THRESHOLD) {
+            return null;
+        }
+
+        calls = 0;
+        loopIterations = 0;
+        CompiledBody version = BytecodeCompiler.compile(body, args);
+        if (version == null) {
+            unsupported = true;
+            return null;
+        }
+        return add(version, args);
+    }
+
+    // Returns the version another thread compiled for the same types meanwhile, if there is one
+    private synchronized CompiledBody add(CompiledBody version, List<Object> args) {
+        CompiledBody[] current = versions;
+        for (CompiledBody existing : current) {
+            if (existing.accepts(args)) {
+                return existing;
+            }
+        }
+        if (current.length == MAX_VERSIONS) {
+            return version;
+        }
+        CompiledBody[] grown = new CompiledBody[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = version;
+        versions = grown;
+        return version;
+    }
+}
@@ -0,0 +1,108 @@
+package components.nodes;
+
+import components.Interpreter;
+
+/**
+ * A binary arithmetic operator. The node specializes itself on the operand
+ * types it sees first: while both stay ints, or both doubles, it computes
+ * unboxed through {@link #executeInt} or {@link #executeDouble}, so nested
+ * arithmetic only boxes the value it finally hands back. Operands of any
+ * other type turn it generic for good.
+ */
+public class ArithmeticNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final BinaryOperator operator;
+    private final Node left;
+    private final Node right;
+    private Specialization specialization = Specialization.UNINITIALIZED;
+
+    public ArithmeticNode(BinaryOperator operator, Node left, Node right, int line, int column) {
+        super(line, column);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public BinaryOperator getOperator() {
+        return operator;
+    }
+
+    public Node getLeft() {
+        return left;
+    }
+
+    public Node getRight() {
+        return right;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        switch (specialization) {
+            case INT:
+                try {
+                    return executeInt(interpreter);
+                } catch (UnexpectedResultException e) {
+                    return e.getResult();
+                }
+            case DOUBLE:
+                try {
+                    return executeDouble(interpreter);
+                } catch (UnexpectedResultException e) {
+                    return e.getResult();
+                }
+            case GENERIC:
+                return Operations.arithmetic(operator, left.execute(interpreter), right.execute(interpreter));
+            default:
+                Object leftValue = left.execute(interpreter);
+                Object rightValue = right.execute(interpreter);
+                specialization = Specialization.of(leftValue, rightValue);
+                return Operations.arithmetic(operator, leftValue, rightValue);
+        }
+    }
+
+    @Override
+    public int executeInt(Interpreter interpreter) {
+        if (specialization != Specialization.INT) {
+            return super.executeInt(interpreter);
+        }
+        int leftValue;
+        try {
+            leftValue = left.executeInt(interpreter);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(generalize(e.getResult(), right.execute(interpreter)));
+        }
+        int rightValue;
+        try {
+            rightValue = right.executeInt(interpreter);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(generalize(leftValue, e.getResult()));
+        }
+        return Operations.intArithmetic(operator, leftValue, rightValue);
+    }
+
+    @Override
+    public double executeDouble(Interpreter interpreter) {
+        if (specialization != Specialization.DOUBLE) {
+            return super.executeDouble(interpreter);
+        }
+        double leftValue;
+        try {
+            leftValue = left.executeDouble(interpreter);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(generalize(e.getResult(), right.execute(interpreter)));
+        }
+        double rightValue;
+        try {
+            rightValue = right.executeDouble(interpreter);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(generalize(leftValue, e.getResult()));
+        }
+        return Operations.doubleArithmetic(operator, leftValue, rightValue);
+    }
+
+    /** Deoptimizes: finishes this operation generically and stays generic. */
+    private Object generalize(Object leftValue, Object rightValue) {
+        specialization = Specialization.GENERIC;
+        return Operations.arithmetic(operator, leftValue, rightValue);
+    }
+}
@@ -0,0 +1,51 @@
+package components.nodes;
+
+import components.ConstantArray;
+import components.Interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An array literal. One whose elements are all literals keeps their values,
+ * and evaluates to a {@link ConstantArray} over them instead of building a
+ * list each time.
+ */
+public class ArrayLiteralNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node[] elements;
+    // Values of the elements if they are all literals, or null
+    private final Object[] constants;
+
+    public ArrayLiteralNode(Node[] elements, int line, int column) {
+        super(line, column);
+        this.elements = elements;
+        this.constants = constantValues(elements);
+    }
+
+    private static Object[] constantValues(Node[] elements) {
+        if (elements.length == 0) {
+            return null;
+        }
+        Object[] values = new Object[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            if (!(elements[i] instanceof LiteralNode)) {
+                return null;
+            }
+            values[i] = ((LiteralNode) elements[i]).getValue();
+        }
+        return values;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        if (constants != null) {
+            return new ConstantArray(constants);
+        }
+        List<Object> values = new ArrayList<>(elements.length);
+        for (Node element : elements) {
+            values.add(element.execute(interpreter));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,40 @@
+package components.nodes;
+
+import components.Interpreter;
+
+public class AssignmentNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final LeftHandSideNode target;
+    private final Node value;
+    private final boolean tracksPosition;
+
+    public AssignmentNode(LeftHandSideNode target, Node value, boolean tracksPosition, int line, int column) {
+        super(line, column);
+        this.target = target;
+        this.value = value;
+        this.tracksPosition = tracksPosition;
+    }
+
+    /**
+     * Returns the assigned value, which is what a for-loop update clause yields.
+     */
+    public LeftHandSideNode getTarget() {
+        return target;
+    }
+
+    public Node getValue() {
+        return value;
+    }
+
+    public boolean tracksPosition() {
+        return tracksPosition;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        if (tracksPosition) {
+            markPosition(interpreter);
+        }
+        return target.assign(interpreter, value);
+    }
+}
@@ -0,0 +1,40 @@
+package components.nodes;
+
+import components.FrameDescriptor;
+import components.Interpreter;
+
+public class BlockNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node[] statements;
+    private final FrameDescriptor frame;
+
+    public BlockNode(Node[] statements, int line, int column) {
+        this(statements, null, line, column);
+    }
+
+    /**
+     * Creates a function body. {@code frame} lays out the scope the caller
+     * pushes before running it, or is null if that scope must stay name-based.
+     */
+    public BlockNode(Node[] statements, FrameDescriptor frame, int line, int column) {
+        super(line, column);
+        this.statements = statements;
+        this.frame = frame;
+    }
+
+    public Node[] getStatements() {
+        return statements;
+    }
+
+    public FrameDescriptor getFrame() {
+        return frame;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        for (Node statement : statements) {
+            statement.execute(interpreter);
+        }
+        return null;
+    }
+}
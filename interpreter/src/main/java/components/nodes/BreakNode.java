@@ -0,0 +1,17 @@
+package components.nodes;
+
+import components.BreakException;
+import components.Interpreter;
+
+public class BreakNode extends Node {
+    private static final long serialVersionUID = 1L;
+
+    public BreakNode(int line, int column) {
+        super(line, column);
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        throw BreakException.INSTANCE;
+    }
+}
@@ -0,0 +1,50 @@
+package components.nodes;
+
+import components.Interpreter;
+
+/**
+ * The postfix calls that a running body was entered through, innermost
+ * first. A tail call that runs in its caller's place adds itself in front
+ * instead of nesting, so an error leaving the body can still be reported by
+ * every call it passes on the way out, as it would have been without the
+ * tail call. A call that repeats the one in front, as in self recursion,
+ * only counts up, so the chain stays the same size however deep it goes.
+ */
+public final class CallChain {
+    private final CallNode call;
+    private final Object callee;
+    private final CallChain next;
+    private final int times;
+
+    private CallChain(CallNode call, Object callee, CallChain next, int times) {
+        this.call = call;
+        this.callee = callee;
+        this.next = next;
+        this.times = times;
+    }
+
+    /**
+     * Returns {@code next} with {@code call} in front.
+     *
+     * @param callee the value {@code call} called, which decides how its errors are reported
+     */
+    public static CallChain prepend(CallNode call, Object callee, CallChain next) {
+        if (next != null && next.call == call && next.callee.getClass() == callee.getClass()) {
+            return new CallChain(call, callee, next.next, next.times + 1);
+        }
+        return new CallChain(call, callee, next, 1);
+    }
+
+    /**
+     * Returns {@code e} as reported by each call in the chain in turn.
+     */
+    public RuntimeException report(Interpreter interpreter, Exception e) {
+        RuntimeException reported = null;
+        for (CallChain link = this; link != null; link = link.next) {
+            for (int i = 0; i < link.times; i++) {
+                reported = link.call.callError(interpreter, link.callee, reported != null ? reported : e);
+            }
+        }
+        return reported;
+    }
+}
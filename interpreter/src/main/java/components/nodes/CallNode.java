@@ -0,0 +1,127 @@
+package components.nodes;
+
+import components.*;
+
+import java.util.List;
+
+/**
+ * A call through the postfix {@code (...)} operator, e.g. {@code add(1, 2)}
+ * or {@code ns.add(1, 2)}; the callee is whatever the preceding expression
+ * evaluates to.
+ */
+public class CallNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node callee;
+    private final Node[] arguments;
+
+    public CallNode(Node callee, Node[] arguments, int line, int column) {
+        super(line, column);
+        this.callee = callee;
+        this.arguments = arguments;
+    }
+
+    public Node getCallee() {
+        return callee;
+    }
+
+    public Node[] getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Object value = callee.execute(interpreter);
+        List<Object> argValues = evaluateArguments(arguments, interpreter);
+        return call(interpreter, value, argValues);
+    }
+
+    /**
+     * Calls {@code value}, the evaluated callee, with the evaluated arguments.
+     */
+    public Object call(Interpreter interpreter, Object value, List<Object> argValues) {
+        try {
+            if (value instanceof Function) {
+                return ((Function) value).call(argValues);
+            } else if (value instanceof MethodReference) {
+                return ((MethodReference) value).call(argValues, interpreter);
+            } else if (value instanceof StaticMethodReference) {
+                return ((StaticMethodReference) value).call(argValues, interpreter);
+            }
+        } catch (Exception e) {
+            throw callError(interpreter, value, e);
+        }
+
+        markPosition(interpreter);
+        throw new ErrorHandler.VGTypeException(
+            "Cannot call a non-function value: " + Operations.typeName(value),
+            line, column
+        );
+    }
+
+    /**
+     * Returns the VG body that calling {@code value} runs, if it is a plain
+     * function taking {@code argValues} or a method, so that the caller can
+     * enter it without going through {@link #call}; null for anything else.
+     * A method that cannot be called is reported as {@link #call} would.
+     */
+    public FunctionBodyNode enterableBody(Interpreter interpreter, Object value, List<Object> argValues) {
+        // Subclasses of Function, such as wrapped built-ins, override call()
+        if (value != null && value.getClass() == Function.class) {
+            Function function = (Function) value;
+            return function.getParameters().size() == argValues.size() ? function.getBody() : null;
+        }
+        try {
+            if (value instanceof MethodReference) {
+                MethodReference method = (MethodReference) value;
+                return interpreter.getClassVisitor()
+                    .resolveMethod(method.getInstance(), method.getMethodName(), argValues.size()).getBody();
+            } else if (value instanceof StaticMethodReference) {
+                StaticMethodReference method = (StaticMethodReference) value;
+                return interpreter.getClassVisitor()
+                    .resolveStaticMethod(method.getClassDefinition(), method.getMethodName(), argValues.size())
+                    .getBody();
+            }
+        } catch (Exception e) {
+            throw callError(interpreter, value, e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns what 'this' is bound to in the body {@link #enterableBody}
+     * returned for {@code value}.
+     */
+    public static Object receiver(Object value) {
+        return value instanceof MethodReference ? ((MethodReference) value).getInstance() : null;
+    }
+
+    /**
+     * Returns the error this call reports when calling {@code value} threw
+     * {@code e}.
+     */
+    public RuntimeException callError(Interpreter interpreter, Object value, Exception e) {
+        if (value instanceof MethodReference) {
+            markPosition(interpreter);
+            return new ErrorHandler.VGException("Error in method call: " + e.getMessage(), line, column);
+        } else if (value instanceof StaticMethodReference) {
+            markPosition(interpreter);
+            return new ErrorHandler.VGException("Error in static method call: " + e.getMessage(), line, column);
+        }
+        return functionError(interpreter, e);
+    }
+
+    /**
+     * Returns the error this call reports when the function it called threw
+     * {@code e}.
+     */
+    public RuntimeException functionError(Interpreter interpreter, Exception e) {
+        markPosition(interpreter);
+        if (e instanceof IndexOutOfBoundsException) {
+            return new ErrorHandler.VGTypeException(
+                "Incorrect number of arguments for function call. Check the function signature.",
+                line, column
+            );
+        }
+        return new ErrorHandler.VGException("Error in function call: " + e.getMessage(), line, column);
+    }
+}
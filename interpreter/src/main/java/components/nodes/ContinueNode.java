@@ -0,0 +1,17 @@
+package components.nodes;
+
+import components.ContinueException;
+import components.Interpreter;
+
+public class ContinueNode extends Node {
+    private static final long serialVersionUID = 1L;
+
+    public ContinueNode(int line, int column) {
+        super(line, column);
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        throw ContinueException.INSTANCE;
+    }
+}
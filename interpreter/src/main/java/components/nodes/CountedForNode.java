@@ -0,0 +1,98 @@
+package components.nodes;
+
+import components.*;
+import components.jit.TierProfile;
+
+/**
+ * A {@code for} loop of the counted shape {@code for (var i = a; i < n; i = i + k)},
+ * where {@code k} is an int literal and the body only ever reads {@code i}.
+ * <p>
+ * While the counter and the limit are ints, the loop compares them unboxed
+ * and steps the counter by writing its slot directly, instead of going
+ * through the update's assignment. A limit the body cannot change is
+ * evaluated once, right after the init. Any other value makes that
+ * iteration do exactly what the generic {@link ForNode} would.
+ */
+public class CountedForNode extends ForNode {
+    private static final long serialVersionUID = 1L;
+    private final LocalVariableNode counter;
+    private final BinaryOperator comparison;
+    private final Node limit;
+    private final boolean invariantLimit;
+    private final int step;
+
+    public CountedForNode(Node init, RelationalNode condition, AssignmentNode update, Node body,
+                          FrameDescriptor frame, TierProfile profile, boolean invariantLimit, int step,
+                          int line, int column) {
+        super(init, condition, update, body, frame, profile, line, column);
+        this.counter = (LocalVariableNode) condition.getLeft();
+        this.comparison = condition.getOperator();
+        this.limit = condition.getRight();
+        this.invariantLimit = invariantLimit;
+        this.step = step;
+    }
+
+    public LocalVariableNode getCounter() {
+        return counter;
+    }
+
+    public BinaryOperator getComparison() {
+        return comparison;
+    }
+
+    public Node getLimit() {
+        return limit;
+    }
+
+    /** Whether the limit is the same on every iteration, so it can be evaluated once. */
+    public boolean isInvariantLimit() {
+        return invariantLimit;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        markPosition(interpreter);
+
+        SymbolTable scope = new SymbolTable(getFrame(), interpreter.getGlobalSymbolTable());
+        interpreter.getSymbolTableStack().push(scope);
+        try {
+            getInit().execute(interpreter);
+            Object bound = invariantLimit ? limit.execute(interpreter) : null;
+            while (true) {
+                Object current = counter.execute(interpreter);
+                if (!invariantLimit) {
+                    bound = limit.execute(interpreter);
+                }
+                boolean proceed = current instanceof Integer && bound instanceof Integer
+                    ? Operations.compare(comparison, ((Integer) current).intValue(), ((Integer) bound).intValue())
+                    : Operations.compare(comparison, current, bound);
+                if (!proceed) {
+                    break;
+                }
+                if (getProfile() != null) {
+                    getProfile().countLoopIteration();
+                }
+                try {
+                    getBody().execute(interpreter);
+                } catch (ContinueException e) {
+                    // Continue to next iteration
+                }
+                Object value = scope.getSlot(counter.getSlot());
+                if (value instanceof Integer) {
+                    scope.setSlot(counter.getSlot(), (Integer) value + step);
+                } else {
+                    getUpdate().execute(interpreter);
+                }
+            }
+        } catch (BreakException e) {
+            // Break out of loop
+        } finally {
+            interpreter.getSymbolTableStack().pop();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package components.nodes;
+
+import components.Interpreter;
+import components.Parsing;
+import components.VGErrorListener;
+import components.vg_langLexer;
+import components.vg_langParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+/**
+ * Struct, enum, class, library and import declarations run once per scope,
+ * so they are left to the existing declaration visitors rather than lowered.
+ * <p>
+ * A cached program keeps the source text of each declaration instead of its
+ * parse tree, and re-parses just that text the first time it runs.
+ */
+public class DeclarationNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private transient ParserRuleContext declaration;
+    // Source text of the declaration, captured when the node is serialized
+    private String source;
+
+    public DeclarationNode(ParserRuleContext declaration, int line, int column) {
+        super(line, column);
+        this.declaration = declaration;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        if (declaration == null) {
+            declaration = reparse();
+        }
+        return interpreter.visit(declaration);
+    }
+
+    private ParserRuleContext reparse() {
+        // Pad the text so that tokens keep their original line and column
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i < line; i++) {
+            text.append('\n');
+        }
+        for (int i = 0; i < column; i++) {
+            text.append(' ');
+        }
+        text.append(source);
+
+        vg_langLexer lexer = new vg_langLexer(CharStreams.fromString(text.toString()));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new VGErrorListener());
+        vg_langParser parser = new vg_langParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(new VGErrorListener());
+        return (ParserRuleContext) Parsing.parse(parser, vg_langParser::statement).getChild(0);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        if (source == null) {
+            source = declaration.getStart().getInputStream().getText(
+                Interval.of(declaration.getStart().getStartIndex(), declaration.getStop().getStopIndex()));
+        }
+        out.defaultWriteObject();
+    }
+}
@@ -0,0 +1,48 @@
+package components.nodes;
+
+import components.BreakException;
+import components.ContinueException;
+import components.Interpreter;
+import components.jit.TierProfile;
+
+public class DoWhileNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node body;
+    private final Node condition;
+    // Profile of the enclosing function body, or null at top level
+    private final TierProfile profile;
+
+    public DoWhileNode(Node body, Node condition, TierProfile profile, int line, int column) {
+        super(line, column);
+        this.body = body;
+        this.condition = condition;
+        this.profile = profile;
+    }
+
+    public Node getBody() {
+        return body;
+    }
+
+    public Node getCondition() {
+        return condition;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        try {
+            do {
+                if (profile != null) {
+                    profile.countLoopIteration();
+                }
+                try {
+                    body.execute(interpreter);
+                } catch (ContinueException e) {
+                    // Continue to next iteration
+                }
+            } while (Operations.toBoolean(condition.execute(interpreter)));
+        } catch (BreakException e) {
+            // Break out of loop
+        }
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package components.nodes;
+
+import components.Interpreter;
+
+public class EqualityNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final BinaryOperator operator;
+    private final Node left;
+    private final Node right;
+
+    public EqualityNode(BinaryOperator operator, Node left, Node right, int line, int column) {
+        super(line, column);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public BinaryOperator getOperator() {
+        return operator;
+    }
+
+    public Node getLeft() {
+        return left;
+    }
+
+    public Node getRight() {
+        return right;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Object leftValue = left.execute(interpreter);
+        Object rightValue = right.execute(interpreter);
+        return Operations.equality(operator, leftValue, rightValue);
+    }
+}
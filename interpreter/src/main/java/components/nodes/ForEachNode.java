@@ -0,0 +1,62 @@
+package components.nodes;
+
+import components.*;
+
+import java.util.List;
+
+public class ForEachNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final String itemVariable;
+    private final Node collection;
+    private final Node body;
+    private final FrameDescriptor frame;
+
+    public ForEachNode(String itemVariable, Node collection, Node body, FrameDescriptor frame, int line, int column) {
+        super(line, column);
+        this.frame = frame;
+        this.itemVariable = itemVariable;
+        this.collection = collection;
+        this.body = body;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Object items = collection.execute(interpreter);
+
+        SymbolTable loopScope = new SymbolTable(frame, interpreter.getGlobalSymbolTable());
+        interpreter.getSymbolTableStack().push(loopScope);
+        try {
+            if (items instanceof List) {
+                for (Object item : (List<?>) items) {
+                    runIteration(interpreter, loopScope, item);
+                }
+            } else if (items instanceof Object[]) {
+                for (Object item : (Object[]) items) {
+                    runIteration(interpreter, loopScope, item);
+                }
+            } else if (items instanceof String) {
+                String str = (String) items;
+                for (int i = 0; i < str.length(); i++) {
+                    runIteration(interpreter, loopScope, String.valueOf(str.charAt(i)));
+                }
+            } else {
+                throw new RuntimeException("For-each loop requires an array, list, or string, got: " +
+                    (items == null ? "null" : items.getClass().getSimpleName()));
+            }
+        } catch (BreakException e) {
+            // Break out of loop
+        } finally {
+            interpreter.getSymbolTableStack().pop();
+        }
+        return null;
+    }
+
+    private void runIteration(Interpreter interpreter, SymbolTable loopScope, Object item) {
+        loopScope.set(itemVariable, item);
+        try {
+            body.execute(interpreter);
+        } catch (ContinueException e) {
+            // Continue to next iteration
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package components.nodes;
+
+import components.*;
+import components.jit.TierProfile;
+
+/**
+ * A C-style {@code for} loop. Any of init, condition and update may be null.
+ */
+public class ForNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node init;
+    private final Node condition;
+    private final Node update;
+    private final Node body;
+    private final FrameDescriptor frame;
+    // Profile of the enclosing function body, or null at top level
+    private final TierProfile profile;
+
+    public ForNode(Node init, Node condition, Node update, Node body, FrameDescriptor frame, TierProfile profile,
+                   int line, int column) {
+        super(line, column);
+        this.frame = frame;
+        this.profile = profile;
+        this.init = init;
+        this.condition = condition;
+        this.update = update;
+        this.body = body;
+    }
+
+    public Node getInit() {
+        return init;
+    }
+
+    public Node getCondition() {
+        return condition;
+    }
+
+    public Node getUpdate() {
+        return update;
+    }
+
+    public Node getBody() {
+        return body;
+    }
+
+    public FrameDescriptor getFrame() {
+        return frame;
+    }
+
+    public TierProfile getProfile() {
+        return profile;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        markPosition(interpreter);
+
+        interpreter.getSymbolTableStack().push(new SymbolTable(frame, interpreter.getGlobalSymbolTable()));
+        try {
+            if (init != null) {
+                init.execute(interpreter);
+            }
+            while (condition == null || Operations.toBoolean(condition.execute(interpreter))) {
+                if (profile != null) {
+                    profile.countLoopIteration();
+                }
+                try {
+                    body.execute(interpreter);
+                } catch (ContinueException e) {
+                    // Continue to next iteration
+                }
+                if (update != null) {
+                    update.execute(interpreter);
+                }
+            }
+        } catch (BreakException e) {
+            // Break out of loop
+        } finally {
+            interpreter.getSymbolTableStack().pop();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,220 @@
+package components.nodes;
+
+import components.FrameDescriptor;
+import components.Function;
+import components.Interpreter;
+import components.ReturnException;
+import components.SymbolTable;
+import components.jit.CompiledBody;
+import components.jit.TierProfile;
+import components.vm.Vm;
+import components.vm.VmCode;
+import components.vm.VmCompiler;
+
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The body of a function, method or constructor. Every call goes through
+ * {@link #invoke}, which runs the compiled version of the body once
+ * {@link TierProfile} has one for the argument types, and runs the body's
+ * register code in the {@link Vm} otherwise. The tree itself is only walked
+ * when the VM is off or the debugger is attached.
+ */
+public class FunctionBodyNode extends BlockNode {
+    private static final long serialVersionUID = 1L;
+    private final List<String> parameters;
+    // Frame slot each argument is bound to, or null when the frame is name-based
+    private final int[] argumentSlots;
+    private final TierProfile profile;
+    // Register code, compiled on first use; kept when the program is cached
+    private VmCode vmCode;
+
+    public FunctionBodyNode(Node[] statements, FrameDescriptor frame, List<String> parameters, TierProfile profile,
+                            int line, int column) {
+        super(statements, frame, line, column);
+        this.parameters = parameters;
+        this.profile = profile;
+        if (frame != null) {
+            argumentSlots = new int[parameters.size()];
+            for (int i = 0; i < argumentSlots.length; i++) {
+                argumentSlots[i] = frame.getSlot(parameters.get(i));
+            }
+        } else {
+            argumentSlots = null;
+        }
+    }
+
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Frame slot of each argument, in parameter order. A repeated parameter
+     * name maps to the same slot, so the last argument wins.
+     */
+    public int[] getArgumentSlots() {
+        return argumentSlots;
+    }
+
+    public TierProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns the register code for this body, compiling it on first use, or
+     * null if the VM is switched off.
+     */
+    public VmCode getVmCode() {
+        if (!VmCompiler.isEnabled()) {
+            return null;
+        }
+        if (vmCode == null) {
+            vmCode = VmCompiler.compile(this);
+        }
+        return vmCode;
+    }
+
+    /**
+     * Creates the scope for one call, with 'this' bound to {@code self} unless
+     * it is null and the parameters bound to {@code args}, which must already
+     * have the right length.
+     */
+    public SymbolTable createScope(Interpreter interpreter, Object self, List<Object> args) {
+        SymbolTable scope = SymbolTable.obtain(getFrame(), interpreter.getGlobalSymbolTable());
+        if (self != null) {
+            scope.set("this", self);
+        }
+        if (argumentSlots != null) {
+            for (int i = 0; i < argumentSlots.length; i++) {
+                scope.setSlot(argumentSlots[i], args.get(i));
+            }
+        } else {
+            for (int i = 0; i < parameters.size(); i++) {
+                scope.set(parameters.get(i), args.get(i));
+            }
+        }
+        return scope;
+    }
+
+    /**
+     * Pushes {@code scope} for a call made in tail position by a body whose
+     * scopes are the ones above {@code base}. Scoping is dynamic, so the callee
+     * can still see those scopes; they are popped first only when
+     * {@code scope} binds every name they do, which is what keeps plain tail
+     * recursion from growing the scope stack.
+     */
+    public static void enterTail(Deque<SymbolTable> stack, int base, SymbolTable scope) {
+        int depth = 0;
+        for (SymbolTable caller : stack) {
+            if (depth++ == stack.size() - base) {
+                break;
+            }
+            if (!caller.isShadowedBy(scope)) {
+                stack.push(scope);
+                return;
+            }
+        }
+        while (stack.size() > base) {
+            stack.pop().release();
+        }
+        stack.push(scope);
+    }
+
+    /**
+     * Runs one call of this body and returns the value it returned, or null.
+     */
+    public Object invoke(Interpreter interpreter, Object self, List<Object> args) {
+        CompiledBody compiled = profile.select(this, interpreter, args);
+        if (compiled != null) {
+            return compiled.run(interpreter, args);
+        }
+        // The debugger pauses inside statement nodes, so it needs the tree
+        VmCode code = interpreter.isDebugMode() ? null : getVmCode();
+        if (code != null) {
+            return Vm.call(interpreter, this, code, self, args);
+        }
+        return walk(interpreter, self, args);
+    }
+
+    /**
+     * Runs one call of this body by walking the tree.
+     * <p>
+     * A call returned directly from the body is a tail call: when the callee
+     * is a VG body that would be walked as well, it runs in this loop rather
+     * than in a nested one, so tail recursion does not grow the Java stack.
+     * See {@link #enterTail} for what happens to the caller's scope.
+     */
+    public Object walk(Interpreter interpreter, Object self, List<Object> args) {
+        Deque<SymbolTable> stack = interpreter.getSymbolTableStack();
+        int base = stack.size();
+        stack.push(createScope(interpreter, self, args));
+        FunctionBodyNode body = this;
+        // Calls entered in place: postfix ones report errors, ones by name count towards the call depth
+        CallChain calls = null;
+        int namedCalls = 0;
+        try {
+            bodies:
+            for (;;) {
+                for (Node statement : body.getStatements()) {
+                    if (!(statement instanceof ReturnNode)) {
+                        statement.execute(interpreter);
+                        continue;
+                    }
+                    // A return directly in the body completes the call without unwinding
+                    Node value = ((ReturnNode) statement).getValue();
+                    List<Object> calleeArgs;
+                    FunctionBodyNode callee;
+                    Object calleeSelf = null;
+                    if (value instanceof FunctionCallNode) {
+                        FunctionCallNode call = (FunctionCallNode) value;
+                        calleeArgs = evaluateArguments(call.getArguments(), interpreter);
+                        Object target = call.lookup(interpreter, calleeArgs);
+                        if (target == null || target.getClass() != Function.class) {
+                            return call.call(interpreter, target, calleeArgs);
+                        }
+                        callee = ((Function) target).getBody();
+                        interpreter.incrementCallDepth();
+                        namedCalls++;
+                    } else if (value instanceof CallNode) {
+                        CallNode call = (CallNode) value;
+                        Object target = call.getCallee().execute(interpreter);
+                        calleeArgs = evaluateArguments(call.getArguments(), interpreter);
+                        callee = call.enterableBody(interpreter, target, calleeArgs);
+                        if (callee == null) {
+                            return call.call(interpreter, target, calleeArgs);
+                        }
+                        calleeSelf = CallNode.receiver(target);
+                        calls = CallChain.prepend(call, target, calls);
+                    } else {
+                        return value != null ? value.execute(interpreter) : null;
+                    }
+
+                    CompiledBody compiled = callee.profile.select(callee, interpreter, calleeArgs);
+                    if (compiled != null) {
+                        return compiled.run(interpreter, calleeArgs);
+                    }
+                    VmCode code = interpreter.isDebugMode() ? null : callee.getVmCode();
+                    if (code != null) {
+                        return Vm.call(interpreter, callee, code, calleeSelf, calleeArgs);
+                    }
+                    enterTail(stack, base, callee.createScope(interpreter, calleeSelf, calleeArgs));
+                    body = callee;
+                    continue bodies;
+                }
+                return null;
+            }
+        } catch (ReturnException e) {
+            return e.getValue();
+        } catch (RuntimeException e) {
+            throw calls != null ? calls.report(interpreter, e) : e;
+        } finally {
+            while (stack.size() > base) {
+                stack.pop().release();
+            }
+            for (int i = 0; i < namedCalls; i++) {
+                interpreter.decrementCallDepth();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package components.nodes;
+
+import components.*;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A call written as a bare {@code name(...)} that the parser matched as the
+ * {@code functionCall} rule rather than as a postfix call.
+ * <p>
+ * The site caches what it resolved to when that cannot change behind its
+ * back: a built-in, or a function declared globally under a name no other
+ * scope binds. The global table's version tells when a declaration may have
+ * replaced it.
+ */
+public class FunctionCallNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final String functionName;
+    private final Node[] arguments;
+    // Runtime state only: the callee resolved last, and the global table it was resolved in
+    private transient volatile GlobalBinding cached;
+
+    public FunctionCallNode(String functionName, Node[] arguments, int line, int column) {
+        super(line, column);
+        this.functionName = functionName;
+        this.arguments = arguments;
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    public Node[] getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        List<Object> argValues = evaluateArguments(arguments, interpreter);
+        return call(interpreter, lookup(interpreter, argValues), argValues);
+    }
+
+    /**
+     * Calls {@code callee}, as returned by {@link #lookup}, with the
+     * evaluated arguments.
+     */
+    public Object call(Interpreter interpreter, Object callee, List<Object> argValues) {
+        if (callee instanceof BuiltInFunction) {
+            return ((BuiltInFunction) callee).call(argValues);
+        }
+        if (callee instanceof FunctionReference) {
+            return ((FunctionReference) callee).call(argValues);
+        }
+
+        Function function = (Function) callee;
+        interpreter.incrementCallDepth();
+        try {
+            // Subclasses, such as library functions bound to intrinsics, override call()
+            return function.getClass() == Function.class
+                ? function.getBody().invoke(interpreter, null, argValues)
+                : function.call(argValues);
+        } finally {
+            interpreter.decrementCallDepth();
+        }
+    }
+
+    /**
+     * Finds what this call names: a {@link BuiltInFunction}, a
+     * {@link FunctionReference}, or a {@link Function} that takes as many
+     * arguments as {@code argValues} holds.
+     */
+    public Object lookup(Interpreter interpreter, List<Object> argValues) {
+        SymbolTable global = interpreter.getSymbolTableStack().getLast();
+        GlobalBinding binding = cached;
+        if (binding != null && binding.isCurrent(global)
+                && (binding.getValue() instanceof BuiltInFunction || !global.isLocalName(functionName))) {
+            return binding.getValue();
+        }
+        // Read before the lookup, so a function declared meanwhile only makes what is cached stale
+        int version = global.getVersion();
+
+        BuiltInFunction builtInFunc = interpreter.builtInFunction.get(functionName);
+        if (builtInFunc != null) {
+            cached = new GlobalBinding(global, version, builtInFunc);
+            return builtInFunc;
+        }
+
+        Object funcObj = null;
+        boolean declared = false;
+        boolean local = global.isLocalName(functionName);
+        Iterable<SymbolTable> scopes = local
+            ? interpreter.getSymbolTableStack()
+            : Collections.singleton(global);
+        for (SymbolTable table : scopes) {
+            if (table.containsFunction(functionName)) {
+                funcObj = table.getFunction(functionName);
+                declared = true;
+                break;
+            }
+            if (table.contains(functionName)) {
+                funcObj = table.get(functionName);
+                break;
+            }
+        }
+
+        if (funcObj instanceof FunctionReference) {
+            return funcObj;
+        }
+
+        if (!(funcObj instanceof Function)) {
+            throw new RuntimeException("Function '" + functionName + "' is not defined at line: " + line);
+        }
+
+        Function function = (Function) funcObj;
+        List<String> parameters = function.getParameters();
+
+        if (argValues.size() != parameters.size()) {
+            throw new ErrorHandler.VGArgumentException(
+                "Function '" + functionName + "' expects " + parameters.size() + " arguments but got " + argValues.size(),
+                line, column);
+        }
+        // A variable holding a function can be reassigned without a new entry, so only declarations are cached
+        if (declared && !local) {
+            cached = new GlobalBinding(global, version, function);
+        }
+        return function;
+    }
+}
@@ -0,0 +1,49 @@
+package components.nodes;
+
+import components.Function;
+import components.Interpreter;
+import components.SymbolTable;
+import components.vg_langParser;
+
+import java.util.List;
+
+public class FunctionDeclarationNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final String functionName;
+    private final List<String> parameters;
+    // Parse tree of the body; not kept when the program is cached
+    private final transient vg_langParser.BlockContext block;
+    private final FunctionBodyNode body;
+
+    public FunctionDeclarationNode(String functionName, List<String> parameters, vg_langParser.BlockContext block,
+                                   FunctionBodyNode body, int line, int column) {
+        super(line, column);
+        this.functionName = functionName;
+        this.parameters = parameters;
+        this.block = block;
+        this.body = body;
+    }
+
+    public FunctionBodyNode getBody() {
+        return body;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        markPosition(interpreter);
+
+        // The debugger may have paused here on a step-over command, which skips this declaration
+        if (interpreter.consumeSkipNextStatement()) {
+            System.out.println("Debug: Skipping function declaration due to step-over");
+            return null;
+        }
+
+        Function function = new Function(parameters, block, body, interpreter);
+
+        // Functions are always declared in the global scope
+        SymbolTable globalTable = interpreter.getSymbolTableStack().getLast();
+        globalTable.setFunction(functionName, function);
+        globalTable.set(functionName, function);
+        return null;
+    }
+}
@@ -0,0 +1,31 @@
+package components.nodes;
+
+import components.Function;
+import components.FunctionReference;
+import components.Interpreter;
+
+import java.util.List;
+
+public class FunctionReferenceNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final String functionPath;
+    private final Node[] capturedArguments;
+
+    public FunctionReferenceNode(String functionPath, Node[] capturedArguments, int line, int column) {
+        super(line, column);
+        this.functionPath = functionPath;
+        this.capturedArguments = capturedArguments;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Function function = interpreter.resolveFunctionFromNamespace(functionPath);
+
+        if (function == null) {
+            throw new RuntimeException("Function '" + functionPath + "' is not defined.");
+        }
+
+        List<Object> capturedArgs = evaluateArguments(capturedArguments, interpreter);
+        return new FunctionReference(function, capturedArgs);
+    }
+}
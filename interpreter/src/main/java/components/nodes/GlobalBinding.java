@@ -0,0 +1,30 @@
+package components.nodes;
+
+import components.SymbolTable;
+
+/**
+ * What a name resolved to in a global table, as of one version of that
+ * table. Nodes cache a binding through a single volatile field and never
+ * change one, so a thread reading the cache sees the value together with
+ * the table and version it was found in, whatever other threads store.
+ */
+final class GlobalBinding {
+    private final SymbolTable table;
+    private final int version;
+    private final Object value;
+
+    GlobalBinding(SymbolTable table, int version, Object value) {
+        this.table = table;
+        this.version = version;
+        this.value = value;
+    }
+
+    /** Whether nothing has been declared in {@code global} since this binding was found. */
+    boolean isCurrent(SymbolTable global) {
+        return table == global && version == global.getVersion();
+    }
+
+    Object getValue() {
+        return value;
+    }
+}
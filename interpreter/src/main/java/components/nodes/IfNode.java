@@ -0,0 +1,49 @@
+package components.nodes;
+
+import components.Interpreter;
+
+/**
+ * An {@code if} with its {@code else if} chain flattened into parallel
+ * condition/block arrays; {@code elseBlock} is null when there is no else.
+ */
+public class IfNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node[] conditions;
+    private final Node[] blocks;
+    private final Node elseBlock;
+
+    public IfNode(Node[] conditions, Node[] blocks, Node elseBlock, int line, int column) {
+        super(line, column);
+        this.conditions = conditions;
+        this.blocks = blocks;
+        this.elseBlock = elseBlock;
+    }
+
+    public Node[] getConditions() {
+        return conditions;
+    }
+
+    public Node[] getBlocks() {
+        return blocks;
+    }
+
+    public Node getElseBlock() {
+        return elseBlock;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        markPosition(interpreter);
+
+        for (int i = 0; i < conditions.length; i++) {
+            if (Operations.toBoolean(conditions[i].execute(interpreter))) {
+                blocks[i].execute(interpreter);
+                return null;
+            }
+        }
+        if (elseBlock != null) {
+            elseBlock.execute(interpreter);
+        }
+        return null;
+    }
+}
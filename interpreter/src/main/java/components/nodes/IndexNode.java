@@ -0,0 +1,64 @@
+package components.nodes;
+
+import components.ErrorHandler;
+import components.Interpreter;
+
+import java.util.List;
+
+public class IndexNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node receiver;
+    private final Node index;
+
+    public IndexNode(Node receiver, Node index, int line, int column) {
+        super(line, column);
+        this.receiver = receiver;
+        this.index = index;
+    }
+
+    public Node getReceiver() {
+        return receiver;
+    }
+
+    public Node getIndex() {
+        return index;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Object value = receiver.execute(interpreter);
+        Object indexObj = index.execute(interpreter);
+        return access(interpreter, value, indexObj);
+    }
+
+    /**
+     * Reads {@code value[indexObj]} for operands that have already been
+     * evaluated, reporting errors at this node's position.
+     */
+    public Object access(Interpreter interpreter, Object value, Object indexObj) {
+        if (!(indexObj instanceof Number)) {
+            markPosition(interpreter);
+            throw new ErrorHandler.VGTypeException(
+                "Array index must be a number, got: " + Operations.typeName(indexObj),
+                line, column
+            );
+        }
+        int position = ((Number) indexObj).intValue();
+        if (!(value instanceof List)) {
+            markPosition(interpreter);
+            throw new ErrorHandler.VGTypeException(
+                "Cannot use [] operator on non-array value: " + Operations.typeName(value),
+                line, column
+            );
+        }
+        List<?> list = (List<?>) value;
+        if (position < 0 || position >= list.size()) {
+            markPosition(interpreter);
+            throw new ErrorHandler.VGException(
+                "Array index out of bounds: index " + position + " exceeds array length " + list.size(),
+                line, column
+            );
+        }
+        return list.get(position);
+    }
+}
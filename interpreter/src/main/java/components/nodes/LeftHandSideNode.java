@@ -0,0 +1,217 @@
+package components.nodes;
+
+import components.*;
+
+import java.util.List;
+
+/**
+ * An assignment target. Covers the three forms of the grammar:
+ * {@code name[i]...}, {@code name.field} and {@code this.field}.
+ * <p>
+ * An assignment evaluates the indices, then resolves the target to the
+ * scope or object that holds it, then evaluates the value and stores it.
+ * Those steps are separate methods so the VM can run them with the indices
+ * and the resolved target in registers; nothing is allocated for a store
+ * except the index array of a walked indexed one.
+ */
+public class LeftHandSideNode extends Node {
+    private static final long serialVersionUID = 1L;
+
+    public enum Kind { VARIABLE, FIELD, THIS_FIELD }
+
+    private static final Object[] NO_INDICES = new Object[0];
+
+    private final Kind kind;
+    private final String name;
+    private final String fieldName;
+    private final Node[] indices;
+    // Frame slot of a VARIABLE target resolved at lowering time, or -1
+    private final int depth;
+    private final int slot;
+
+    private LeftHandSideNode(Kind kind, String name, String fieldName, Node[] indices, int depth, int slot,
+                             int line, int column) {
+        super(line, column);
+        this.kind = kind;
+        this.name = name;
+        this.fieldName = fieldName;
+        this.indices = indices;
+        this.depth = depth;
+        this.slot = slot;
+    }
+
+    public static LeftHandSideNode variable(String name, Node[] indices, int depth, int slot, int line, int column) {
+        return new LeftHandSideNode(Kind.VARIABLE, name, null, indices, depth, slot, line, column);
+    }
+
+    public static LeftHandSideNode field(String objectName, String fieldName, int line, int column) {
+        return new LeftHandSideNode(Kind.FIELD, objectName, fieldName, new Node[0], -1, -1, line, column);
+    }
+
+    public static LeftHandSideNode thisField(String fieldName, int line, int column) {
+        return new LeftHandSideNode(Kind.THIS_FIELD, null, fieldName, new Node[0], -1, -1, line, column);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Node[] getIndices() {
+        return indices;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Resolves the target: the scope holding the variable, or the struct or
+     * class instance holding the field. Constants are rejected here, before
+     * the value is evaluated.
+     */
+    @Override
+    public Object execute(Interpreter interpreter) {
+        switch (kind) {
+            case THIS_FIELD:
+                return resolveThisField(interpreter);
+            case FIELD:
+                return resolveField(interpreter);
+            default:
+                return resolveVariable(interpreter);
+        }
+    }
+
+    /**
+     * Runs a whole assignment of {@code value} to this target by walking the
+     * tree, and returns the assigned value.
+     */
+    public Object assign(Interpreter interpreter, Node value) {
+        Object[] indexValues = NO_INDICES;
+        if (indices.length > 0) {
+            indexValues = new Object[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                indexValues[i] = checkIndex(indices[i].execute(interpreter));
+            }
+        }
+        Object target = execute(interpreter);
+        Object result = value.execute(interpreter);
+        store(target, indexValues, 0, indexValues.length, result);
+        return result;
+    }
+
+    /**
+     * Returns {@code index} if it can index an array, or fails the assignment.
+     */
+    public static Object checkIndex(Object index) {
+        if (!(index instanceof Number)) {
+            throw new RuntimeException("Array index must be a number.");
+        }
+        return index;
+    }
+
+    /**
+     * Stores {@code value} into a target returned by {@link #execute}, at the
+     * {@code count} indices held in {@code indexValues} from {@code first}.
+     * A variable that does not hold an array is overwritten whatever the
+     * indices are.
+     */
+    @SuppressWarnings("unchecked")
+    public void store(Object target, Object[] indexValues, int first, int count, Object value) {
+        if (kind != Kind.VARIABLE) {
+            if (target instanceof Struct) {
+                ((Struct) target).setField(fieldName, value);
+            } else {
+                ((ClassInstance) target).setField(fieldName, value);
+            }
+            return;
+        }
+
+        SymbolTable table = (SymbolTable) target;
+        if (count > 0) {
+            Object current = table.get(name);
+            if (current instanceof List) {
+                List<Object> list = (List<Object>) current;
+                for (int i = first; i < first + count - 1; i++) {
+                    int index = ((Number) indexValues[i]).intValue();
+                    if (index < 0 || index >= list.size() || !(list.get(index) instanceof List)) {
+                        throw new RuntimeException("Invalid array access");
+                    }
+                    list = (List<Object>) list.get(index);
+                }
+                int finalIndex = ((Number) indexValues[first + count - 1]).intValue();
+                if (finalIndex < 0 || finalIndex >= list.size()) {
+                    throw new RuntimeException("Array index out of bounds");
+                }
+                list.set(finalIndex, value);
+                return;
+            }
+        }
+        table.set(name, value);
+    }
+
+    private ClassInstance resolveThisField(Interpreter interpreter) {
+        SymbolTable table = Operations.findScope(interpreter, "this");
+        Object thisObj = table != null ? table.get("this") : null;
+
+        if (thisObj == null) {
+            throw new RuntimeException("'this' is not available in this context.");
+        }
+        if (!(thisObj instanceof ClassInstance)) {
+            throw new RuntimeException("Cannot access field '" + fieldName + "' on 'this' - not a class instance.");
+        }
+        return (ClassInstance) thisObj;
+    }
+
+    private SymbolTable resolveVariable(Interpreter interpreter) {
+        SymbolTable targetTable = null;
+        if (slot >= 0) {
+            SymbolTable frame = Operations.scopeAt(interpreter, depth);
+            if (frame.getSlot(slot) != SymbolTable.UNDEFINED) {
+                targetTable = frame;
+            }
+        }
+
+        if (targetTable == null) {
+            targetTable = Operations.findScope(interpreter, name);
+            if (targetTable == null) {
+                throw new RuntimeException("Variable '" + name + "' is not defined.");
+            }
+            if (targetTable.isAmbiguous(name)) {
+                throw Operations.ambiguousSymbol(name);
+            }
+        }
+        if (targetTable.isConstant(name)) {
+            throw new RuntimeException("Cannot reassign to a constant variable '" + name + "'.");
+        }
+        return targetTable;
+    }
+
+    private Object resolveField(Interpreter interpreter) {
+        SymbolTable table = Operations.findScope(interpreter, name);
+        if (table == null) {
+            throw new RuntimeException("Variable '" + name + "' is not defined.");
+        }
+        if (table.isAmbiguous(name)) {
+            throw Operations.ambiguousSymbol(name);
+        }
+        Object obj = table.get(name);
+
+        if (obj instanceof StructDefinition) {
+            // Assigning a field on a struct type turns the variable into a fresh instance
+            Struct struct = ((StructDefinition) obj).createInstance();
+            table.set(name, struct);
+            return struct;
+        } else if (obj instanceof Struct || obj instanceof ClassInstance) {
+            return obj;
+        }
+        throw new RuntimeException("Cannot access field '" + fieldName + "' on non-struct/class object '" + name + "'");
+    }
+}
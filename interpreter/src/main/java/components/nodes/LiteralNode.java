@@ -0,0 +1,22 @@
+package components.nodes;
+
+import components.Interpreter;
+
+public class LiteralNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Object value;
+
+    public LiteralNode(Object value, int line, int column) {
+        super(line, column);
+        this.value = value;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        return value;
+    }
+}
@@ -0,0 +1,43 @@
+package components.nodes;
+
+import components.Interpreter;
+import components.SymbolTable;
+
+/**
+ * A variable read that was resolved at lowering time to a slot in an
+ * enclosing frame. If that slot has not been assigned yet (the declaration
+ * has not run) the name is looked up dynamically, as any name would be.
+ */
+public class LocalVariableNode extends VariableNode {
+    private static final long serialVersionUID = 1L;
+    private final int depth;
+    private final int slot;
+
+    public LocalVariableNode(String name, int depth, int slot, int line, int column) {
+        super(name, line, column);
+        this.depth = depth;
+        this.slot = slot;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        SymbolTable frame = Operations.scopeAt(interpreter, depth);
+        Object value = frame.getSlot(slot);
+
+        if (value == SymbolTable.UNDEFINED) {
+            return lookup(interpreter);
+        }
+        if (value == null) {
+            throw new RuntimeException("Variable '" + getName() + "' is not defined.");
+        }
+        return value;
+    }
+}
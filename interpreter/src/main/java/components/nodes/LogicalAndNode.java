@@ -0,0 +1,31 @@
+package components.nodes;
+
+import components.Interpreter;
+
+/**
+ * The visitor never had its own rule for {@code &&}; the default
+ * visitChildren evaluated every operand and yielded the last one. That is
+ * kept as-is here so lowering does not change what existing scripts print.
+ */
+public class LogicalAndNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node[] operands;
+
+    public LogicalAndNode(Node[] operands, int line, int column) {
+        super(line, column);
+        this.operands = operands;
+    }
+
+    public Node[] getOperands() {
+        return operands;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Object result = null;
+        for (Node operand : operands) {
+            result = operand.execute(interpreter);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+package components.nodes;
+
+import components.Interpreter;
+
+public class LogicalOrNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node[] operands;
+
+    public LogicalOrNode(Node[] operands, int line, int column) {
+        super(line, column);
+        this.operands = operands;
+    }
+
+    public Node[] getOperands() {
+        return operands;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Object left = operands[0].execute(interpreter);
+        for (int i = 1; i < operands.length; i++) {
+            if (Operations.toBoolean(left)) {
+                return true;
+            }
+            left = Operations.toBoolean(operands[i].execute(interpreter));
+        }
+        return left;
+    }
+}
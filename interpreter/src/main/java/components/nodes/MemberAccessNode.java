@@ -0,0 +1,285 @@
+package components.nodes;
+
+import components.*;
+
+/**
+ * A {@code receiver.member} read.
+ * <p>
+ * Each site keeps an inline cache of the receivers it has resolved the
+ * member on: the namespace or enum itself, or the class of an instance or
+ * class definition. A receiver the cache knows skips the type dispatch and
+ * the member lookup (instance fields still come from the instance). An
+ * instance only matches an entry for its class while it has, or for a
+ * method lacks, a field of the member's name, so an instance whose fields
+ * differ from the one the entry was made for is resolved again. After
+ * {@link #MAX_ENTRIES} different receivers the site stops caching and
+ * always resolves from scratch.
+ */
+public class MemberAccessNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_ENTRIES = 4;
+
+    private final Node receiver;
+    private final String memberName;
+    // Runtime state only: the cached receivers are not serializable. Copied
+    // on write and published whole, so a thread never sees an entry half added.
+    private transient volatile CacheEntry[] cache;
+    private transient volatile boolean megamorphic;
+
+    public MemberAccessNode(Node receiver, String memberName, int line, int column) {
+        super(line, column);
+        this.receiver = receiver;
+        this.memberName = memberName;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Object value = receiver.execute(interpreter);
+
+        CacheEntry[] entries = cache;
+        if (entries != null) {
+            for (CacheEntry entry : entries) {
+                if (entry.matches(value)) {
+                    return entry.read(this, interpreter, value);
+                }
+            }
+        }
+        return resolve(interpreter, value);
+    }
+
+    /** Resolves the member the slow way, caching how it was found where that is stable. */
+    private Object resolve(Interpreter interpreter, Object value) {
+        if (value instanceof Integer || value instanceof Double ||
+            value instanceof Boolean || value instanceof String) {
+            markPosition(interpreter);
+            throw new ErrorHandler.VGTypeException(
+                "Dot operator not supported on primitive type: " + Operations.typeName(value),
+                line, column
+            );
+        }
+
+        if (value instanceof Namespace) {
+            Namespace namespace = (Namespace) value;
+            Object member = namespace.getSymbol(memberName);
+            if (member == null) {
+                markPosition(interpreter);
+                throw new ErrorHandler.VGNameException(
+                    "Member '" + memberName + "' not found in namespace.",
+                    line, column
+                );
+            }
+            remember(new NamespaceEntry(namespace, member));
+            return member;
+        } else if (value instanceof StructDefinition) {
+            StructDefinition structDef = (StructDefinition) value;
+            if (memberName.equals("createInstance")) {
+                return structDef.createInstance();
+            }
+            Struct struct = structDef.createInstance();
+            if (!struct.hasField(memberName)) {
+                throw new RuntimeException("Field '" + memberName + "' not found in struct '" + struct.getName() + "'");
+            }
+            return struct.getField(memberName);
+        } else if (value instanceof Struct) {
+            Struct struct = (Struct) value;
+            if (!struct.hasField(memberName)) {
+                throw new RuntimeException("Field '" + memberName + "' not found in struct '" + struct.getName() + "'");
+            }
+            return struct.getField(memberName);
+        } else if (value instanceof components.Enum) {
+            components.Enum enumObj = (components.Enum) value;
+            if (!enumObj.hasValue(memberName)) {
+                throw new RuntimeException("Value '" + memberName + "' not found in enum '" + enumObj.getName() + "'");
+            }
+            Object member = enumObj.getValue(memberName);
+            remember(new EnumEntry(enumObj, member));
+            return member;
+        } else if (value instanceof ClassDefinition) {
+            ClassDefinition classDef = (ClassDefinition) value;
+            // For static members or methods
+            if (classDef.hasStaticMethod(memberName)) {
+                remember(new StaticMethodEntry(classDef));
+                return new StaticMethodReference(classDef, memberName);
+            }
+            throw new RuntimeException("Static member '" + memberName + "' not found in class '" + classDef.getName() + "'");
+        } else if (value instanceof ClassInstance) {
+            ClassInstance instance = (ClassInstance) value;
+            if (instance.hasField(memberName)) {
+                boolean isPrivate = instance.isFieldPrivate(memberName);
+                remember(new FieldEntry(instance.getClassDefinition(), memberName, isPrivate));
+                return readField(interpreter, instance, isPrivate);
+            } else if (instance.hasMethod(memberName)) {
+                // Return a method reference that can be called
+                remember(new MethodEntry(instance.getClassDefinition(), memberName));
+                return new MethodReference(instance, memberName);
+            }
+            throw new RuntimeException("Member '" + memberName + "' not found in class '" + instance.getClassName() + "'");
+        }
+
+        markPosition(interpreter);
+        throw new ErrorHandler.VGTypeException(
+            "Dot operator not supported on type: " + Operations.typeName(value),
+            line, column
+        );
+    }
+
+    private Object readField(Interpreter interpreter, ClassInstance instance, boolean isPrivate) {
+        // Private fields are only visible from methods of the same class
+        if (isPrivate && !isAccessingFromSameClass(interpreter, instance)) {
+            throw new RuntimeException("Field '" + memberName + "' is private and cannot be accessed");
+        }
+        return instance.getField(memberName);
+    }
+
+    private void remember(CacheEntry entry) {
+        if (megamorphic) {
+            return;
+        }
+        CacheEntry[] entries = cache;
+        int size = entries == null ? 0 : entries.length;
+        if (size == MAX_ENTRIES) {
+            cache = null;
+            megamorphic = true;
+            return;
+        }
+        CacheEntry[] grown = new CacheEntry[size + 1];
+        if (entries != null) {
+            System.arraycopy(entries, 0, grown, 0, size);
+        }
+        grown[size] = entry;
+        cache = grown;
+    }
+
+    private boolean isAccessingFromSameClass(Interpreter interpreter, ClassInstance targetInstance) {
+        // We are inside a method of the same class if any enclosing scope binds
+        // 'this' to an instance of that class
+        for (SymbolTable table : interpreter.getSymbolTableStack()) {
+            if (table.contains("this")) {
+                Object thisObj = table.get("this");
+                if (thisObj instanceof ClassInstance
+                        && ((ClassInstance) thisObj).getClassName().equals(targetInstance.getClassName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** How this site resolved its member on one kind of receiver. */
+    private abstract static class CacheEntry {
+        abstract boolean matches(Object value);
+
+        abstract Object read(MemberAccessNode site, Interpreter interpreter, Object value);
+    }
+
+    private static final class NamespaceEntry extends CacheEntry {
+        private final Namespace namespace;
+        private final int version;
+        private final Object member;
+
+        NamespaceEntry(Namespace namespace, Object member) {
+            this.namespace = namespace;
+            this.version = namespace.getVersion();
+            this.member = member;
+        }
+
+        @Override
+        boolean matches(Object value) {
+            return value == namespace && namespace.getVersion() == version;
+        }
+
+        @Override
+        Object read(MemberAccessNode site, Interpreter interpreter, Object value) {
+            return member;
+        }
+    }
+
+    private static final class EnumEntry extends CacheEntry {
+        private final components.Enum enumObj;
+        private final Object member;
+
+        EnumEntry(components.Enum enumObj, Object member) {
+            this.enumObj = enumObj;
+            this.member = member;
+        }
+
+        @Override
+        boolean matches(Object value) {
+            return value == enumObj;
+        }
+
+        @Override
+        Object read(MemberAccessNode site, Interpreter interpreter, Object value) {
+            return member;
+        }
+    }
+
+    private static final class StaticMethodEntry extends CacheEntry {
+        private final ClassDefinition classDef;
+
+        StaticMethodEntry(ClassDefinition classDef) {
+            this.classDef = classDef;
+        }
+
+        @Override
+        boolean matches(Object value) {
+            return value == classDef;
+        }
+
+        @Override
+        Object read(MemberAccessNode site, Interpreter interpreter, Object value) {
+            return new StaticMethodReference(classDef, site.memberName);
+        }
+    }
+
+    private static final class FieldEntry extends CacheEntry {
+        private final ClassDefinition classDef;
+        private final String fieldName;
+        private final boolean isPrivate;
+
+        FieldEntry(ClassDefinition classDef, String fieldName, boolean isPrivate) {
+            this.classDef = classDef;
+            this.fieldName = fieldName;
+            this.isPrivate = isPrivate;
+        }
+
+        @Override
+        boolean matches(Object value) {
+            if (!(value instanceof ClassInstance)) {
+                return false;
+            }
+            ClassInstance instance = (ClassInstance) value;
+            return instance.getClassDefinition() == classDef && instance.hasField(fieldName);
+        }
+
+        @Override
+        Object read(MemberAccessNode site, Interpreter interpreter, Object value) {
+            return site.readField(interpreter, (ClassInstance) value, isPrivate);
+        }
+    }
+
+    private static final class MethodEntry extends CacheEntry {
+        private final ClassDefinition classDef;
+        private final String methodName;
+
+        MethodEntry(ClassDefinition classDef, String methodName) {
+            this.classDef = classDef;
+            this.methodName = methodName;
+        }
+
+        @Override
+        boolean matches(Object value) {
+            if (!(value instanceof ClassInstance)) {
+                return false;
+            }
+            // A field of the same name takes precedence over the method
+            ClassInstance instance = (ClassInstance) value;
+            return instance.getClassDefinition() == classDef && !instance.hasField(methodName);
+        }
+
+        @Override
+        Object read(MemberAccessNode site, Interpreter interpreter, Object value) {
+            return new MethodReference((ClassInstance) value, site.memberName);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package components.nodes;
+
+import components.*;
+
+import java.util.Collections;
+import java.util.List;
+
+public class NewNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final String className;
+    private final Node[] arguments;
+
+    public NewNode(String className, Node[] arguments, int line, int column) {
+        super(line, column);
+        this.className = className;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        // Look up the class definition through the entire symbol table stack
+        Object classObj = null;
+        SymbolTable global = interpreter.getSymbolTableStack().getLast();
+        Iterable<SymbolTable> scopes = global.isLocalName(className)
+            ? interpreter.getSymbolTableStack()
+            : Collections.singleton(global);
+        for (SymbolTable table : scopes) {
+            classObj = table.get(className);
+            if (classObj instanceof ClassDefinition) {
+                break;
+            }
+        }
+
+        if (!(classObj instanceof ClassDefinition)) {
+            throw new RuntimeException("Class '" + className + "' not found");
+        }
+
+        List<Object> args = evaluateArguments(arguments, interpreter);
+        return interpreter.getClassVisitor().instantiate((ClassDefinition) classObj, args);
+    }
+}
@@ -0,0 +1,77 @@
+package components.nodes;
+
+import components.Interpreter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executable form of a VG statement or expression.
+ * Trees are produced once by {@link NodeBuilder} and then run directly,
+ * so hot code never goes back through the ANTLR visitor. Trees are
+ * serializable so that a lowered program can be cached on disk.
+ */
+public abstract class Node implements Serializable {
+    private static final long serialVersionUID = 1L;
+    protected final int line;
+    protected final int column;
+
+    protected Node(int line, int column) {
+        this.line = line;
+        this.column = column;
+    }
+
+    public abstract Object execute(Interpreter interpreter);
+
+    /**
+     * Runs this node for a caller that expects an int, so that nodes able to
+     * compute one unboxed can return it without allocating.
+     *
+     * @throws UnexpectedResultException carrying the value, if it is not an int
+     */
+    public int executeInt(Interpreter interpreter) {
+        Object value = execute(interpreter);
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    /**
+     * Runs this node for a caller that expects a double; see {@link #executeInt}.
+     *
+     * @throws UnexpectedResultException carrying the value, if it is not a double
+     */
+    public double executeDouble(Interpreter interpreter) {
+        Object value = execute(interpreter);
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    /**
+     * Records this node's source position as the interpreter's current
+     * position, so that errors raised from here report the right location.
+     */
+    protected void markPosition(Interpreter interpreter) {
+        interpreter.recordPosition(line, column);
+    }
+
+    protected static List<Object> evaluateArguments(Node[] arguments, Interpreter interpreter) {
+        List<Object> values = new ArrayList<>(arguments.length);
+        for (Node argument : arguments) {
+            values.add(argument.execute(interpreter));
+        }
+        return values;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
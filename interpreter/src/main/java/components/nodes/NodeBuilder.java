@@ -0,0 +1,940 @@
+package components.nodes;
+
+import components.ErrorHandler;
+import components.FrameDescriptor;
+import components.jit.TierProfile;
+import components.vg_langBaseVisitor;
+import components.vg_langParser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lowers an ANTLR parse tree into executable {@link Node}s.
+ * <p>
+ * Lowering evaluates nothing but constants, so a builder can be reused for
+ * any number of trees. Single-child expression rules such as
+ * {@code expression -> logicalOrExpression -> ... -> primary} are collapsed,
+ * leaving only the nodes that actually do work, and operators are resolved
+ * to enums up front instead of being re-read from token text on every
+ * evaluation.
+ * <p>
+ * Operators whose operands are all literals are folded into the literal
+ * they produce, and {@code if} branches whose condition is a literal are
+ * resolved. A function body's local that is bound once to a literal, and
+ * that nothing else can write, is replaced by that literal where it is
+ * read, so that expressions such as {@code 2 * pi} fold as well.
+ * <p>
+ * Names declared in a function, loop or catch scope are given slots in a
+ * {@link FrameDescriptor}, and reads and writes of them inside that scope
+ * are bound to a (depth, slot) pair. Scoping is dynamic, so anything else -
+ * globals, a caller's locals, names declared next to an import or class
+ * declaration - is still looked up by name at run time.
+ * <p>
+ * A builder for a debug session wraps every statement the debugger can
+ * pause at in a {@link ProbeNode}. Other builders emit no probes at all,
+ * so ordinary runs only record statement positions for error messages.
+ */
+public class NodeBuilder extends vg_langBaseVisitor<Node> {
+    private final boolean instrumented;
+    // Frames of the scopes enclosing the code being lowered, innermost last.
+    // A null entry is a scope whose names cannot be known statically.
+    private List<FrameDescriptor> scopes = new ArrayList<>();
+    // Profile of the function body being lowered, handed to its loops; null at top level
+    private TierProfile profile;
+    // Frame of the function body being lowered, the locals of it that may be
+    // replaced by their value, and the values of those declared so far
+    private FrameDescriptor bodyFrame;
+    private Set<String> constantCandidates = Collections.emptySet();
+    private Map<String, Object> constantLocals = Collections.emptyMap();
+    // Values of the literals lowered so far, so that equal literals share one value
+    private final Map<Object, Object> literals = new HashMap<>();
+
+    /**
+     * @param instrumented whether to insert the probes a debug session pauses at
+     */
+    public NodeBuilder(boolean instrumented) {
+        this.instrumented = instrumented;
+    }
+
+    public ProgramNode buildProgram(vg_langParser.ProgramContext ctx) {
+        return visitProgram(ctx);
+    }
+
+    public BlockNode buildBlock(vg_langParser.BlockContext ctx) {
+        return visitBlock(ctx);
+    }
+
+    /**
+     * Lowers the body of a function, method or constructor whose scope is
+     * created with {@code parameters} (and 'this', if {@code bindsThis})
+     * already bound.
+     */
+    public FunctionBodyNode buildFunctionBody(List<String> parameters, boolean bindsThis,
+                                              vg_langParser.BlockContext ctx) {
+        List<String> bound = parameters;
+        if (bindsThis) {
+            bound = new ArrayList<>();
+            bound.add("this");
+            bound.addAll(parameters);
+        }
+
+        // A function sees its caller's scopes at run time, not the ones around its declaration
+        List<FrameDescriptor> enclosing = scopes;
+        TierProfile enclosingProfile = profile;
+        FrameDescriptor enclosingBodyFrame = bodyFrame;
+        Set<String> enclosingCandidates = constantCandidates;
+        Map<String, Object> enclosingConstants = constantLocals;
+        scopes = new ArrayList<>();
+        profile = new TierProfile();
+        try {
+            FrameDescriptor frame = declareScope(bound, ctx.statement());
+            scopes.add(frame);
+            bodyFrame = frame;
+            constantCandidates = frame != null ? findConstantCandidates(ctx) : Collections.<String>emptySet();
+            constantLocals = new HashMap<>();
+            return new FunctionBodyNode(buildStatements(ctx.statement()), frame, parameters, profile,
+                line(ctx), column(ctx));
+        } finally {
+            scopes = enclosing;
+            profile = enclosingProfile;
+            bodyFrame = enclosingBodyFrame;
+            constantCandidates = enclosingCandidates;
+            constantLocals = enclosingConstants;
+        }
+    }
+
+    public Node buildExpression(vg_langParser.ExpressionContext ctx) {
+        return visitExpression(ctx);
+    }
+
+    // Statements
+
+    @Override
+    public ProgramNode visitProgram(vg_langParser.ProgramContext ctx) {
+        List<Node> functionDeclarations = new ArrayList<>();
+        List<Node> statements = new ArrayList<>();
+
+        for (vg_langParser.StatementContext stmtCtx : ctx.statement()) {
+            Node node = visit(stmtCtx);
+            if (node == null) {
+                continue;
+            }
+            if (stmtCtx.functionDeclaration() != null) {
+                functionDeclarations.add(node);
+            } else {
+                statements.add(node);
+            }
+        }
+        return new ProgramNode(functionDeclarations.toArray(new Node[0]), statements.toArray(new Node[0]));
+    }
+
+    @Override
+    public Node visitStatement(vg_langParser.StatementContext ctx) {
+        return visit(ctx.getChild(0));
+    }
+
+    @Override
+    public BlockNode visitBlock(vg_langParser.BlockContext ctx) {
+        return new BlockNode(buildStatements(ctx.statement()), line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitComments(vg_langParser.CommentsContext ctx) {
+        return null;
+    }
+
+    @Override
+    public Node visitExpressionStatement(vg_langParser.ExpressionStatementContext ctx) {
+        return visit(ctx.expression());
+    }
+
+    @Override
+    public Node visitFunctionDeclaration(vg_langParser.FunctionDeclarationContext ctx) {
+        List<String> parameters = getParameters(ctx.parameterList());
+        return probe(new FunctionDeclarationNode(
+            ctx.IDENTIFIER().getText(),
+            parameters,
+            ctx.block(),
+            buildFunctionBody(parameters, false, ctx.block()),
+            line(ctx), column(ctx)
+        ));
+    }
+
+    @Override
+    public Node visitVariableDeclaration(vg_langParser.VariableDeclarationContext ctx) {
+        String name = ctx.IDENTIFIER().getText();
+        Node value = visit(ctx.expression());
+        recordConstant(name, value);
+        return probe(new VariableDeclarationNode(name, value,
+            false, true, declaredSlot(name), line(ctx), column(ctx)));
+    }
+
+    @Override
+    public Node visitVariableDeclarationNoSemi(vg_langParser.VariableDeclarationNoSemiContext ctx) {
+        String name = ctx.IDENTIFIER().getText();
+        return new VariableDeclarationNode(name, visit(ctx.expression()),
+            false, false, declaredSlot(name), line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitConstDeclaration(vg_langParser.ConstDeclarationContext ctx) {
+        String name = ctx.IDENTIFIER().getText();
+        Node value = visit(ctx.expression());
+        recordConstant(name, value);
+        return new VariableDeclarationNode(name, value,
+            true, false, declaredSlot(name), line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitAssignment(vg_langParser.AssignmentContext ctx) {
+        return probe(new AssignmentNode(visitLeftHandSide(ctx.leftHandSide()), visit(ctx.expression()),
+            true, line(ctx), column(ctx)));
+    }
+
+    @Override
+    public Node visitAssignmentNoSemi(vg_langParser.AssignmentNoSemiContext ctx) {
+        return new AssignmentNode(visitLeftHandSide(ctx.leftHandSide()), visit(ctx.expression()),
+            false, line(ctx), column(ctx));
+    }
+
+    @Override
+    public LeftHandSideNode visitLeftHandSide(vg_langParser.LeftHandSideContext ctx) {
+        if (ctx.THIS() != null) {
+            return LeftHandSideNode.thisField(ctx.IDENTIFIER(0).getText(), line(ctx), column(ctx));
+        }
+        if (ctx.IDENTIFIER().size() == 2) {
+            return LeftHandSideNode.field(ctx.IDENTIFIER(0).getText(), ctx.IDENTIFIER(1).getText(),
+                line(ctx), column(ctx));
+        }
+        String name = ctx.IDENTIFIER(0).getText();
+        int depth = resolveDepth(name);
+        int slot = depth >= 0 ? frameAt(depth).getSlot(name) : -1;
+        return LeftHandSideNode.variable(name, buildExpressions(ctx.expression()), depth, slot,
+            line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitPrintStatement(vg_langParser.PrintStatementContext ctx) {
+        return probe(new PrintNode(buildExpressions(ctx.expression()), line(ctx), column(ctx)));
+    }
+
+    @Override
+    public Node visitIfStatement(vg_langParser.IfStatementContext ctx) {
+        List<vg_langParser.ExpressionContext> conditionContexts = new ArrayList<>();
+        List<vg_langParser.BlockContext> blockContexts = new ArrayList<>();
+        conditionContexts.add(ctx.expression());
+        blockContexts.add(ctx.ifBlock);
+        for (vg_langParser.ElseIfStatementContext elseIf : ctx.elseIfStatement()) {
+            conditionContexts.add(elseIf.expression());
+            blockContexts.add(elseIf.block());
+        }
+
+        // A literal false condition drops its branch; a literal true one ends the chain
+        List<Node> conditions = new ArrayList<>();
+        List<Node> blocks = new ArrayList<>();
+        Node elseBlock = null;
+        boolean resolved = false;
+        for (int i = 0; i < conditionContexts.size() && !resolved; i++) {
+            Node condition = visit(conditionContexts.get(i));
+            if (!(condition instanceof LiteralNode)) {
+                conditions.add(condition);
+                blocks.add(visitBlock(blockContexts.get(i)));
+            } else if (Operations.toBoolean(((LiteralNode) condition).getValue())) {
+                elseBlock = visitBlock(blockContexts.get(i));
+                resolved = true;
+            }
+        }
+        if (!resolved && ctx.elseStatement() != null) {
+            elseBlock = visitBlock(ctx.elseStatement().block());
+        }
+        // Kept even when nothing is left, so that the statement's position is still recorded
+        return probe(new IfNode(conditions.toArray(new Node[0]), blocks.toArray(new Node[0]), elseBlock,
+            line(ctx), column(ctx)));
+    }
+
+    @Override
+    public Node visitForStatement(vg_langParser.ForStatementContext ctx) {
+        List<String> loopVariables = new ArrayList<>();
+        if (ctx.forInit() != null && ctx.forInit().variableDeclarationNoSemi() != null) {
+            loopVariables.add(ctx.forInit().variableDeclarationNoSemi().IDENTIFIER().getText());
+        }
+
+        FrameDescriptor frame = declareScope(loopVariables, ctx.block().statement());
+        scopes.add(frame);
+        try {
+            Node init = ctx.forInit() != null ? visit(ctx.forInit().getChild(0)) : null;
+            Node condition = ctx.forCondition() != null ? visit(ctx.forCondition().expression()) : null;
+            Node update = ctx.forUpdate() != null ? visit(ctx.forUpdate().assignmentNoSemi()) : null;
+            Node body = visitBlock(ctx.block());
+            Node counted = countedLoop(init, condition, update, body, frame, ctx);
+            if (counted != null) {
+                return counted;
+            }
+            return new ForNode(init, condition, update, body, frame, profile, line(ctx), column(ctx));
+        } finally {
+            scopes.remove(scopes.size() - 1);
+        }
+    }
+
+    @Override
+    public Node visitForEachStatement(vg_langParser.ForEachStatementContext ctx) {
+        String itemVariable = ctx.IDENTIFIER().getText();
+        // The collection is evaluated before the loop scope is pushed
+        Node collection = visit(ctx.expression());
+
+        FrameDescriptor frame = declareScope(Collections.singletonList(itemVariable), ctx.block().statement());
+        scopes.add(frame);
+        try {
+            return new ForEachNode(itemVariable, collection, visitBlock(ctx.block()), frame, line(ctx), column(ctx));
+        } finally {
+            scopes.remove(scopes.size() - 1);
+        }
+    }
+
+    @Override
+    public Node visitWhileStatement(vg_langParser.WhileStatementContext ctx) {
+        return new WhileNode(visit(ctx.expression()), visitBlock(ctx.block()), profile, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitDoWhileStatement(vg_langParser.DoWhileStatementContext ctx) {
+        return new DoWhileNode(visitBlock(ctx.block()), visit(ctx.expression()), profile, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitSwitchStatement(vg_langParser.SwitchStatementContext ctx) {
+        List<vg_langParser.SwitchCaseContext> cases = ctx.switchCase();
+        Node[] caseValues = new Node[cases.size()];
+        Node[][] caseBodies = new Node[cases.size()][];
+        for (int i = 0; i < cases.size(); i++) {
+            caseValues[i] = visit(cases.get(i).expression());
+            caseBodies[i] = buildStatements(cases.get(i).statement());
+        }
+
+        Node[] defaultBody = ctx.defaultCase() != null ? buildStatements(ctx.defaultCase().statement()) : null;
+        return new SwitchNode(visit(ctx.expression()), caseValues, caseBodies, defaultBody, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitBreakStatement(vg_langParser.BreakStatementContext ctx) {
+        return new BreakNode(line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitContinueStatement(vg_langParser.ContinueStatementContext ctx) {
+        return new ContinueNode(line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitReturnStatement(vg_langParser.ReturnStatementContext ctx) {
+        Node value = ctx.expression() != null ? visit(ctx.expression()) : null;
+        return new ReturnNode(value, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitThrowStatement(vg_langParser.ThrowStatementContext ctx) {
+        return new ThrowNode(visit(ctx.expression()), line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitTryStatement(vg_langParser.TryStatementContext ctx) {
+        // The first catch clause handles every error, so later clauses are unreachable
+        vg_langParser.CatchStatementContext catchCtx = ctx.catchStatement(0);
+        String catchVariable = catchCtx.IDENTIFIER().getText();
+        Node body = visitBlock(ctx.block());
+        Node finallyBody = ctx.finallyStatement() != null ? visitBlock(ctx.finallyStatement().block()) : null;
+
+        FrameDescriptor catchFrame = declareScope(Collections.singletonList(catchVariable), catchCtx.block().statement());
+        scopes.add(catchFrame);
+        try {
+            return new TryNode(body, catchVariable, visitBlock(catchCtx.block()), catchFrame, finallyBody,
+                line(ctx), column(ctx));
+        } finally {
+            scopes.remove(scopes.size() - 1);
+        }
+    }
+
+    @Override
+    public Node visitLibraryDeclaration(vg_langParser.LibraryDeclarationContext ctx) {
+        return new DeclarationNode(ctx, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitImportStatement(vg_langParser.ImportStatementContext ctx) {
+        return new DeclarationNode(ctx, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitStructDeclaration(vg_langParser.StructDeclarationContext ctx) {
+        return new DeclarationNode(ctx, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitEnumDeclaration(vg_langParser.EnumDeclarationContext ctx) {
+        return new DeclarationNode(ctx, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitClassDeclaration(vg_langParser.ClassDeclarationContext ctx) {
+        return new DeclarationNode(ctx, line(ctx), column(ctx));
+    }
+
+    // Expressions
+
+    @Override
+    public Node visitExpression(vg_langParser.ExpressionContext ctx) {
+        return visit(ctx.getChild(0));
+    }
+
+    @Override
+    public Node visitFunctionReference(vg_langParser.FunctionReferenceContext ctx) {
+        Node[] capturedArguments = ctx.argumentList() != null
+            ? buildExpressions(ctx.argumentList().expression())
+            : new Node[0];
+        return new FunctionReferenceNode(ctx.qualifiedIdentifier().getText(), capturedArguments,
+            line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitLogicalOrExpression(vg_langParser.LogicalOrExpressionContext ctx) {
+        if (ctx.logicalAndExpression().size() == 1) {
+            return visit(ctx.logicalAndExpression(0));
+        }
+        Node[] operands = buildOperands(ctx.logicalAndExpression());
+        return fold(new LogicalOrNode(operands, line(ctx), column(ctx)), operands);
+    }
+
+    @Override
+    public Node visitLogicalAndExpression(vg_langParser.LogicalAndExpressionContext ctx) {
+        if (ctx.equalityExpression().size() == 1) {
+            return visit(ctx.equalityExpression(0));
+        }
+        Node[] operands = buildOperands(ctx.equalityExpression());
+        return fold(new LogicalAndNode(operands, line(ctx), column(ctx)), operands);
+    }
+
+    @Override
+    public Node visitEqualityExpression(vg_langParser.EqualityExpressionContext ctx) {
+        Node left = visit(ctx.relationalExpression(0));
+        for (int i = 1; i < ctx.relationalExpression().size(); i++) {
+            BinaryOperator operator = BinaryOperator.fromSymbol(ctx.getChild(2 * i - 1).getText());
+            Node right = visit(ctx.relationalExpression(i));
+            left = fold(new EqualityNode(operator, left, right, line(ctx), column(ctx)), left, right);
+        }
+        return left;
+    }
+
+    @Override
+    public Node visitRelationalExpression(vg_langParser.RelationalExpressionContext ctx) {
+        Node left = visit(ctx.additiveExpression(0));
+        for (int i = 1; i < ctx.additiveExpression().size(); i++) {
+            BinaryOperator operator = BinaryOperator.fromSymbol(ctx.getChild(2 * i - 1).getText());
+            Node right = visit(ctx.additiveExpression(i));
+            left = fold(new RelationalNode(operator, left, right, line(ctx), column(ctx)), left, right);
+        }
+        return left;
+    }
+
+    @Override
+    public Node visitAdditiveExpression(vg_langParser.AdditiveExpressionContext ctx) {
+        Node left = visit(ctx.multiplicativeExpression(0));
+        for (int i = 1; i < ctx.multiplicativeExpression().size(); i++) {
+            BinaryOperator operator = BinaryOperator.fromSymbol(ctx.getChild(2 * i - 1).getText());
+            Node right = visit(ctx.multiplicativeExpression(i));
+            left = fold(new ArithmeticNode(operator, left, right, line(ctx), column(ctx)), left, right);
+        }
+        return left;
+    }
+
+    @Override
+    public Node visitMultiplicativeExpression(vg_langParser.MultiplicativeExpressionContext ctx) {
+        Node left = visit(ctx.unaryExpression(0));
+        for (int i = 1; i < ctx.unaryExpression().size(); i++) {
+            BinaryOperator operator = BinaryOperator.fromSymbol(ctx.getChild(2 * i - 1).getText());
+            Node right = visit(ctx.unaryExpression(i));
+            left = fold(new ArithmeticNode(operator, left, right, line(ctx), column(ctx)), left, right);
+        }
+        return left;
+    }
+
+    @Override
+    public Node visitUnaryExpression(vg_langParser.UnaryExpressionContext ctx) {
+        if (ctx.unaryExpression() == null) {
+            return visit(ctx.postfixExpression());
+        }
+        UnaryOperator operator = UnaryOperator.fromSymbol(ctx.getChild(0).getText());
+        Node operand = visit(ctx.unaryExpression());
+        return fold(new UnaryNode(operator, operand, line(ctx), column(ctx)), operand);
+    }
+
+    @Override
+    public Node visitPostfixExpression(vg_langParser.PostfixExpressionContext ctx) {
+        Node node = visit(ctx.primary());
+
+        for (vg_langParser.PostfixOpContext opCtx : ctx.postfixOp()) {
+            String opText = opCtx.getChild(0).getText();
+            int line = line(opCtx);
+            int column = column(opCtx);
+
+            if (".".equals(opText)) {
+                node = new MemberAccessNode(node, opCtx.IDENTIFIER().getText(), line, column);
+            } else if ("(".equals(opText)) {
+                Node[] arguments = opCtx.argumentList() != null
+                    ? buildExpressions(opCtx.argumentList().expression())
+                    : new Node[0];
+                node = new CallNode(node, arguments, line, column);
+            } else if ("[".equals(opText)) {
+                node = new IndexNode(node, visit(opCtx.expression()), line, column);
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public Node visitPrimary(vg_langParser.PrimaryContext ctx) {
+        if (ctx.literal() != null) {
+            return visit(ctx.literal());
+        } else if (ctx.IDENTIFIER() != null) {
+            String name = ctx.IDENTIFIER().getText();
+            int depth = resolveDepth(name);
+            if (depth >= 0 && frameAt(depth) == bodyFrame && constantLocals.containsKey(name)) {
+                return new LiteralNode(constantLocals.get(name), line(ctx), column(ctx));
+            }
+            if (depth >= 0) {
+                return new LocalVariableNode(name, depth, frameAt(depth).getSlot(name), line(ctx), column(ctx));
+            }
+            return new VariableNode(name, line(ctx), column(ctx));
+        } else if (ctx.expression() != null) {
+            return visit(ctx.expression());
+        } else if (ctx.functionCall() != null) {
+            return visit(ctx.functionCall());
+        } else if (ctx.newExpression() != null) {
+            return visit(ctx.newExpression());
+        }
+        return new ThisNode(line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitFunctionCall(vg_langParser.FunctionCallContext ctx) {
+        Node[] arguments = ctx.argumentList() != null
+            ? buildExpressions(ctx.argumentList().expression())
+            : new Node[0];
+        return new FunctionCallNode(ctx.IDENTIFIER().getText(), arguments, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitNewExpression(vg_langParser.NewExpressionContext ctx) {
+        Node[] arguments = ctx.argumentList() != null
+            ? buildExpressions(ctx.argumentList().expression())
+            : new Node[0];
+        return new NewNode(ctx.IDENTIFIER().getText(), arguments, line(ctx), column(ctx));
+    }
+
+    @Override
+    public Node visitLiteral(vg_langParser.LiteralContext ctx) {
+        if (ctx.INT() != null) {
+            return buildIntegerLiteral(ctx.INT());
+        } else if (ctx.DOUBLE() != null) {
+            return new LiteralNode(intern(Double.parseDouble(ctx.DOUBLE().getText())), line(ctx), column(ctx));
+        } else if (ctx.STRING_LITERAL() != null) {
+            return buildStringLiteral(ctx.STRING_LITERAL());
+        } else if (ctx.TRUE() != null) {
+            return new LiteralNode(true, line(ctx), column(ctx));
+        } else if (ctx.FALSE() != null) {
+            return new LiteralNode(false, line(ctx), column(ctx));
+        } else if (ctx.arrayLiteral() != null) {
+            return visit(ctx.arrayLiteral());
+        }
+        return new LiteralNode(null, line(ctx), column(ctx));
+    }
+
+    /** Returns the value of an equal literal lowered before, or {@code value} if there is none. */
+    private Object intern(Object value) {
+        Object known = literals.putIfAbsent(value, value);
+        return known != null ? known : value;
+    }
+
+    @Override
+    public Node visitArrayLiteral(vg_langParser.ArrayLiteralContext ctx) {
+        return new ArrayLiteralNode(buildExpressions(ctx.expression()), line(ctx), column(ctx));
+    }
+
+    // Scope resolution
+
+    /**
+     * Lays out a scope that starts with {@code bound} names and runs
+     * {@code statements}. Returns null if the statements declare something
+     * whose name is only known at run time, such as an import.
+     */
+    private FrameDescriptor declareScope(List<String> bound, List<vg_langParser.StatementContext> statements) {
+        Set<String> locals = new LinkedHashSet<>();
+        if (!collectDeclarations(statements, locals)) {
+            return null;
+        }
+        return new FrameDescriptor(bound, locals);
+    }
+
+    /**
+     * Adds the names that {@code statements} declare in their own scope,
+     * including inside blocks that do not push a scope of their own.
+     * Returns false if a declaration cannot be resolved statically.
+     */
+    private boolean collectDeclarations(List<vg_langParser.StatementContext> statements, Set<String> names) {
+        for (vg_langParser.StatementContext stmtCtx : statements) {
+            if (stmtCtx.variableDeclaration() != null) {
+                names.add(stmtCtx.variableDeclaration().IDENTIFIER().getText());
+            } else if (stmtCtx.constDeclaration() != null) {
+                names.add(stmtCtx.constDeclaration().IDENTIFIER().getText());
+            } else if (stmtCtx.importStatement() != null || stmtCtx.structDeclaration() != null
+                    || stmtCtx.enumDeclaration() != null || stmtCtx.classDeclaration() != null) {
+                return false;
+            } else if (stmtCtx.ifStatement() != null) {
+                vg_langParser.IfStatementContext ifCtx = stmtCtx.ifStatement();
+                List<vg_langParser.BlockContext> blocks = new ArrayList<>();
+                blocks.add(ifCtx.ifBlock);
+                for (vg_langParser.ElseIfStatementContext elifCtx : ifCtx.elseIfStatement()) {
+                    blocks.add(elifCtx.block());
+                }
+                if (ifCtx.elseStatement() != null) {
+                    blocks.add(ifCtx.elseStatement().block());
+                }
+                for (vg_langParser.BlockContext block : blocks) {
+                    if (!collectDeclarations(block.statement(), names)) {
+                        return false;
+                    }
+                }
+            } else if (stmtCtx.whileStatement() != null) {
+                if (!collectDeclarations(stmtCtx.whileStatement().block().statement(), names)) {
+                    return false;
+                }
+            } else if (stmtCtx.doWhileStatement() != null) {
+                if (!collectDeclarations(stmtCtx.doWhileStatement().block().statement(), names)) {
+                    return false;
+                }
+            } else if (stmtCtx.switchStatement() != null) {
+                vg_langParser.SwitchStatementContext switchCtx = stmtCtx.switchStatement();
+                for (vg_langParser.SwitchCaseContext caseCtx : switchCtx.switchCase()) {
+                    if (!collectDeclarations(caseCtx.statement(), names)) {
+                        return false;
+                    }
+                }
+                if (switchCtx.defaultCase() != null
+                        && !collectDeclarations(switchCtx.defaultCase().statement(), names)) {
+                    return false;
+                }
+            } else if (stmtCtx.tryStatement() != null) {
+                // Catch clauses push their own scope; the try and finally blocks do not
+                vg_langParser.TryStatementContext tryCtx = stmtCtx.tryStatement();
+                if (!collectDeclarations(tryCtx.block().statement(), names)) {
+                    return false;
+                }
+                if (tryCtx.finallyStatement() != null
+                        && !collectDeclarations(tryCtx.finallyStatement().block().statement(), names)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns how many scopes below the innermost one declare {@code name},
+     * or -1 if it has to be looked up by name.
+     */
+    private int resolveDepth(String name) {
+        for (int depth = 0; depth < scopes.size(); depth++) {
+            FrameDescriptor frame = frameAt(depth);
+            if (frame == null) {
+                return -1;
+            }
+            if (frame.getSlot(name) >= 0) {
+                return depth;
+            }
+        }
+        return -1;
+    }
+
+    private FrameDescriptor frameAt(int depth) {
+        return scopes.get(scopes.size() - 1 - depth);
+    }
+
+    /**
+     * Slot that a declaration of {@code name} writes to in the innermost scope.
+     */
+    private int declaredSlot(String name) {
+        if (scopes.isEmpty() || frameAt(0) == null) {
+            return -1;
+        }
+        return frameAt(0).getSlot(name);
+    }
+
+    // Constants
+
+    /**
+     * Replaces an operator node whose operands are all literals by the
+     * literal it evaluates to; such a node never reads the interpreter. An
+     * operation that fails, such as a division by zero, is left to fail when
+     * the script runs.
+     */
+    private static Node fold(Node node, Node... operands) {
+        for (Node operand : operands) {
+            if (!(operand instanceof LiteralNode)) {
+                return node;
+            }
+        }
+        try {
+            return new LiteralNode(node.execute(null), node.getLine(), node.getColumn());
+        } catch (RuntimeException e) {
+            return node;
+        }
+    }
+
+    private void recordConstant(String name, Node value) {
+        if (value instanceof LiteralNode && constantCandidates.contains(name)) {
+            constantLocals.put(name, ((LiteralNode) value).getValue());
+        }
+    }
+
+    /**
+     * Returns the names declared directly in {@code body} whose value can be
+     * propagated: each is declared once, in a statement of the body itself,
+     * and is otherwise only read. Scoping is dynamic, so any callee could
+     * assign a caller's local; a body that makes calls has no candidates.
+     */
+    private static Set<String> findConstantCandidates(vg_langParser.BlockContext body) {
+        Set<String> candidates = new HashSet<>();
+        Set<String> redeclared = new HashSet<>();
+        Set<ParseTree> declarations = new HashSet<>();
+        for (vg_langParser.StatementContext statement : body.statement()) {
+            ParserRuleContext declaration = statement.variableDeclaration() != null
+                ? statement.variableDeclaration()
+                : statement.constDeclaration();
+            if (declaration != null) {
+                TerminalNode name = declaration.getToken(vg_langParser.IDENTIFIER, 0);
+                if (!candidates.add(name.getText())) {
+                    redeclared.add(name.getText());
+                }
+                declarations.add(name);
+            }
+        }
+        candidates.removeAll(redeclared);
+        if (candidates.isEmpty() || makesCall(body)) {
+            return Collections.emptySet();
+        }
+        removeWritten(body, candidates, declarations);
+        return candidates;
+    }
+
+    private static boolean makesCall(ParseTree tree) {
+        if (tree instanceof vg_langParser.FunctionCallContext || tree instanceof vg_langParser.NewExpressionContext
+                || tree instanceof vg_langParser.PostfixOpContext && "(".equals(tree.getChild(0).getText())) {
+            return true;
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            if (makesCall(tree.getChild(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes from {@code names} every name that {@code tree} uses other than
+     * as a plain read or one of {@code declarations}.
+     */
+    private static void removeWritten(ParseTree tree, Set<String> names, Set<ParseTree> declarations) {
+        if (tree instanceof TerminalNode) {
+            TerminalNode terminal = (TerminalNode) tree;
+            if (terminal.getSymbol().getType() == vg_langParser.IDENTIFIER
+                    && !(terminal.getParent() instanceof vg_langParser.PrimaryContext)
+                    && !declarations.contains(terminal)) {
+                names.remove(terminal.getText());
+            }
+            return;
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            removeWritten(tree.getChild(i), names, declarations);
+        }
+    }
+
+    private static boolean onlyReads(ParseTree tree, String name) {
+        Set<String> names = new HashSet<>(Collections.singleton(name));
+        removeWritten(tree, names, Collections.<ParseTree>emptySet());
+        return !names.isEmpty();
+    }
+
+    // Loops
+
+    /**
+     * Returns a {@link CountedForNode} for a loop of the shape
+     * {@code for (var i = a; i < n; i = i + k)} whose body only reads
+     * {@code i}, or null for any other loop. The limit counts as invariant if
+     * it is a literal, or a variable the body only reads and that no call
+     * could assign.
+     */
+    private Node countedLoop(Node init, Node condition, Node update, Node body, FrameDescriptor frame,
+                             vg_langParser.ForStatementContext ctx) {
+        if (!(init instanceof VariableDeclarationNode) || !(condition instanceof RelationalNode)
+                || !(update instanceof AssignmentNode)) {
+            return null;
+        }
+        VariableDeclarationNode declaration = (VariableDeclarationNode) init;
+        String name = declaration.getName();
+        if (declaration.isConstant() || declaration.getSlot() < 0
+                || !isCounter(((RelationalNode) condition).getLeft(), name)) {
+            return null;
+        }
+
+        LeftHandSideNode target = ((AssignmentNode) update).getTarget();
+        Node value = ((AssignmentNode) update).getValue();
+        if (target.getKind() != LeftHandSideNode.Kind.VARIABLE || !name.equals(target.getName())
+                || target.getIndices().length != 0 || target.getDepth() != 0 || !(value instanceof ArithmeticNode)) {
+            return null;
+        }
+        ArithmeticNode next = (ArithmeticNode) value;
+        BinaryOperator operator = next.getOperator();
+        if (operator != BinaryOperator.ADD && operator != BinaryOperator.SUBTRACT || !isCounter(next.getLeft(), name)
+                || !(next.getRight() instanceof LiteralNode)
+                || !(((LiteralNode) next.getRight()).getValue() instanceof Integer)) {
+            return null;
+        }
+        int step = (Integer) ((LiteralNode) next.getRight()).getValue();
+        if (!onlyReads(ctx.block(), name)) {
+            return null;
+        }
+
+        Node limit = ((RelationalNode) condition).getRight();
+        boolean invariant = limit instanceof LiteralNode
+            || limit instanceof VariableNode && !name.equals(((VariableNode) limit).getName())
+                && !makesCall(ctx.block()) && onlyReads(ctx.block(), ((VariableNode) limit).getName());
+        return new CountedForNode(init, (RelationalNode) condition, (AssignmentNode) update, body, frame, profile,
+            invariant, operator == BinaryOperator.ADD ? step : -step, line(ctx), column(ctx));
+    }
+
+    private static boolean isCounter(Node node, String name) {
+        return node instanceof LocalVariableNode && name.equals(((LocalVariableNode) node).getName())
+            && ((LocalVariableNode) node).getDepth() == 0;
+    }
+
+    // Helpers
+
+    private Node probe(Node statement) {
+        return instrumented ? new ProbeNode(statement) : statement;
+    }
+
+    private Node buildIntegerLiteral(TerminalNode literal) {
+        Token token = literal.getSymbol();
+        try {
+            return new LiteralNode(intern(Integer.parseInt(literal.getText())), token.getLine(),
+                token.getCharPositionInLine());
+        } catch (NumberFormatException e) {
+            // Out of range: reported when the literal is evaluated, not when the script is loaded
+            return new SyntaxErrorNode("Invalid integer literal: " + literal.getText(),
+                token.getLine(), token.getCharPositionInLine());
+        }
+    }
+
+    private Node buildStringLiteral(TerminalNode literal) {
+        Token token = literal.getSymbol();
+        String rawString = literal.getText();
+        try {
+            String unescapedString = unescapeString(rawString.substring(1, rawString.length() - 1), token);
+            return new LiteralNode(intern(unescapedString), token.getLine(), token.getCharPositionInLine());
+        } catch (StringIndexOutOfBoundsException e) {
+            throw ErrorHandler.createMissingQuoteError(token);
+        } catch (RuntimeException e) {
+            // Reported when the literal is evaluated, not when the script is loaded
+            return new SyntaxErrorNode("Invalid string literal: " + e.getMessage(),
+                token.getLine(), token.getCharPositionInLine());
+        }
+    }
+
+    private String unescapeString(String str, Token token) {
+        StringBuilder result = new StringBuilder();
+        boolean inEscape = false;
+
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+
+            if (inEscape) {
+                switch (c) {
+                    case 'n': result.append('\n'); break;
+                    case 'r': result.append('\r'); break;
+                    case 't': result.append('\t'); break;
+                    case '\\': result.append('\\'); break;
+                    case '"': result.append('"'); break;
+                    case '\'': result.append('\''); break;
+                    default:
+                        throw new ErrorHandler.VGSyntaxException(
+                            "Invalid escape sequence in string: \\" + c,
+                            token.getLine(), token.getCharPositionInLine());
+                }
+                inEscape = false;
+            } else if (c == '\\') {
+                inEscape = true;
+            } else {
+                result.append(c);
+            }
+        }
+
+        if (inEscape) {
+            throw new ErrorHandler.VGSyntaxException(
+                "String ends with incomplete escape sequence",
+                token.getLine(), token.getCharPositionInLine());
+        }
+
+        return result.toString();
+    }
+
+    private Node[] buildStatements(List<vg_langParser.StatementContext> statements) {
+        List<Node> nodes = new ArrayList<>(statements.size());
+        for (vg_langParser.StatementContext stmtCtx : statements) {
+            Node node = visit(stmtCtx);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        return nodes.toArray(new Node[0]);
+    }
+
+    private Node[] buildExpressions(List<vg_langParser.ExpressionContext> expressions) {
+        return buildOperands(expressions);
+    }
+
+    private Node[] buildOperands(List<? extends ParserRuleContext> operands) {
+        Node[] nodes = new Node[operands.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = visit(operands.get(i));
+        }
+        return nodes;
+    }
+
+    private List<String> getParameters(vg_langParser.ParameterListContext paramCtx) {
+        List<String> params = new ArrayList<>();
+        if (paramCtx != null) {
+            for (TerminalNode id : paramCtx.IDENTIFIER()) {
+                params.add(id.getText());
+            }
+        }
+        return params;
+    }
+
+    private static int line(ParserRuleContext ctx) {
+        return ctx.getStart() != null ? ctx.getStart().getLine() : 0;
+    }
+
+    private static int column(ParserRuleContext ctx) {
+        return ctx.getStart() != null ? ctx.getStart().getCharPositionInLine() : 0;
+    }
+}
@@ -0,0 +1,224 @@
+package components.nodes;
+
+import components.*;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Value semantics shared by the executable nodes: truthiness, operators and
+ * the type names used in error messages.
+ */
+public final class Operations {
+    private Operations() {
+    }
+
+    public static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        }
+        if (value instanceof String) {
+            return !((String) value).isEmpty();
+        }
+        return value != null;
+    }
+
+    public static Object arithmetic(BinaryOperator operator, Object left, Object right) {
+        if (left instanceof List || right instanceof List) {
+            throw new RuntimeException("Cannot perform arithmetic operations on arrays.");
+        }
+        if (left instanceof String || right instanceof String) {
+            if (operator == BinaryOperator.ADD) {
+                return String.valueOf(left) + String.valueOf(right);
+            } else {
+                throw new RuntimeException("Invalid operator '" + operator.getSymbol() + "' for string operands.");
+            }
+        }
+
+        if (!(left instanceof Number) || !(right instanceof Number)) {
+            throw new RuntimeException("Invalid operands for operator '" + operator.getSymbol() + "'.");
+        }
+
+        Number leftNum = (Number) left;
+        Number rightNum = (Number) right;
+        if (leftNum instanceof Double || rightNum instanceof Double) {
+            return doubleArithmetic(operator, leftNum.doubleValue(), rightNum.doubleValue());
+        }
+        return intArithmetic(operator, leftNum.intValue(), rightNum.intValue());
+    }
+
+    /**
+     * {@link #arithmetic} for two ints, for callers that have already
+     * checked the operand types.
+     */
+    public static int intArithmetic(BinaryOperator operator, int left, int right) {
+        switch (operator) {
+            case ADD:
+                return left + right;
+            case SUBTRACT:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            case DIVIDE:
+                if (right == 0) {
+                    throw new RuntimeException("Division by zero");
+                }
+                return left / right;
+            case MODULO:
+                return left % right;
+            default:
+                throw new RuntimeException("Unknown operator '" + operator.getSymbol() + "'.");
+        }
+    }
+
+    /**
+     * {@link #arithmetic} for two numbers of which at least one is a double.
+     */
+    public static double doubleArithmetic(BinaryOperator operator, double left, double right) {
+        switch (operator) {
+            case ADD:
+                return left + right;
+            case SUBTRACT:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            case DIVIDE:
+                if (right == 0) {
+                    throw new RuntimeException("Division by zero");
+                }
+                return left / right;
+            case MODULO:
+                return left % right;
+            default:
+                throw new RuntimeException("Unknown operator '" + operator.getSymbol() + "'.");
+        }
+    }
+
+    public static boolean compare(BinaryOperator operator, Object left, Object right) {
+        if (!(left instanceof Number) || !(right instanceof Number)) {
+            throw new RuntimeException("Operands must be numbers.");
+        }
+        return compare(operator, ((Number) left).doubleValue(), ((Number) right).doubleValue());
+    }
+
+    /**
+     * {@link #compare} for numbers already unboxed. Every int is exact as a
+     * double, so this serves int operands too.
+     */
+    public static boolean compare(BinaryOperator operator, double left, double right) {
+        switch (operator) {
+            case LESS:
+                return left < right;
+            case LESS_EQUAL:
+                return left <= right;
+            case GREATER:
+                return left > right;
+            case GREATER_EQUAL:
+                return left >= right;
+            default:
+                throw new RuntimeException("Unknown operator: " + operator.getSymbol());
+        }
+    }
+
+    public static boolean equality(BinaryOperator operator, Object left, Object right) {
+        switch (operator) {
+            case EQUAL:
+                return Objects.equals(left, right);
+            case NOT_EQUAL:
+                return !Objects.equals(left, right);
+            default:
+                throw new RuntimeException("Unknown operator: " + operator.getSymbol());
+        }
+    }
+
+    public static Object unary(UnaryOperator operator, Object value) {
+        switch (operator) {
+            case PLUS:
+                if (!(value instanceof Number)) {
+                    throw new RuntimeException("Unary '+' operator requires a numeric operand.");
+                }
+                return value;
+            case NEGATE:
+                if (!(value instanceof Number)) {
+                    throw new RuntimeException("Unary '-' operator requires a numeric operand.");
+                }
+                if (value instanceof Integer) {
+                    return -((Integer) value);
+                } else if (value instanceof Double) {
+                    return -((Double) value);
+                }
+                return null;
+            case NOT:
+                return !toBoolean(value);
+            default:
+                throw new RuntimeException("Unknown unary operator '" + operator.getSymbol() + "'.");
+        }
+    }
+
+    public static String typeName(Object value) {
+        if (value == null) return "null";
+        if (value instanceof Integer) return "int";
+        if (value instanceof Double) return "double";
+        if (value instanceof Boolean) return "boolean";
+        if (value instanceof String) return "string";
+        if (value instanceof List) return "array";
+        if (value instanceof Map) return "struct";
+        if (value instanceof Function) return "function";
+        if (value instanceof Namespace) return "namespace";
+        if (value instanceof Library) return "library";
+        if (value instanceof components.Enum) return "enum";
+        if (value instanceof ClassDefinition) return "class";
+        if (value instanceof ClassInstance) return ((ClassInstance) value).getClassName();
+        if (value instanceof MethodReference) return "method";
+        if (value instanceof StaticMethodReference) return "static_method";
+
+        String className = value.getClass().getName();
+        if (className.startsWith("java.")) {
+            return className.substring(className.lastIndexOf('.') + 1).toLowerCase();
+        }
+        return value.getClass().getSimpleName().toLowerCase();
+    }
+
+    /**
+     * Finds the innermost scope that defines {@code name}, or null if none does.
+     */
+    public static SymbolTable findScope(Interpreter interpreter, String name) {
+        SymbolTable global = interpreter.getSymbolTableStack().getLast();
+        if (!global.isLocalName(name)) {
+            // Never bound outside the global scope, so skip the walk down the call stack
+            return global.contains(name) ? global : null;
+        }
+        for (SymbolTable table : interpreter.getSymbolTableStack()) {
+            if (table.contains(name)) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the scope {@code depth} levels below the top of the stack, as
+     * computed for a name resolved at lowering time.
+     */
+    public static SymbolTable scopeAt(Interpreter interpreter, int depth) {
+        if (depth == 0) {
+            return interpreter.getSymbolTableStack().peek();
+        }
+        Iterator<SymbolTable> scopes = interpreter.getSymbolTableStack().iterator();
+        for (int i = 0; i < depth; i++) {
+            scopes.next();
+        }
+        return scopes.next();
+    }
+
+    public static RuntimeException ambiguousSymbol(String name) {
+        return new RuntimeException("Ambiguous symbol '" + name + "'. " +
+            "This symbol exists in multiple imported namespaces. " +
+            "Use 'namespace." + name + "' to specify which one you want.");
+    }
+}
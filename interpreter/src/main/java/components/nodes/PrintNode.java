@@ -0,0 +1,29 @@
+package components.nodes;
+
+import components.Interpreter;
+
+public class PrintNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node[] values;
+
+    public PrintNode(Node[] values, int line, int column) {
+        super(line, column);
+        this.values = values;
+    }
+
+    public Node[] getValues() {
+        return values;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        markPosition(interpreter);
+
+        StringBuilder output = new StringBuilder();
+        for (Node value : values) {
+            output.append(value.execute(interpreter)).append(" ");
+        }
+        System.out.println(output.toString().trim());
+        return null;
+    }
+}
@@ -0,0 +1,28 @@
+package components.nodes;
+
+import components.Interpreter;
+
+/**
+ * Debugger probe in front of a statement: gives the debugger the chance to
+ * pause, at a breakpoint or while stepping, before the statement runs.
+ * Only a {@link NodeBuilder} lowering for a debug session inserts these.
+ */
+public class ProbeNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node statement;
+
+    public ProbeNode(Node statement) {
+        super(statement.getLine(), statement.getColumn());
+        this.statement = statement;
+    }
+
+    public Node getStatement() {
+        return statement;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        interpreter.updatePosition(line, column);
+        return statement.execute(interpreter);
+    }
+}
@@ -0,0 +1,57 @@
+package components.nodes;
+
+import components.Interpreter;
+import components.vm.VmCode;
+import components.vm.VmCompiler;
+
+/**
+ * Top level of a script. Function declarations are hoisted so that code can
+ * call functions declared further down the file.
+ */
+public class ProgramNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node[] functionDeclarations;
+    private final Node[] statements;
+    // Register code, compiled on first use; kept when the program is cached
+    private VmCode vmCode;
+
+    public ProgramNode(Node[] functionDeclarations, Node[] statements) {
+        super(0, 0);
+        this.functionDeclarations = functionDeclarations;
+        this.statements = statements;
+    }
+
+    public Node[] getFunctionDeclarations() {
+        return functionDeclarations;
+    }
+
+    public Node[] getStatements() {
+        return statements;
+    }
+
+    /**
+     * Returns the register code for the top level, compiling it (and the
+     * bodies of the functions it declares) on first use, or null if the VM
+     * is switched off.
+     */
+    public VmCode getVmCode() {
+        if (!VmCompiler.isEnabled()) {
+            return null;
+        }
+        if (vmCode == null) {
+            vmCode = VmCompiler.compile(this);
+        }
+        return vmCode;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        for (Node declaration : functionDeclarations) {
+            declaration.execute(interpreter);
+        }
+        for (Node statement : statements) {
+            statement.execute(interpreter);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package components.nodes;
+
+import components.Interpreter;
+
+/**
+ * A numeric comparison. Like {@link ArithmeticNode} it specializes itself on
+ * int or double operands, and then reads them unboxed.
+ */
+public class RelationalNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final BinaryOperator operator;
+    private final Node left;
+    private final Node right;
+    private Specialization specialization = Specialization.UNINITIALIZED;
+
+    public RelationalNode(BinaryOperator operator, Node left, Node right, int line, int column) {
+        super(line, column);
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public BinaryOperator getOperator() {
+        return operator;
+    }
+
+    public Node getLeft() {
+        return left;
+    }
+
+    public Node getRight() {
+        return right;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        switch (specialization) {
+            case INT:
+                return compareInts(interpreter);
+            case DOUBLE:
+                return compareDoubles(interpreter);
+            case GENERIC:
+                return Operations.compare(operator, left.execute(interpreter), right.execute(interpreter));
+            default:
+                Object leftValue = left.execute(interpreter);
+                Object rightValue = right.execute(interpreter);
+                specialization = Specialization.of(leftValue, rightValue);
+                return Operations.compare(operator, leftValue, rightValue);
+        }
+    }
+
+    private boolean compareInts(Interpreter interpreter) {
+        int leftValue;
+        try {
+            leftValue = left.executeInt(interpreter);
+        } catch (UnexpectedResultException e) {
+            return generalize(e.getResult(), right.execute(interpreter));
+        }
+        int rightValue;
+        try {
+            rightValue = right.executeInt(interpreter);
+        } catch (UnexpectedResultException e) {
+            return generalize(leftValue, e.getResult());
+        }
+        return Operations.compare(operator, leftValue, rightValue);
+    }
+
+    private boolean compareDoubles(Interpreter interpreter) {
+        double leftValue;
+        try {
+            leftValue = left.executeDouble(interpreter);
+        } catch (UnexpectedResultException e) {
+            return generalize(e.getResult(), right.execute(interpreter));
+        }
+        double rightValue;
+        try {
+            rightValue = right.executeDouble(interpreter);
+        } catch (UnexpectedResultException e) {
+            return generalize(leftValue, e.getResult());
+        }
+        return Operations.compare(operator, leftValue, rightValue);
+    }
+
+    /** Deoptimizes: finishes this comparison generically and stays generic. */
+    private boolean generalize(Object leftValue, Object rightValue) {
+        specialization = Specialization.GENERIC;
+        return Operations.compare(operator, leftValue, rightValue);
+    }
+}
@@ -0,0 +1,24 @@
+package components.nodes;
+
+import components.Interpreter;
+import components.ReturnException;
+
+public class ReturnNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node value;
+
+    public ReturnNode(Node value, int line, int column) {
+        super(line, column);
+        this.value = value;
+    }
+
+    public Node getValue() {
+        return value;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Object returnValue = value != null ? value.execute(interpreter) : null;
+        throw new ReturnException(returnValue);
+    }
+}
@@ -0,0 +1,23 @@
+package components.nodes;
+
+/**
+ * Operand types an operator node has specialized itself on. A node starts
+ * out {@link #UNINITIALIZED}, picks a state from the first operands it sees,
+ * and falls back to {@link #GENERIC} for good once they stop matching.
+ */
+enum Specialization {
+    UNINITIALIZED,
+    INT,
+    DOUBLE,
+    GENERIC;
+
+    static Specialization of(Object left, Object right) {
+        if (left instanceof Integer && right instanceof Integer) {
+            return INT;
+        }
+        if (left instanceof Double && right instanceof Double) {
+            return DOUBLE;
+        }
+        return GENERIC;
+    }
+}
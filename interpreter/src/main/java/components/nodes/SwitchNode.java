@@ -0,0 +1,56 @@
+package components.nodes;
+
+import components.BreakException;
+import components.Interpreter;
+
+import java.util.Objects;
+
+/**
+ * A {@code switch} statement. Once a case matches, execution falls through
+ * every later case and the default until a {@code break}.
+ */
+public class SwitchNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node subject;
+    private final Node[] caseValues;
+    private final Node[][] caseBodies;
+    private final Node[] defaultBody;
+
+    public SwitchNode(Node subject, Node[] caseValues, Node[][] caseBodies, Node[] defaultBody,
+                      int line, int column) {
+        super(line, column);
+        this.subject = subject;
+        this.caseValues = caseValues;
+        this.caseBodies = caseBodies;
+        this.defaultBody = defaultBody;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        Object switchValue = subject.execute(interpreter);
+        boolean matched = false;
+
+        try {
+            for (int i = 0; i < caseValues.length; i++) {
+                // Case labels are evaluated even while falling through
+                Object caseValue = caseValues[i].execute(interpreter);
+                if (matched || Objects.equals(switchValue, caseValue)) {
+                    matched = true;
+                    executeAll(caseBodies[i], interpreter);
+                }
+            }
+            if (defaultBody != null) {
+                executeAll(defaultBody, interpreter);
+            }
+        } catch (BreakException e) {
+            // Break out of switch
+        }
+        return null;
+    }
+
+    private static void executeAll(Node[] statements, Interpreter interpreter) {
+        for (Node statement : statements) {
+            statement.execute(interpreter);
+        }
+    }
+}
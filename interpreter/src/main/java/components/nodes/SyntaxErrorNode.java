@@ -0,0 +1,24 @@
+package components.nodes;
+
+import components.ErrorHandler;
+import components.Interpreter;
+
+/**
+ * Stands in for source that could not be lowered, such as a string literal
+ * with an unsupported escape. The error is only raised if the code runs,
+ * matching when the visitor used to report it.
+ */
+public class SyntaxErrorNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final String message;
+
+    public SyntaxErrorNode(String message, int line, int column) {
+        super(line, column);
+        this.message = message;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        throw new ErrorHandler.VGSyntaxException(message, line, column);
+    }
+}
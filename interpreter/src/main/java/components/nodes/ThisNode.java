@@ -0,0 +1,21 @@
+package components.nodes;
+
+import components.Interpreter;
+import components.SymbolTable;
+
+public class ThisNode extends Node {
+    private static final long serialVersionUID = 1L;
+
+    public ThisNode(int line, int column) {
+        super(line, column);
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        SymbolTable table = Operations.findScope(interpreter, "this");
+        if (table == null) {
+            throw new RuntimeException("'this' can only be used within a class method or constructor");
+        }
+        return table.get("this");
+    }
+}
@@ -0,0 +1,22 @@
+package components.nodes;
+
+import components.Interpreter;
+
+public class ThrowNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node value;
+
+    public ThrowNode(Node value, int line, int column) {
+        super(line, column);
+        this.value = value;
+    }
+
+    public Node getValue() {
+        return value;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        throw new RuntimeException((String) value.execute(interpreter));
+    }
+}
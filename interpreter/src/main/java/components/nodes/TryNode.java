@@ -0,0 +1,51 @@
+package components.nodes;
+
+import components.FrameDescriptor;
+import components.Interpreter;
+import components.SymbolTable;
+
+/**
+ * A {@code try} statement. Only the first catch clause can ever run, since
+ * the language has no typed catches; it binds the error message to its
+ * variable in a fresh scope.
+ */
+public class TryNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node body;
+    private final String catchVariable;
+    private final Node catchBody;
+    private final Node finallyBody;
+    private final FrameDescriptor catchFrame;
+
+    public TryNode(Node body, String catchVariable, Node catchBody, FrameDescriptor catchFrame, Node finallyBody,
+                   int line, int column) {
+        super(line, column);
+        this.catchFrame = catchFrame;
+        this.body = body;
+        this.catchVariable = catchVariable;
+        this.catchBody = catchBody;
+        this.finallyBody = finallyBody;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        try {
+            body.execute(interpreter);
+        } catch (RuntimeException e) {
+            SymbolTable catchScope = new SymbolTable(catchFrame, interpreter.getGlobalSymbolTable());
+            catchScope.set(catchVariable, e.getMessage() != null ? e.getMessage() : "An error occurred");
+
+            interpreter.getSymbolTableStack().push(catchScope);
+            try {
+                catchBody.execute(interpreter);
+            } finally {
+                interpreter.getSymbolTableStack().pop();
+            }
+        } finally {
+            if (finallyBody != null) {
+                finallyBody.execute(interpreter);
+            }
+        }
+        return null;
+    }
+}
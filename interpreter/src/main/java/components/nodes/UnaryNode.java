@@ -0,0 +1,28 @@
+package components.nodes;
+
+import components.Interpreter;
+
+public class UnaryNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final UnaryOperator operator;
+    private final Node operand;
+
+    public UnaryNode(UnaryOperator operator, Node operand, int line, int column) {
+        super(line, column);
+        this.operator = operator;
+        this.operand = operand;
+    }
+
+    public UnaryOperator getOperator() {
+        return operator;
+    }
+
+    public Node getOperand() {
+        return operand;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        return Operations.unary(operator, operand.execute(interpreter));
+    }
+}
@@ -0,0 +1,26 @@
+package components.nodes;
+
+public enum UnaryOperator {
+    PLUS("+"),
+    NEGATE("-"),
+    NOT("!");
+
+    private final String symbol;
+
+    UnaryOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public static UnaryOperator fromSymbol(String symbol) {
+        for (UnaryOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        throw new RuntimeException("Unknown unary operator '" + symbol + "'.");
+    }
+}
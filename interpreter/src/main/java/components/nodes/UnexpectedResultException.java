@@ -0,0 +1,21 @@
+package components.nodes;
+
+/**
+ * Thrown by {@link Node#executeInt} and {@link Node#executeDouble} when the
+ * node produced a value of another type. It carries that value, so the
+ * caller can finish the operation generically without running the node
+ * again. Like the control-flow signals it records no stack trace.
+ */
+public final class UnexpectedResultException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private final Object result;
+
+    public UnexpectedResultException(Object result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,61 @@
+package components.nodes;
+
+import components.Interpreter;
+import components.SymbolTable;
+
+public class VariableDeclarationNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final String name;
+    private final Node value;
+    private final boolean constant;
+    private final boolean tracksPosition;
+    // Slot in the current frame, or -1 when declaring into a named scope
+    private final int slot;
+
+    public VariableDeclarationNode(String name, Node value, boolean constant, boolean tracksPosition,
+                                   int slot, int line, int column) {
+        super(line, column);
+        this.name = name;
+        this.value = value;
+        this.constant = constant;
+        this.tracksPosition = tracksPosition;
+        this.slot = slot;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Node getValue() {
+        return value;
+    }
+
+    public boolean isConstant() {
+        return constant;
+    }
+
+    public boolean tracksPosition() {
+        return tracksPosition;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        if (tracksPosition) {
+            markPosition(interpreter);
+        }
+        Object result = value.execute(interpreter);
+        SymbolTable scope = interpreter.getSymbolTableStack().peek();
+        if (constant) {
+            scope.setConstant(name, result);
+        } else if (slot >= 0) {
+            scope.setSlot(slot, result);
+        } else {
+            scope.set(name, result);
+        }
+        return null;
+    }
+}
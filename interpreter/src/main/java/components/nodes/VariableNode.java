@@ -0,0 +1,70 @@
+package components.nodes;
+
+import components.Interpreter;
+import components.SymbolEntry;
+import components.SymbolTable;
+
+/**
+ * A read of a variable by name. A name that is only ever bound in the
+ * global scope always resolves to the same global entry, so the node caches
+ * that entry and reads it directly until the global table's version says
+ * the name may have been rebound.
+ */
+public class VariableNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final String name;
+    // Runtime state only: the global entry this node resolved to last
+    private transient volatile GlobalBinding cached;
+
+    public VariableNode(String name, int line, int column) {
+        super(line, column);
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        return lookup(interpreter);
+    }
+
+    /**
+     * Looks the name up through the scope stack, innermost scope first.
+     */
+    public Object lookup(Interpreter interpreter) {
+        SymbolTable global = interpreter.getSymbolTableStack().getLast();
+        if (!global.isLocalName(name)) {
+            GlobalBinding binding = cached;
+            if (binding == null || !binding.isCurrent(global)) {
+                // The version is read first, so an entry declared meanwhile only makes this one stale
+                int version = global.getVersion();
+                binding = new GlobalBinding(global, version, global.getEntry(name));
+                cached = binding;
+            }
+            SymbolEntry entry = (SymbolEntry) binding.getValue();
+            if (entry == null || entry.getValue() == null) {
+                throw new RuntimeException("Variable '" + name + "' is not defined.");
+            }
+            if (entry.isAmbiguous()) {
+                throw Operations.ambiguousSymbol(name);
+            }
+            return entry.getValue();
+        }
+
+        SymbolTable foundTable = Operations.findScope(interpreter, name);
+        Object value = foundTable != null ? foundTable.get(name) : null;
+
+        if (value == null) {
+            throw new RuntimeException("Variable '" + name + "' is not defined.");
+        }
+
+        // Check if the symbol is ambiguous (has conflicts from wildcard imports)
+        if (foundTable.isAmbiguous(name)) {
+            throw Operations.ambiguousSymbol(name);
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,48 @@
+package components.nodes;
+
+import components.BreakException;
+import components.ContinueException;
+import components.Interpreter;
+import components.jit.TierProfile;
+
+public class WhileNode extends Node {
+    private static final long serialVersionUID = 1L;
+    private final Node condition;
+    private final Node body;
+    // Profile of the enclosing function body, or null at top level
+    private final TierProfile profile;
+
+    public WhileNode(Node condition, Node body, TierProfile profile, int line, int column) {
+        super(line, column);
+        this.condition = condition;
+        this.body = body;
+        this.profile = profile;
+    }
+
+    public Node getCondition() {
+        return condition;
+    }
+
+    public Node getBody() {
+        return body;
+    }
+
+    @Override
+    public Object execute(Interpreter interpreter) {
+        try {
+            while (Operations.toBoolean(condition.execute(interpreter))) {
+                if (profile != null) {
+                    profile.countLoopIteration();
+                }
+                try {
+                    body.execute(interpreter);
+                } catch (ContinueException e) {
+                    // Continue to next iteration
+                }
+            }
+        } catch (BreakException e) {
+            // Break out of loop
+        }
+        return null;
+    }
+}
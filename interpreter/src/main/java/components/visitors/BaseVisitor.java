@@ -5,7 +5,6 @@ import org.antlr.v4.runtime.Token;
 import java.util.*;
 
 public abstract class BaseVisitor extends vg_langBaseVisitor<Object> {
-    protected Deque<SymbolTable> symbolTableStack;
     protected Map<String, BuiltInFunction> builtInFunction;
     protected SymbolTable globalSymbolTable;
     protected ModuleRegistry moduleRegistry;
@@ -15,14 +14,13 @@ public abstract class BaseVisitor extends vg_langBaseVisitor<Object> {
 
     public BaseVisitor(Interpreter interpreter) {
         this.interpreter = interpreter;
-        this.symbolTableStack = interpreter.getSymbolTableStack();
         this.builtInFunction = interpreter.builtInFunction;
         this.globalSymbolTable = interpreter.getGlobalSymbolTable();
         this.moduleRegistry = interpreter.getModuleRegistry();
     }
 
     protected SymbolTable currentSymbolTable() {
-        return symbolTableStack.peek();
+        return interpreter.getSymbolTableStack().peek();
     }
 
     protected boolean toBoolean(Object value) {
@@ -70,7 +70,7 @@ public class ClassVisitor extends BaseVisitor {
         
         Object defaultValue = null;
         if (ctx.expression() != null) {
-            defaultValue = interpreter.visit(ctx.expression());
+            defaultValue = interpreter.evaluate(ctx.expression());
         }
         
         classDef.addField(fieldName, defaultValue, isPrivate, isStatic, isConst);
@@ -104,7 +104,8 @@ public class ClassVisitor extends BaseVisitor {
         int line = ctx.getStart().getLine();
         int column = ctx.getStart().getCharPositionInLine();
         
-        VGMethod method = new VGMethod(methodName, parameters, ctx.block(), isPrivate, isStatic, isConst, line, column);
+        VGMethod method = new VGMethod(methodName, parameters, ctx.block(), isPrivate, isStatic, isConst, line, column,
+            interpreter.isDebugMode());
         classDef.addMethod(methodName, method);
     }
     
@@ -121,43 +122,23 @@ public class ClassVisitor extends BaseVisitor {
         int line = ctx.getStart().getLine();
         int column = ctx.getStart().getCharPositionInLine();
         
-        VGConstructor constructor = new VGConstructor(parameters, ctx.block(), isPrivate, line, column);
+        VGConstructor constructor = new VGConstructor(parameters, ctx.block(), isPrivate, line, column,
+            interpreter.isDebugMode());
         classDef.addConstructor(constructor);
     }
     
-    public Object visitNewExpression(vg_langParser.NewExpressionContext ctx) {
-        String className = ctx.IDENTIFIER().getText();
-        
-        // Look up the class definition through the entire symbol table stack
-        Object classObj = null;
-        for (SymbolTable table : interpreter.getSymbolTableStack()) {
-            classObj = table.get(className);
-            if (classObj instanceof ClassDefinition) {
-                break;
-            }
-        }
-        
-        if (!(classObj instanceof ClassDefinition)) {
-            throw new RuntimeException("Class '" + className + "' not found");
-        }
-        
-        ClassDefinition classDef = (ClassDefinition) classObj;
-        
+    /**
+     * Creates an instance of {@code classDef} and runs the constructor whose
+     * arity matches {@code args}.
+     */
+    public ClassInstance instantiate(ClassDefinition classDef, List<Object> args) {
         // Create instance
         ClassInstance instance = classDef.createInstance();
         
-        // Get constructor arguments
-        List<Object> args = new ArrayList<>();
-        if (ctx.argumentList() != null) {
-            for (vg_langParser.ExpressionContext argCtx : ctx.argumentList().expression()) {
-                args.add(interpreter.visit(argCtx));
-            }
-        }
-        
         // Find and call constructor
         VGConstructor constructor = classDef.findConstructor(args.size());
         if (constructor == null) {
-            throw new RuntimeException("No constructor found for class '" + className + "' with " + args.size() + " parameters");
+            throw new RuntimeException("No constructor found for class '" + classDef.getName() + "' with " + args.size() + " parameters");
         }
         
         // Check access control
@@ -173,21 +154,12 @@ public class ClassVisitor extends BaseVisitor {
     
     private void callConstructor(ClassInstance instance, VGConstructor constructor, List<Object> args) {
         // Create new scope for constructor
-        SymbolTable constructorScope = new SymbolTable();
+        SymbolTable constructorScope = constructor.getBody().createScope(interpreter, instance, args);
         interpreter.getSymbolTableStack().push(constructorScope);
         
         try {
-            // Set 'this' reference
-            constructorScope.set("this", instance);
-            
-            // Set parameters
-            List<String> parameters = constructor.getParameters();
-            for (int i = 0; i < parameters.size(); i++) {
-                constructorScope.set(parameters.get(i), args.get(i));
-            }
-            
             // Execute constructor body
-            interpreter.visit(constructor.getCodeBlock());
+            constructor.getBody().execute(interpreter);
             
             // Mark instance as initialized
             instance.setInitialized(true);
@@ -195,11 +167,20 @@ public class ClassVisitor extends BaseVisitor {
         } catch (ReturnException e) {
             // Constructors shouldn't return values, but handle it gracefully
         } finally {
-            interpreter.getSymbolTableStack().pop();
+            interpreter.getSymbolTableStack().pop().release();
         }
     }
     
     public Object callMethod(ClassInstance instance, String methodName, List<Object> args) {
+        return executeMethod(instance, resolveMethod(instance, methodName, args.size()), args);
+    }
+    
+    /**
+     * Finds the method that a call of {@code methodName} on {@code instance}
+     * with {@code argCount} arguments runs, reporting the same errors as
+     * {@link #callMethod}.
+     */
+    public VGMethod resolveMethod(ClassInstance instance, String methodName, int argCount) {
         VGMethod method = instance.getMethod(methodName);
         if (method == null) {
             throw new RuntimeException("Method '" + methodName + "' not found in class '" + instance.getClassName() + "'");
@@ -211,14 +192,23 @@ public class ClassVisitor extends BaseVisitor {
         }
         
         // Check parameter count
-        if (method.getParameterCount() != args.size()) {
-            throw new RuntimeException("Method '" + methodName + "' expects " + method.getParameterCount() + " parameters, got " + args.size());
+        if (method.getParameterCount() != argCount) {
+            throw new RuntimeException("Method '" + methodName + "' expects " + method.getParameterCount() + " parameters, got " + argCount);
         }
         
-        return executeMethod(instance, method, args);
+        return method;
     }
     
     public Object callStaticMethod(ClassDefinition classDef, String methodName, List<Object> args) {
+        return executeStaticMethod(classDef, resolveStaticMethod(classDef, methodName, args.size()), args);
+    }
+    
+    /**
+     * Finds the static method that a call of {@code methodName} on
+     * {@code classDef} with {@code argCount} arguments runs, reporting the
+     * same errors as {@link #callStaticMethod}.
+     */
+    public VGMethod resolveStaticMethod(ClassDefinition classDef, String methodName, int argCount) {
         VGMethod method = classDef.getStaticMethod(methodName);
         if (method == null) {
             throw new RuntimeException("Static method '" + methodName + "' not found in class '" + classDef.getName() + "'");
@@ -230,59 +220,19 @@ public class ClassVisitor extends BaseVisitor {
         }
         
         // Check parameter count
-        if (method.getParameterCount() != args.size()) {
-            throw new RuntimeException("Static method '" + methodName + "' expects " + method.getParameterCount() + " parameters, got " + args.size());
+        if (method.getParameterCount() != argCount) {
+            throw new RuntimeException("Static method '" + methodName + "' expects " + method.getParameterCount() + " parameters, got " + argCount);
         }
         
-        return executeStaticMethod(classDef, method, args);
+        return method;
     }
     
     private Object executeMethod(ClassInstance instance, VGMethod method, List<Object> args) {
-        SymbolTable methodScope = new SymbolTable();
-        interpreter.getSymbolTableStack().push(methodScope);
-        
-        try {
-            // Set 'this' reference
-            methodScope.set("this", instance);
-            
-            // Set parameters
-            List<String> parameters = method.getParameters();
-            for (int i = 0; i < parameters.size(); i++) {
-                methodScope.set(parameters.get(i), args.get(i));
-            }
-            
-            // Execute method body
-            interpreter.visit(method.getCodeBlock());
-            
-            return null; // No return value
-            
-        } catch (ReturnException e) {
-            return e.getValue();
-        } finally {
-            interpreter.getSymbolTableStack().pop();
-        }
+        return method.getBody().invoke(interpreter, instance, args);
     }
     
     private Object executeStaticMethod(ClassDefinition classDef, VGMethod method, List<Object> args) {
-        SymbolTable methodScope = new SymbolTable();
-        interpreter.getSymbolTableStack().push(methodScope);
-        
-        try {
-            // Set parameters (no 'this' for static methods)
-            List<String> parameters = method.getParameters();
-            for (int i = 0; i < parameters.size(); i++) {
-                methodScope.set(parameters.get(i), args.get(i));
-            }
-            
-            // Execute method body
-            interpreter.visit(method.getCodeBlock());
-            
-            return null; // No return value
-            
-        } catch (ReturnException e) {
-            return e.getValue();
-        } finally {
-            interpreter.getSymbolTableStack().pop();
-        }
+        // No 'this' for static methods
+        return method.getBody().invoke(interpreter, null, args);
     }
 } 
\ No newline at end of file
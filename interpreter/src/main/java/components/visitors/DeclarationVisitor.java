@@ -8,27 +8,6 @@ public class DeclarationVisitor extends BaseVisitor {
         super(interpreter);
     }
 
-    public Object visitVariableDeclaration(vg_langParser.VariableDeclarationContext ctx) {
-        String varName = ctx.IDENTIFIER().getText();
-        Object value = interpreter.visit(ctx.expression());
-        currentSymbolTable().set(varName, value);
-        return null;
-    }
-
-    public Object visitVariableDeclarationNoSemi(vg_langParser.VariableDeclarationNoSemiContext ctx) {
-        String varName = ctx.IDENTIFIER().getText();
-        Object value = interpreter.visit(ctx.expression());
-        currentSymbolTable().set(varName, value);
-        return null;
-    }
-
-    public Object visitConstDeclaration(vg_langParser.ConstDeclarationContext ctx) {
-        String constName = ctx.IDENTIFIER().getText();
-        Object value = interpreter.visit(ctx.expression());
-        currentSymbolTable().setConstant(constName, value);
-        return null;
-    }
-
     public Object visitStructDeclaration(vg_langParser.StructDeclarationContext ctx) {
         try {
             String structName = ctx.IDENTIFIER().getText();
@@ -59,7 +38,7 @@ public class DeclarationVisitor extends BaseVisitor {
                 Object value;
 
                 if (valueCtx.expression() != null) {
-                    value = interpreter.visit(valueCtx.expression());
+                    value = interpreter.evaluate(valueCtx.expression());
                     if (value instanceof Number) {
                         autoValue = ((Number) value).intValue() + 1;
                     }
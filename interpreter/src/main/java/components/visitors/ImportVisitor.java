@@ -1,6 +1,9 @@
 package components.visitors;
 
 import components.*;
+import components.nodes.Node;
+import components.nodes.NodeBuilder;
+import components.vm.LibraryCache;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
@@ -107,13 +110,14 @@ public class ImportVisitor extends BaseVisitor {
                 vg_langParser parser = new vg_langParser(tokens);
                 
                 // Parse the program
-                vg_langParser.ProgramContext programCtx = parser.program();
+                vg_langParser.ProgramContext programCtx = Parsing.program(parser);
                 
-                // Execute the imported file like a normal program (similar to ProgramVisitor)
+                // Execute the imported file like a normal program (similar to ProgramNode)
                 // First pass: Process all function and class declarations
+                NodeBuilder builder = new NodeBuilder(interpreter.isDebugMode());
                 for (vg_langParser.StatementContext stmtCtx : programCtx.statement()) {
                     if (stmtCtx.functionDeclaration() != null) {
-                        interpreter.visit(stmtCtx.functionDeclaration());
+                        builder.visit(stmtCtx.functionDeclaration()).execute(interpreter);
                     } else if (stmtCtx.classDeclaration() != null) {
                         interpreter.visit(stmtCtx.classDeclaration());
                     }
@@ -124,7 +128,10 @@ public class ImportVisitor extends BaseVisitor {
                 // Second pass: Process all other statements (excluding functions and classes)
                 for (vg_langParser.StatementContext stmtCtx : programCtx.statement()) {
                     if (stmtCtx.functionDeclaration() == null && stmtCtx.classDeclaration() == null) {
-                        interpreter.visit(stmtCtx);
+                        Node node = builder.visit(stmtCtx);
+                        if (node != null) {
+                            node.execute(interpreter);
+                        }
                     }
                 }
                 
@@ -213,25 +220,73 @@ public class ImportVisitor extends BaseVisitor {
         for (vg_langParser.NamespaceDeclarationContext nsCtx : ctx.namespaceDeclaration()) {
             String nsName = nsCtx.IDENTIFIER().getText();
             Namespace namespace = new Namespace(nsName);
-            processNamespaceBody(nsCtx, namespace);
+            processNamespaceBody(nsCtx, namespace, libraryName + "." + nsName);
+            library.addNamespace(namespace);
+        }
+        interpreter.getModuleRegistry().addLibrary(library);
+        return library;
+    }
+
+    /**
+     * Declares a library loaded from the {@link LibraryCache}, exactly as
+     * {@link #visitLibraryDeclaration} declares it from its source.
+     */
+    public Library declareLibrary(LibraryCache.LibraryImage image) {
+        Library library = new Library(image.getName());
+        for (LibraryCache.NamespaceImage nsImage : image.getNamespaces()) {
+            Namespace namespace = new Namespace(nsImage.getName());
+            declareNamespace(nsImage, namespace, image.getName() + "." + nsImage.getName());
             library.addNamespace(namespace);
         }
         interpreter.getModuleRegistry().addLibrary(library);
         return library;
     }
 
+    private void declareNamespace(LibraryCache.NamespaceImage nsImage, Namespace namespace, String path) {
+        for (LibraryCache.FunctionImage funcImage : nsImage.getFunctions()) {
+            Function function = Intrinsics.bind(
+                    path + "." + funcImage.getName(),
+                    funcImage.getParameters(),
+                    null,
+                    funcImage.getBody(),
+                    funcImage.getFingerprint(),
+                    interpreter
+            );
+            namespace.addSymbol(funcImage.getName(), function);
+        }
+
+        for (LibraryCache.ValueImage varImage : nsImage.getVariables()) {
+            namespace.addSymbol(varImage.getName(), varImage.getExpression().execute(interpreter));
+        }
+
+        for (LibraryCache.ValueImage constImage : nsImage.getConstants()) {
+            namespace.addSymbol(constImage.getName(), constImage.getExpression().execute(interpreter));
+        }
+
+        for (LibraryCache.NamespaceImage childImage : nsImage.getChildren()) {
+            Namespace childNs = new Namespace(childImage.getName());
+            declareNamespace(childImage, childNs, path + "." + childImage.getName());
+            namespace.addChildNamespace(childNs);
+        }
+    }
+
     @Override
     public Object visitNamespaceDeclaration(vg_langParser.NamespaceDeclarationContext ctx) {
         String nsName = ctx.IDENTIFIER().getText();
         Namespace namespace = new Namespace(nsName);
-        processNamespaceBody(ctx, namespace);
+        processNamespaceBody(ctx, namespace, nsName);
         return namespace;
     }
 
-    private void processNamespaceBody(vg_langParser.NamespaceDeclarationContext nsCtx, Namespace namespace) {
+    /**
+     * @param path the namespace's qualified name, such as {@code MathLib.trig}, under which
+     *             {@link Intrinsics} looks up its functions
+     */
+    private void processNamespaceBody(vg_langParser.NamespaceDeclarationContext nsCtx, Namespace namespace, String path) {
         for (vg_langParser.FunctionDeclarationContext funcCtx : nsCtx.functionDeclaration()) {
             String functionName = funcCtx.IDENTIFIER().getText();
-            Function function = new Function(
+            Function function = Intrinsics.bind(
+                    path + "." + functionName,
                     getParameters(funcCtx.parameterList()),
                     funcCtx.block(),
                     interpreter
@@ -241,20 +296,20 @@ public class ImportVisitor extends BaseVisitor {
 
         for (vg_langParser.VariableDeclarationContext varCtx : nsCtx.variableDeclaration()) {
             String varName = varCtx.IDENTIFIER().getText();
-            Object value = interpreter.visit(varCtx.expression());
+            Object value = interpreter.evaluate(varCtx.expression());
             namespace.addSymbol(varName, value);
         }
 
         for (vg_langParser.ConstDeclarationContext constCtx : nsCtx.constDeclaration()) {
             String constName = constCtx.IDENTIFIER().getText();
-            Object value = interpreter.visit(constCtx.expression());
+            Object value = interpreter.evaluate(constCtx.expression());
             namespace.addSymbol(constName, value);
         }
 
         for (vg_langParser.NamespaceDeclarationContext childNsCtx : nsCtx.namespaceDeclaration()) {
             String childName = childNsCtx.IDENTIFIER().getText();
             Namespace childNs = new Namespace(childName);
-            processNamespaceBody(childNsCtx, childNs);
+            processNamespaceBody(childNsCtx, childNs, path + "." + childName);
             namespace.addChildNamespace(childNs);
         }
 
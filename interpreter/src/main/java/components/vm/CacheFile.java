@@ -0,0 +1,169 @@
+package components.vm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The file format shared by {@link VgcFile} and {@link LibraryCache}: a
+ * magic number, a format version, the build of the interpreter that wrote
+ * the file and the SHA-256 of the source it was built from, followed by the
+ * serialized nodes. A file written by another build is ignored, since the
+ * nodes it holds may have been lowered differently even where their
+ * classes still deserialize.
+ */
+final class CacheFile {
+    // JDK classes a cached program may contain besides the interpreter's own
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+        "java.lang.Boolean", "java.lang.Double", "java.lang.Enum", "java.lang.Integer", "java.lang.Number",
+        "java.lang.Object", "java.lang.String", "java.util.ArrayList", "java.util.Arrays$ArrayList",
+        "java.util.Collections$EmptyList", "java.util.Collections$SingletonList", "java.util.HashMap"));
+
+    private CacheFile() {
+    }
+
+    /**
+     * Returns what {@link #write} stored at {@code path}, or null if there
+     * is no such file or it is not one with this magic number and version,
+     * written by this build from source with this hash, holding a
+     * {@code type}.
+     */
+    static <T> T read(Path path, int magic, int version, byte[] hash, Class<T> type) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+            if (in.readInt() != magic || in.readInt() != version || !in.readUTF().equals(Build.ID)) {
+                return null;
+            }
+            byte[] stored = new byte[hash.length];
+            in.readFully(stored);
+            if (!Arrays.equals(stored, hash)) {
+                return null;
+            }
+            return type.cast(new ProgramInputStream(in).readObject());
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // Stale or unreadable for this build: the caller parses the source instead
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code contents}, built from source with {@code hash}, at
+     * {@code path}. Writing is best effort: a file that cannot be written
+     * only costs the cache.
+     */
+    static void write(Path path, int magic, int version, byte[] hash, Object contents) {
+        Path temporary = null;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeUTF(Build.ID);
+            out.write(hash);
+            ObjectOutputStream objects = new ObjectOutputStream(out);
+            objects.writeObject(contents);
+            objects.flush();
+
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            // Write next to the target and rename, so a concurrent run never reads half a file
+            temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            // The cache is an optimization only
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // Nothing more to clean up
+                }
+            }
+        }
+    }
+
+    static byte[] hash(String code) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(code.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Identifies the interpreter build: the size and modification time of
+     * its jar, or of the newest class file when it runs from a directory of
+     * classes. Computed on first use only.
+     */
+    private static final class Build {
+        static final String ID = compute();
+
+        private static String compute() {
+            CodeSource source = CacheFile.class.getProtectionDomain().getCodeSource();
+            if (source == null) {
+                return unidentified();
+            }
+            try {
+                Path location = Paths.get(source.getLocation().toURI());
+                if (Files.isRegularFile(location)) {
+                    return Files.size(location) + "-" + Files.getLastModifiedTime(location).toMillis();
+                }
+                try (Stream<Path> files = Files.walk(location)) {
+                    long[] newest = new long[2];
+                    files.filter(file -> file.toString().endsWith(".class")).forEach(file -> {
+                        newest[0]++;
+                        newest[1] = Math.max(newest[1], file.toFile().lastModified());
+                    });
+                    return newest[0] + "-" + newest[1];
+                }
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                return unidentified();
+            }
+        }
+
+        // A build that cannot be identified shares no files with any other
+        private static String unidentified() {
+            return "unknown-" + System.nanoTime();
+        }
+    }
+
+    /** Refuses to deserialize anything a lowered program or library cannot contain. */
+    private static final class ProgramInputStream extends ObjectInputStream {
+        ProgramInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            String name = description.getName();
+            String component = name.replaceFirst("^\\[+L?", "").replace(";", "");
+            boolean primitiveArray = name.startsWith("[") && component.length() == 1;
+            if (!primitiveArray && !component.startsWith("components.") && !ALLOWED_CLASSES.contains(component)) {
+                throw new InvalidClassException(name, "not part of a cached program");
+            }
+            return super.resolveClass(description);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package components.vm;
+
+import components.Intrinsics;
+import components.nodes.FunctionBodyNode;
+import components.nodes.Node;
+import components.nodes.NodeBuilder;
+import components.vg_langParser;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Library files lowered ahead of time: the libraries a {@code .vglib} file
+ * declares, with their function bodies already built, so that a later run
+ * loads them without lexing or parsing.
+ * <p>
+ * Entries live in a cache directory, {@code ~/.vg/cache} unless
+ * {@code -Dvg.cache.dir} says otherwise, named by the SHA-256 of the
+ * library's source. Like {@link VgcFile} they are {@link CacheFile}s, so an
+ * entry another interpreter build wrote is ignored and rewritten.
+ * {@code -Dvg.vgc=false} switches this cache off too.
+ */
+public final class LibraryCache {
+    private static final boolean ENABLED = !"false".equals(System.getProperty("vg.vgc"));
+    private static final int MAGIC = 0x56474c00; // "VGL\0"
+    private static final int VERSION = 3;
+    private static final Path DIRECTORY = Paths.get(System.getProperty("vg.cache.dir",
+        Paths.get(System.getProperty("user.home"), ".vg", "cache").toString()));
+
+    private LibraryCache() {
+    }
+
+    /**
+     * Returns the libraries cached for a library file with the source
+     * {@code code}, or null if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<LibraryImage> read(String code) {
+        if (!ENABLED) {
+            return null;
+        }
+        byte[] hash = CacheFile.hash(code);
+        return (List<LibraryImage>) CacheFile.read(pathFor(hash), MAGIC, VERSION, hash, List.class);
+    }
+
+    /** Caches {@code libraries}, built from a library file with the source {@code code}. */
+    public static void write(String code, List<LibraryImage> libraries) {
+        if (!ENABLED) {
+            return;
+        }
+        byte[] hash = CacheFile.hash(code);
+        CacheFile.write(pathFor(hash), MAGIC, VERSION, hash, libraries);
+    }
+
+    /**
+     * Lowers the libraries a parsed library file declares, or returns null
+     * if one of them declares something that can only be loaded from its
+     * parse tree, such as a class.
+     */
+    public static List<LibraryImage> build(vg_langParser.ProgramContext program) {
+        NodeBuilder builder = new NodeBuilder(false);
+        List<LibraryImage> libraries = new ArrayList<>();
+        for (vg_langParser.StatementContext statement : program.statement()) {
+            vg_langParser.LibraryDeclarationContext library = statement.libraryDeclaration();
+            if (library == null) {
+                continue;
+            }
+            String name = library.IDENTIFIER().getText();
+            List<NamespaceImage> namespaces = new ArrayList<>();
+            for (vg_langParser.NamespaceDeclarationContext namespace : library.namespaceDeclaration()) {
+                NamespaceImage image = namespace(builder, namespace, name + "." + namespace.IDENTIFIER().getText());
+                if (image == null) {
+                    return null;
+                }
+                namespaces.add(image);
+            }
+            libraries.add(new LibraryImage(name, namespaces));
+        }
+        return libraries;
+    }
+
+    /** @param path the namespace's qualified name, under which {@link Intrinsics} looks up its functions */
+    private static NamespaceImage namespace(NodeBuilder builder, vg_langParser.NamespaceDeclarationContext ctx,
+                                            String path) {
+        if (!ctx.classDeclaration().isEmpty()) {
+            return null;
+        }
+        List<FunctionImage> functions = new ArrayList<>();
+        for (vg_langParser.FunctionDeclarationContext function : ctx.functionDeclaration()) {
+            List<String> parameters = new ArrayList<>();
+            if (function.parameterList() != null) {
+                for (TerminalNode id : function.parameterList().IDENTIFIER()) {
+                    parameters.add(id.getText());
+                }
+            }
+            String name = function.IDENTIFIER().getText();
+            String fingerprint = Intrinsics.isRegistered(path + "." + name) ? Intrinsics.fingerprint(function.block()) : null;
+            functions.add(new FunctionImage(name, parameters,
+                builder.buildFunctionBody(parameters, false, function.block()), fingerprint));
+        }
+        List<ValueImage> variables = new ArrayList<>();
+        for (vg_langParser.VariableDeclarationContext variable : ctx.variableDeclaration()) {
+            variables.add(new ValueImage(variable.IDENTIFIER().getText(), builder.buildExpression(variable.expression())));
+        }
+        List<ValueImage> constants = new ArrayList<>();
+        for (vg_langParser.ConstDeclarationContext constant : ctx.constDeclaration()) {
+            constants.add(new ValueImage(constant.IDENTIFIER().getText(), builder.buildExpression(constant.expression())));
+        }
+        List<NamespaceImage> children = new ArrayList<>();
+        for (vg_langParser.NamespaceDeclarationContext child : ctx.namespaceDeclaration()) {
+            NamespaceImage image = namespace(builder, child, path + "." + child.IDENTIFIER().getText());
+            if (image == null) {
+                return null;
+            }
+            children.add(image);
+        }
+        return new NamespaceImage(ctx.IDENTIFIER().getText(), functions, variables, constants, children);
+    }
+
+    private static Path pathFor(byte[] hash) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : hash) {
+            name.append(String.format("%02x", b));
+        }
+        return DIRECTORY.resolve(name.append(".vgl").toString());
+    }
+
+    /** A library as its declaration declares it. */
+    public static final class LibraryImage implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final List<NamespaceImage> namespaces;
+
+        LibraryImage(String name, List<NamespaceImage> namespaces) {
+            this.name = name;
+            this.namespaces = namespaces;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<NamespaceImage> getNamespaces() {
+            return Collections.unmodifiableList(namespaces);
+        }
+    }
+
+    /**
+     * A namespace: its members in the order the declaration visitor adds
+     * them, functions first, then variables, constants and child namespaces.
+     */
+    public static final class NamespaceImage implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final List<FunctionImage> functions;
+        private final List<ValueImage> variables;
+        private final List<ValueImage> constants;
+        private final List<NamespaceImage> children;
+
+        NamespaceImage(String name, List<FunctionImage> functions, List<ValueImage> variables,
+                       List<ValueImage> constants, List<NamespaceImage> children) {
+            this.name = name;
+            this.functions = functions;
+            this.variables = variables;
+            this.constants = constants;
+            this.children = children;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<FunctionImage> getFunctions() {
+            return Collections.unmodifiableList(functions);
+        }
+
+        public List<ValueImage> getVariables() {
+            return Collections.unmodifiableList(variables);
+        }
+
+        public List<ValueImage> getConstants() {
+            return Collections.unmodifiableList(constants);
+        }
+
+        public List<NamespaceImage> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+    }
+
+    /** A function with its lowered body. */
+    public static final class FunctionImage implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final List<String> parameters;
+        private final FunctionBodyNode body;
+        private final String fingerprint;
+
+        FunctionImage(String name, List<String> parameters, FunctionBodyNode body, String fingerprint) {
+            this.name = name;
+            this.parameters = parameters;
+            this.body = body;
+            this.fingerprint = fingerprint;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getParameters() {
+            return parameters;
+        }
+
+        public FunctionBodyNode getBody() {
+            return body;
+        }
+
+        /** The {@link Intrinsics#fingerprint} of the function's body, or null if it has no intrinsic. */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+    }
+
+    /** A variable or constant with the expression that initializes it when the library loads. */
+    public static final class ValueImage implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final Node expression;
+
+        ValueImage(String name, Node expression) {
+            this.name = name;
+            this.expression = expression;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Node getExpression() {
+            return expression;
+        }
+    }
+}
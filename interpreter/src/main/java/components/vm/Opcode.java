@@ -0,0 +1,113 @@
+package components.vm;
+
+/**
+ * Instruction set of the register VM. Each instruction is an opcode followed
+ * by its operands, all stored inline in {@link VmCode#getCode()}. Register
+ * operands index the frame's register file; node and constant operands index
+ * the tables of the {@link VmCode}.
+ */
+final class Opcode {
+    /** dst, constant: load a literal. */
+    static final int CONST = 0;
+    /** dst, level, slot, node: read a local from the scope at {@code level}. */
+    static final int LOAD_LOCAL = 1;
+    /** dst, node: evaluate a node the compiler left to the tree. */
+    static final int EVAL = 2;
+    /** node: execute a statement the compiler left to the tree. */
+    static final int EXEC = 3;
+    /**
+     * dst, operator, left, right. Rewrites itself on first use to the int,
+     * double or generic form below, according to the operands it sees.
+     */
+    static final int ARITHMETIC = 4;
+    /** dst, operator, left, right: rewrites itself like ARITHMETIC. */
+    static final int COMPARE = 5;
+    /** dst, operator, left, right */
+    static final int EQUALS = 6;
+    /** dst, operator, operand */
+    static final int UNARY = 7;
+    /** dst, src: convert to a Boolean the way conditions do. */
+    static final int TO_BOOLEAN = 8;
+    /** target */
+    static final int JUMP = 9;
+    /** src, target */
+    static final int JUMP_IF_FALSE = 10;
+    /** src, target */
+    static final int JUMP_IF_TRUE = 11;
+    /** level, slot, src: declare a variable that has a frame slot. */
+    static final int STORE_SLOT = 12;
+    /** level, constant, src: declare a variable by name. */
+    static final int DECLARE = 13;
+    /** level, constant, src: declare a constant. */
+    static final int DECLARE_CONSTANT = 14;
+    /**
+     * dst, node: resolve an assignment target to the scope or object that
+     * holds it, rejecting constants. Its indices are already in registers.
+     */
+    static final int TARGET = 15;
+    /**
+     * target, first, count, src, node: assign to a resolved target, at the
+     * {@code count} indices held in the registers from {@code first}.
+     */
+    static final int STORE = 16;
+    /** dst: start the line of a print statement. */
+    static final int OUTPUT = 17;
+    /** output, src: add a value to the line being printed. */
+    static final int APPEND = 18;
+    /** output: print the line. */
+    static final int PRINT = 19;
+    /** line, column: record the position of a statement for error messages. */
+    static final int POSITION = 20;
+    /** level, constant: push a scope laid out by a FrameDescriptor. */
+    static final int PUSH_SCOPE = 21;
+    /** Pop the innermost scope. */
+    static final int POP_SCOPE = 22;
+    /** Count one loop iteration towards compilation. */
+    static final int LOOP = 23;
+    /** dst, node, first, count: call a function by name. */
+    static final int CALL = 24;
+    /**
+     * dst, node, callee, first, count: call the value in a register. Plain
+     * functions and methods with register code are entered as new frames.
+     */
+    static final int INVOKE = 25;
+    /** src */
+    static final int RETURN = 26;
+    static final int RETURN_NULL = 27;
+    /** ARITHMETIC specialized on two ints; turns generic on other operands. */
+    static final int INT_ARITHMETIC = 28;
+    /** ARITHMETIC specialized on two doubles; turns generic on other operands. */
+    static final int DOUBLE_ARITHMETIC = 29;
+    static final int GENERIC_ARITHMETIC = 30;
+    static final int INT_COMPARE = 31;
+    static final int DOUBLE_COMPARE = 32;
+    static final int GENERIC_COMPARE = 33;
+    /**
+     * level, slot, step, node: step an int loop counter in place, or run the
+     * loop's update node if the counter holds anything else.
+     */
+    static final int INCREMENT = 34;
+    /**
+     * CALL in tail position: a callee with register code takes over the
+     * current frame instead of stacking a new one. Anything else is called
+     * as CALL would, and the RETURN that follows returns its value.
+     */
+    static final int TAIL_CALL = 35;
+    /** INVOKE in tail position, handled like TAIL_CALL. */
+    static final int TAIL_INVOKE = 36;
+    /** src: reject an array index that is not a number. */
+    static final int CHECK_INDEX = 37;
+    /**
+     * dst, level, slot, node: TARGET for an unindexed variable that has a
+     * frame slot, taking the scope at {@code level} while the slot is defined.
+     */
+    static final int LOCAL_TARGET = 38;
+    /**
+     * target, level, slot, src, node: STORE to a LOCAL_TARGET, writing the
+     * slot directly when the target is the scope at {@code level}.
+     */
+    static final int STORE_LOCAL = 39;
+
+    private Opcode() {
+    }
+}
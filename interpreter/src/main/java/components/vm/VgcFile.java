@@ -0,0 +1,54 @@
+package components.vm;
+
+import components.nodes.ProgramNode;
+
+import java.nio.file.Path;
+
+/**
+ * The {@code .vgc} cache kept next to a {@code .vg} script: the lowered
+ * program with its register code, so that a later run of the unchanged
+ * script skips lexing, parsing and lowering.
+ * <p>
+ * The file is a {@link CacheFile}: one that does not match the current
+ * source, or that another interpreter build wrote, is ignored and rewritten.
+ * Writing is best effort, so a read-only directory only costs the cache.
+ * Caching can be switched off with {@code -Dvg.vgc=false}.
+ */
+public final class VgcFile {
+    private static final boolean ENABLED = !"false".equals(System.getProperty("vg.vgc"));
+    private static final int MAGIC = 0x56474300; // "VGC\0"
+    // Files from another interpreter build are ignored anyway, so this only
+    // needs a bump for a change to the format itself
+    private static final int VERSION = 7;
+
+    private VgcFile() {
+    }
+
+    /** Returns the cache path for a script: {@code name.vg} becomes {@code name.vgc}. */
+    public static Path pathFor(Path source) {
+        return source.resolveSibling(source.getFileName() + "c");
+    }
+
+    /**
+     * Returns the program cached for {@code source}, or null if there is no
+     * cache file or it was built from different source code.
+     */
+    public static ProgramNode read(Path source, String code) {
+        if (!ENABLED) {
+            return null;
+        }
+        return CacheFile.read(pathFor(source), MAGIC, VERSION, CacheFile.hash(code), ProgramNode.class);
+    }
+
+    /**
+     * Caches {@code program}, built from {@code code}, next to {@code source}.
+     * The program's register code is compiled first so that it is cached too.
+     */
+    public static void write(Path source, String code, ProgramNode program) {
+        if (!ENABLED) {
+            return;
+        }
+        program.getVmCode();
+        CacheFile.write(pathFor(source), MAGIC, VERSION, CacheFile.hash(code), program);
+    }
+}
@@ -0,0 +1,596 @@
+package components.vm;
+
+import components.BreakException;
+import components.BuiltInFunction;
+import components.ContinueException;
+import components.FrameDescriptor;
+import components.Function;
+import components.FunctionReference;
+import components.Interpreter;
+import components.ReturnException;
+import components.SymbolTable;
+import components.jit.CompiledBody;
+import components.jit.TierProfile;
+import components.nodes.BinaryOperator;
+import components.nodes.CallChain;
+import components.nodes.CallNode;
+import components.nodes.FunctionBodyNode;
+import components.nodes.FunctionCallNode;
+import components.nodes.LeftHandSideNode;
+import components.nodes.Node;
+import components.nodes.Operations;
+import components.nodes.UnaryOperator;
+import components.nodes.VariableNode;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Dispatch loop for {@link VmCode}.
+ * <p>
+ * A call by name to a function that has register code pushes a frame onto
+ * the VM's own frame chain instead of recursing in Java, so the depth of VG
+ * recursion is bounded by {@link #MAX_FRAMES} rather than by the Java stack.
+ * Calls through anything else (built-ins, references, methods, the nodes
+ * left to the tree) still go through Java, and enter a new dispatch loop if
+ * they reach register code again. Postfix calls of functions and methods
+ * with register code are entered as frames too.
+ * <p>
+ * A call in tail position reuses the frame of the body it returns from, so
+ * tail recursion is not bounded by {@link #MAX_FRAMES}. Scoping is dynamic,
+ * so the caller's scopes are only dropped once the callee's own bindings
+ * hide all of them.
+ * <p>
+ * A call into a VG body reads its arguments straight from the caller's
+ * registers, and scopes come from their frame descriptor's pool and go back
+ * to it when the frame leaves, so a call allocates little beyond its frame.
+ * <p>
+ * break, continue and return thrown by nodes left to the tree are caught
+ * here and routed through the loop table of the frame they reach, and
+ * errors leaving a frame are wrapped by the call that entered it, exactly
+ * as the enclosing loop and call nodes would have handled them.
+ */
+public final class Vm {
+    // Frames one dispatch loop may stack up before giving up on the recursion
+    private static final int MAX_FRAMES = 200000;
+
+    private static final BinaryOperator[] BINARY_OPERATORS = BinaryOperator.values();
+    private static final UnaryOperator[] UNARY_OPERATORS = UnaryOperator.values();
+
+    /** One activation of a {@link VmCode}. */
+    private static final class Frame {
+        private final VmCode code;
+        private final Object[] registers;
+        private final SymbolTable[] scopes;
+        private final TierProfile profile;
+        private final Frame caller;
+        private final int depth;
+        // Scope stack size before and after the frame's own call scope was pushed
+        private final int base;
+        private final int floor;
+        // Caller register that receives the return value
+        private final int result;
+        // Postfix calls that entered the frame, innermost first: more than one once tail calls reused it
+        private final CallChain calls;
+        // Calls by name that entered the frame, which count towards the debugger's call depth
+        private final int namedCalls;
+        // Where the frame resumes, and the call it is waiting on, while a callee runs
+        private int pc;
+        private int callPc;
+
+        Frame(VmCode code, TierProfile profile, Frame caller, int depth, int base, int floor, int result,
+              CallChain calls, int namedCalls) {
+            this.code = code;
+            this.registers = new Object[code.getRegisters()];
+            this.scopes = new SymbolTable[code.getLevels()];
+            this.profile = profile;
+            this.caller = caller;
+            this.depth = depth;
+            this.base = base;
+            this.floor = floor;
+            this.result = result;
+            this.calls = calls;
+            this.namedCalls = namedCalls;
+        }
+    }
+
+    /**
+     * The argument registers of the call being made, as a list, so that a VG
+     * body can bind its parameters without the arguments being copied. The
+     * list changes with the next call the frame makes, so anything that may
+     * keep it, such as a built-in, gets a {@link #copy} instead.
+     */
+    private static final class Arguments extends AbstractList<Object> implements RandomAccess {
+        private Object[] registers;
+        private int first;
+        private int size;
+
+        Arguments over(Object[] registers, int first, int size) {
+            this.registers = registers;
+            this.first = first;
+            this.size = size;
+            return this;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return registers[first + index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        List<Object> copy() {
+            return new ArrayList<>(this);
+        }
+    }
+
+    private Vm() {
+    }
+
+    /**
+     * Runs the top level of a program in the current scope.
+     */
+    public static Object run(Interpreter interpreter, VmCode program) {
+        Deque<SymbolTable> stack = interpreter.getSymbolTableStack();
+        Frame frame = new Frame(program, null, null, 0, stack.size(), stack.size(), -1, null, 0);
+        frame.scopes[0] = stack.peek();
+        return execute(interpreter, frame);
+    }
+
+    /**
+     * Runs one call of a function body and returns the value it returned,
+     * or null. 'this' is bound to {@code self} unless it is null.
+     */
+    public static Object call(Interpreter interpreter, FunctionBodyNode body, VmCode code, Object self,
+                              List<Object> args) {
+        Deque<SymbolTable> stack = interpreter.getSymbolTableStack();
+        Frame frame = new Frame(code, body.getProfile(), null, 0, stack.size(), stack.size() + 1, -1, null, 0);
+        SymbolTable scope = body.createScope(interpreter, self, args);
+        stack.push(scope);
+        frame.scopes[0] = scope;
+        return execute(interpreter, frame);
+    }
+
+    private static Object execute(Interpreter interpreter, Frame bottom) {
+        Deque<SymbolTable> stack = interpreter.getSymbolTableStack();
+        Frame frame = bottom;
+        int pc = 0;
+        // Start of the instruction being executed, for routing what it throws
+        int at = 0;
+        Arguments arguments = new Arguments();
+
+        for (;;) {
+            try {
+                frames:
+                for (;;) {
+                    int[] code = frame.code.getCode();
+                    Object[] constants = frame.code.getConstants();
+                    Node[] nodes = frame.code.getNodes();
+                    Object[] r = frame.registers;
+                    SymbolTable[] scopes = frame.scopes;
+
+                    for (;;) {
+                        at = pc;
+                        switch (code[pc]) {
+                            case Opcode.CONST:
+                                r[code[pc + 1]] = constants[code[pc + 2]];
+                                pc += 3;
+                                break;
+                            case Opcode.LOAD_LOCAL: {
+                                Object value = scopes[code[pc + 2]].getSlot(code[pc + 3]);
+                                if (value == SymbolTable.UNDEFINED) {
+                                    value = ((VariableNode) nodes[code[pc + 4]]).lookup(interpreter);
+                                } else if (value == null) {
+                                    throw new RuntimeException("Variable '"
+                                        + ((VariableNode) nodes[code[pc + 4]]).getName() + "' is not defined.");
+                                }
+                                r[code[pc + 1]] = value;
+                                pc += 5;
+                                break;
+                            }
+                            case Opcode.EVAL:
+                                r[code[pc + 1]] = nodes[code[pc + 2]].execute(interpreter);
+                                pc += 3;
+                                break;
+                            case Opcode.EXEC:
+                                nodes[code[pc + 1]].execute(interpreter);
+                                pc += 2;
+                                break;
+                            case Opcode.ARITHMETIC:
+                                code[pc] = specialize(r[code[pc + 3]], r[code[pc + 4]], Opcode.INT_ARITHMETIC,
+                                    Opcode.DOUBLE_ARITHMETIC, Opcode.GENERIC_ARITHMETIC);
+                                // Dispatch again to the specialized instruction
+                                continue;
+                            case Opcode.GENERIC_ARITHMETIC:
+                                r[code[pc + 1]] = Operations.arithmetic(BINARY_OPERATORS[code[pc + 2]],
+                                    r[code[pc + 3]], r[code[pc + 4]]);
+                                pc += 5;
+                                break;
+                            case Opcode.INT_ARITHMETIC: {
+                                Object left = r[code[pc + 3]];
+                                Object right = r[code[pc + 4]];
+                                if (left instanceof Integer && right instanceof Integer) {
+                                    r[code[pc + 1]] = Operations.intArithmetic(BINARY_OPERATORS[code[pc + 2]],
+                                        (Integer) left, (Integer) right);
+                                } else {
+                                    code[pc] = Opcode.GENERIC_ARITHMETIC;
+                                    r[code[pc + 1]] = Operations.arithmetic(BINARY_OPERATORS[code[pc + 2]], left, right);
+                                }
+                                pc += 5;
+                                break;
+                            }
+                            case Opcode.DOUBLE_ARITHMETIC: {
+                                Object left = r[code[pc + 3]];
+                                Object right = r[code[pc + 4]];
+                                if (left instanceof Double && right instanceof Double) {
+                                    r[code[pc + 1]] = Operations.doubleArithmetic(BINARY_OPERATORS[code[pc + 2]],
+                                        (Double) left, (Double) right);
+                                } else {
+                                    code[pc] = Opcode.GENERIC_ARITHMETIC;
+                                    r[code[pc + 1]] = Operations.arithmetic(BINARY_OPERATORS[code[pc + 2]], left, right);
+                                }
+                                pc += 5;
+                                break;
+                            }
+                            case Opcode.COMPARE:
+                                code[pc] = specialize(r[code[pc + 3]], r[code[pc + 4]], Opcode.INT_COMPARE,
+                                    Opcode.DOUBLE_COMPARE, Opcode.GENERIC_COMPARE);
+                                // Dispatch again to the specialized instruction
+                                continue;
+                            case Opcode.GENERIC_COMPARE:
+                                r[code[pc + 1]] = Operations.compare(BINARY_OPERATORS[code[pc + 2]],
+                                    r[code[pc + 3]], r[code[pc + 4]]);
+                                pc += 5;
+                                break;
+                            case Opcode.INT_COMPARE: {
+                                Object left = r[code[pc + 3]];
+                                Object right = r[code[pc + 4]];
+                                if (left instanceof Integer && right instanceof Integer) {
+                                    r[code[pc + 1]] = Operations.compare(BINARY_OPERATORS[code[pc + 2]],
+                                        ((Integer) left).intValue(), ((Integer) right).intValue());
+                                } else {
+                                    code[pc] = Opcode.GENERIC_COMPARE;
+                                    r[code[pc + 1]] = Operations.compare(BINARY_OPERATORS[code[pc + 2]], left, right);
+                                }
+                                pc += 5;
+                                break;
+                            }
+                            case Opcode.DOUBLE_COMPARE: {
+                                Object left = r[code[pc + 3]];
+                                Object right = r[code[pc + 4]];
+                                if (left instanceof Double && right instanceof Double) {
+                                    r[code[pc + 1]] = Operations.compare(BINARY_OPERATORS[code[pc + 2]],
+                                        ((Double) left).doubleValue(), ((Double) right).doubleValue());
+                                } else {
+                                    code[pc] = Opcode.GENERIC_COMPARE;
+                                    r[code[pc + 1]] = Operations.compare(BINARY_OPERATORS[code[pc + 2]], left, right);
+                                }
+                                pc += 5;
+                                break;
+                            }
+                            case Opcode.EQUALS:
+                                r[code[pc + 1]] = Operations.equality(BINARY_OPERATORS[code[pc + 2]],
+                                    r[code[pc + 3]], r[code[pc + 4]]);
+                                pc += 5;
+                                break;
+                            case Opcode.UNARY:
+                                r[code[pc + 1]] = Operations.unary(UNARY_OPERATORS[code[pc + 2]], r[code[pc + 3]]);
+                                pc += 4;
+                                break;
+                            case Opcode.TO_BOOLEAN:
+                                r[code[pc + 1]] = Operations.toBoolean(r[code[pc + 2]]);
+                                pc += 3;
+                                break;
+                            case Opcode.JUMP:
+                                pc = code[pc + 1];
+                                break;
+                            case Opcode.JUMP_IF_FALSE:
+                                pc = Operations.toBoolean(r[code[pc + 1]]) ? pc + 3 : code[pc + 2];
+                                break;
+                            case Opcode.JUMP_IF_TRUE:
+                                pc = Operations.toBoolean(r[code[pc + 1]]) ? code[pc + 2] : pc + 3;
+                                break;
+                            case Opcode.STORE_SLOT:
+                                scopes[code[pc + 1]].setSlot(code[pc + 2], r[code[pc + 3]]);
+                                pc += 4;
+                                break;
+                            case Opcode.DECLARE:
+                                scopes[code[pc + 1]].set((String) constants[code[pc + 2]], r[code[pc + 3]]);
+                                pc += 4;
+                                break;
+                            case Opcode.DECLARE_CONSTANT:
+                                scopes[code[pc + 1]].setConstant((String) constants[code[pc + 2]], r[code[pc + 3]]);
+                                pc += 4;
+                                break;
+                            case Opcode.CHECK_INDEX:
+                                LeftHandSideNode.checkIndex(r[code[pc + 1]]);
+                                pc += 2;
+                                break;
+                            case Opcode.TARGET:
+                                r[code[pc + 1]] = nodes[code[pc + 2]].execute(interpreter);
+                                pc += 3;
+                                break;
+                            case Opcode.LOCAL_TARGET: {
+                                SymbolTable scope = scopes[code[pc + 2]];
+                                LeftHandSideNode target = (LeftHandSideNode) nodes[code[pc + 4]];
+                                r[code[pc + 1]] = scope.getSlot(code[pc + 3]) != SymbolTable.UNDEFINED
+                                        && !scope.isConstant(target.getName())
+                                    ? scope
+                                    : target.execute(interpreter);
+                                pc += 5;
+                                break;
+                            }
+                            case Opcode.STORE:
+                                ((LeftHandSideNode) nodes[code[pc + 5]])
+                                    .store(r[code[pc + 1]], r, code[pc + 2], code[pc + 3], r[code[pc + 4]]);
+                                pc += 6;
+                                break;
+                            case Opcode.STORE_LOCAL: {
+                                Object target = r[code[pc + 1]];
+                                if (target == scopes[code[pc + 2]]) {
+                                    ((SymbolTable) target).setSlot(code[pc + 3], r[code[pc + 4]]);
+                                } else {
+                                    ((LeftHandSideNode) nodes[code[pc + 5]]).store(target, r, 0, 0, r[code[pc + 4]]);
+                                }
+                                pc += 6;
+                                break;
+                            }
+                            case Opcode.OUTPUT:
+                                r[code[pc + 1]] = new StringBuilder();
+                                pc += 2;
+                                break;
+                            case Opcode.APPEND:
+                                ((StringBuilder) r[code[pc + 1]]).append(r[code[pc + 2]]).append(" ");
+                                pc += 3;
+                                break;
+                            case Opcode.PRINT:
+                                System.out.println(r[code[pc + 1]].toString().trim());
+                                pc += 2;
+                                break;
+                            case Opcode.POSITION:
+                                interpreter.recordPosition(code[pc + 1], code[pc + 2]);
+                                pc += 3;
+                                break;
+                            case Opcode.PUSH_SCOPE: {
+                                SymbolTable scope = SymbolTable.obtain((FrameDescriptor) constants[code[pc + 2]],
+                                    interpreter.getGlobalSymbolTable());
+                                stack.push(scope);
+                                scopes[code[pc + 1]] = scope;
+                                pc += 3;
+                                break;
+                            }
+                            case Opcode.POP_SCOPE:
+                                stack.pop().release();
+                                pc += 1;
+                                break;
+                            case Opcode.INCREMENT: {
+                                SymbolTable scope = scopes[code[pc + 1]];
+                                Object value = scope.getSlot(code[pc + 2]);
+                                if (value instanceof Integer) {
+                                    scope.setSlot(code[pc + 2], (Integer) value + code[pc + 3]);
+                                } else {
+                                    nodes[code[pc + 4]].execute(interpreter);
+                                }
+                                pc += 5;
+                                break;
+                            }
+                            case Opcode.LOOP:
+                                frame.profile.countLoopIteration();
+                                pc += 1;
+                                break;
+                            case Opcode.CALL:
+                            case Opcode.TAIL_CALL: {
+                                FunctionCallNode call = (FunctionCallNode) nodes[code[pc + 2]];
+                                List<Object> args = arguments.over(r, code[pc + 3], code[pc + 4]);
+                                Object callee = call.lookup(interpreter, args);
+                                Object value;
+                                if (callee != null && callee.getClass() == Function.class) {
+                                    FunctionBodyNode body = ((Function) callee).getBody();
+                                    CompiledBody compiled = body.getProfile().select(body, interpreter, args);
+                                    VmCode calleeCode = compiled == null ? body.getVmCode() : null;
+                                    if (calleeCode != null) {
+                                        frame.pc = pc + 5;
+                                        frame.callPc = at;
+                                        frame = code[pc] == Opcode.TAIL_CALL
+                                            ? replace(interpreter, stack, frame, body, calleeCode, null, args, null, null)
+                                            : enter(interpreter, stack, frame, body, calleeCode, null, args, code[pc + 1],
+                                                null, null);
+                                        pc = 0;
+                                        continue frames;
+                                    }
+                                    interpreter.incrementCallDepth();
+                                    try {
+                                        value = compiled != null
+                                            ? compiled.run(interpreter, args)
+                                            : body.walk(interpreter, null, args);
+                                    } finally {
+                                        interpreter.decrementCallDepth();
+                                    }
+                                } else if (callee instanceof BuiltInFunction) {
+                                    value = ((BuiltInFunction) callee).call(arguments.copy());
+                                } else if (callee instanceof FunctionReference) {
+                                    value = ((FunctionReference) callee).call(args);
+                                } else {
+                                    value = call.call(interpreter, callee, arguments.copy());
+                                }
+                                r[code[pc + 1]] = value;
+                                pc += 5;
+                                break;
+                            }
+                            case Opcode.INVOKE:
+                            case Opcode.TAIL_INVOKE: {
+                                CallNode call = (CallNode) nodes[code[pc + 2]];
+                                Object callee = r[code[pc + 3]];
+                                List<Object> args = arguments.over(r, code[pc + 4], code[pc + 5]);
+                                Object value;
+                                FunctionBodyNode body = call.enterableBody(interpreter, callee, args);
+                                if (body != null) {
+                                    Object self = CallNode.receiver(callee);
+                                    CompiledBody compiled = body.getProfile().select(body, interpreter, args);
+                                    VmCode calleeCode = compiled == null ? body.getVmCode() : null;
+                                    if (calleeCode != null) {
+                                        frame.pc = pc + 6;
+                                        frame.callPc = at;
+                                        frame = code[pc] == Opcode.TAIL_INVOKE
+                                            ? replace(interpreter, stack, frame, body, calleeCode, self, args, call, callee)
+                                            : enter(interpreter, stack, frame, body, calleeCode, self, args, code[pc + 1],
+                                                call, callee);
+                                        pc = 0;
+                                        continue frames;
+                                    }
+                                    try {
+                                        value = compiled != null
+                                            ? compiled.run(interpreter, args)
+                                            : body.walk(interpreter, self, args);
+                                    } catch (Exception e) {
+                                        throw call.callError(interpreter, callee, e);
+                                    }
+                                } else {
+                                    value = call.call(interpreter, callee, arguments.copy());
+                                }
+                                r[code[pc + 1]] = value;
+                                pc += 6;
+                                break;
+                            }
+                            case Opcode.RETURN:
+                            case Opcode.RETURN_NULL: {
+                                Object value = code[pc] == Opcode.RETURN ? r[code[pc + 1]] : null;
+                                Frame caller = leave(interpreter, stack, frame);
+                                if (caller == null) {
+                                    return value;
+                                }
+                                caller.registers[frame.result] = value;
+                                frame = caller;
+                                pc = caller.pc;
+                                continue frames;
+                            }
+                            default:
+                                throw new IllegalStateException("Bad opcode " + code[pc] + " at " + pc);
+                        }
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                Throwable thrown = e;
+                for (;;) {
+                    if (thrown instanceof ReturnException && frame.code.isFunction()) {
+                        Object value = ((ReturnException) thrown).getValue();
+                        Frame caller = leave(interpreter, stack, frame);
+                        if (caller == null) {
+                            return value;
+                        }
+                        caller.registers[frame.result] = value;
+                        frame = caller;
+                        pc = caller.pc;
+                        break;
+                    }
+                    if (thrown instanceof BreakException || thrown instanceof ContinueException) {
+                        int loop = frame.code.findLoop(at,
+                            thrown instanceof BreakException ? VmCode.BREAK : VmCode.CONTINUE);
+                        if (loop >= 0) {
+                            while (stack.size() > frame.floor + frame.code.getLoopLevel(loop)) {
+                                stack.pop().release();
+                            }
+                            pc = frame.code.getLoopTarget(loop);
+                            break;
+                        }
+                    }
+
+                    // Nothing in this frame handles it: it leaves the frame through the calls that entered it
+                    CallChain calls = frame.calls;
+                    frame = leave(interpreter, stack, frame);
+                    if (calls != null && thrown instanceof Exception) {
+                        thrown = calls.report(interpreter, (Exception) thrown);
+                    }
+                    if (frame == null) {
+                        if (thrown instanceof Error) {
+                            throw (Error) thrown;
+                        }
+                        throw (RuntimeException) thrown;
+                    }
+                    at = frame.callPc;
+                }
+            }
+        }
+    }
+
+    /** Picks the form an ARITHMETIC or COMPARE instruction rewrites itself to. */
+    private static int specialize(Object left, Object right, int intForm, int doubleForm, int genericForm) {
+        if (left instanceof Integer && right instanceof Integer) {
+            return intForm;
+        }
+        if (left instanceof Double && right instanceof Double) {
+            return doubleForm;
+        }
+        return genericForm;
+    }
+
+    /**
+     * Pushes a frame for a call from {@code caller}, with 'this' bound to
+     * {@code self} unless it is null. {@code call} is the postfix call of
+     * {@code callee} that reports the callee's errors, or null for a call by
+     * name, which counts towards the debugger's call depth instead.
+     */
+    private static Frame enter(Interpreter interpreter, Deque<SymbolTable> stack, Frame caller,
+                               FunctionBodyNode body, VmCode code, Object self, List<Object> args, int result,
+                               CallNode call, Object callee) {
+        if (caller.depth == MAX_FRAMES) {
+            // Reported the same way as running out of Java stack in the tree
+            throw new StackOverflowError("More than " + MAX_FRAMES + " nested calls");
+        }
+        if (call == null) {
+            interpreter.incrementCallDepth();
+        }
+        Frame frame = new Frame(code, body.getProfile(), caller, caller.depth + 1, stack.size(), stack.size() + 1,
+            result, call != null ? CallChain.prepend(call, callee, null) : null, call == null ? 1 : 0);
+        return push(stack, frame, body.createScope(interpreter, self, args));
+    }
+
+    /**
+     * Replaces {@code frame} by one for a call it makes in tail position. The
+     * new frame returns to the same caller and register, and leaves through
+     * the calls that entered {@code frame} as well as its own.
+     */
+    private static Frame replace(Interpreter interpreter, Deque<SymbolTable> stack, Frame frame,
+                                 FunctionBodyNode body, VmCode code, Object self, List<Object> args,
+                                 CallNode call, Object callee) {
+        if (call == null) {
+            interpreter.incrementCallDepth();
+        }
+        SymbolTable scope = body.createScope(interpreter, self, args);
+        FunctionBodyNode.enterTail(stack, frame.base, scope);
+        Frame tail = new Frame(code, body.getProfile(), frame.caller, frame.depth, frame.base, stack.size(),
+            frame.result, call != null ? CallChain.prepend(call, callee, frame.calls) : frame.calls,
+            frame.namedCalls + (call == null ? 1 : 0));
+        tail.scopes[0] = scope;
+        return tail;
+    }
+
+    private static Frame push(Deque<SymbolTable> stack, Frame frame, SymbolTable scope) {
+        stack.push(scope);
+        frame.scopes[0] = scope;
+        return frame;
+    }
+
+    /**
+     * Pops and releases a finished frame's scopes and returns its caller, or
+     * null if it was the frame the dispatch loop started with.
+     */
+    private static Frame leave(Interpreter interpreter, Deque<SymbolTable> stack, Frame frame) {
+        while (stack.size() > frame.base) {
+            stack.pop().release();
+        }
+        for (int i = 0; i < frame.namedCalls; i++) {
+            interpreter.decrementCallDepth();
+        }
+        return frame.caller;
+    }
+}
@@ -0,0 +1,86 @@
+package components.vm;
+
+import components.nodes.Node;
+
+import java.io.Serializable;
+
+/**
+ * Register code for one function body or for the top level of a program,
+ * produced by {@link VmCompiler} and run by {@link Vm}.
+ * <p>
+ * Level 0 is the scope the code starts in: the call scope of a function, or
+ * whatever scope was current when a program started. Each for-loop the code
+ * enters pushes the next level.
+ */
+public final class VmCode implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Stride of the loop table: start, end, target, level, kind
+    static final int LOOP_ENTRY = 5;
+    static final int BREAK = 0;
+    static final int CONTINUE = 1;
+
+    private final int[] code;
+    private final Object[] constants;
+    private final Node[] nodes;
+    private final int[] loops;
+    private final int registers;
+    private final int levels;
+    private final boolean function;
+
+    VmCode(int[] code, Object[] constants, Node[] nodes, int[] loops, int registers, int levels, boolean function) {
+        this.code = code;
+        this.constants = constants;
+        this.nodes = nodes;
+        this.loops = loops;
+        this.registers = registers;
+        this.levels = levels;
+        this.function = function;
+    }
+
+    int[] getCode() {
+        return code;
+    }
+
+    Object[] getConstants() {
+        return constants;
+    }
+
+    Node[] getNodes() {
+        return nodes;
+    }
+
+    int getRegisters() {
+        return registers;
+    }
+
+    int getLevels() {
+        return levels;
+    }
+
+    boolean isFunction() {
+        return function;
+    }
+
+    /**
+     * Finds the innermost loop whose break (or continue) range covers the
+     * instruction at {@code pc}, and returns its index in the loop table,
+     * or -1.
+     */
+    int findLoop(int pc, int kind) {
+        for (int i = 0; i < loops.length; i += LOOP_ENTRY) {
+            if (loops[i + 4] == kind && pc >= loops[i] && pc < loops[i + 1]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int getLoopTarget(int loop) {
+        return loops[loop + 2];
+    }
+
+    int getLoopLevel(int loop) {
+        return loops[loop + 3];
+    }
+}
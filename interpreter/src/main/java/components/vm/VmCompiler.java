@@ -0,0 +1,587 @@
+package components.vm;
+
+import components.nodes.ArithmeticNode;
+import components.nodes.AssignmentNode;
+import components.nodes.BlockNode;
+import components.nodes.BreakNode;
+import components.nodes.CallNode;
+import components.nodes.ContinueNode;
+import components.nodes.CountedForNode;
+import components.nodes.DoWhileNode;
+import components.nodes.EqualityNode;
+import components.nodes.ForNode;
+import components.nodes.FunctionBodyNode;
+import components.nodes.FunctionCallNode;
+import components.nodes.FunctionDeclarationNode;
+import components.nodes.IfNode;
+import components.nodes.LeftHandSideNode;
+import components.nodes.LiteralNode;
+import components.nodes.LocalVariableNode;
+import components.nodes.LogicalAndNode;
+import components.nodes.LogicalOrNode;
+import components.nodes.Node;
+import components.nodes.PrintNode;
+import components.nodes.ProgramNode;
+import components.nodes.RelationalNode;
+import components.nodes.ReturnNode;
+import components.nodes.UnaryNode;
+import components.nodes.VariableDeclarationNode;
+import components.nodes.WhileNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles lowered node trees to register code for {@link Vm}.
+ * <p>
+ * Control flow, locals, operators, printing and calls become instructions;
+ * any other statement or expression is kept as a node and run by an
+ * {@link Opcode#EXEC} or {@link Opcode#EVAL} instruction, so every tree can
+ * be compiled. Scopes are still pushed on the interpreter's scope
+ * stack exactly as the tree would push them, since callees and the nodes
+ * left to the tree look names up there.
+ * <p>
+ * The VM can be switched off with {@code -Dvg.vm=false}.
+ */
+public final class VmCompiler {
+    private static final boolean ENABLED = !"false".equals(System.getProperty("vg.vm"));
+
+    /** A jump target, patched into every jump to it once its position is known. */
+    private static final class Label {
+        private int position = -1;
+        private final List<Integer> jumps = new ArrayList<>();
+    }
+
+    /** Where break and continue inside a loop go, and the scope level both land at. */
+    private static final class Loop {
+        private final Label breakTarget = new Label();
+        private final Label continueTarget = new Label();
+        private final int level;
+
+        Loop(int level) {
+            this.level = level;
+        }
+    }
+
+    /** An entry of the loop table, whose target may not be marked yet. */
+    private static final class LoopRange {
+        private final int start;
+        private final int end;
+        private final Label target;
+        private final int level;
+        private final int kind;
+
+        LoopRange(int start, int end, Label target, int level, int kind) {
+            this.start = start;
+            this.end = end;
+            this.target = target;
+            this.level = level;
+            this.kind = kind;
+        }
+    }
+
+    private final boolean function;
+    private int[] code = new int[64];
+    private int size;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+    private final List<Node> nodes = new ArrayList<>();
+    private final List<LoopRange> loopTable = new ArrayList<>();
+    private final Deque<Loop> loops = new ArrayDeque<>();
+    private int nextRegister;
+    private int registers;
+    private int level;
+    private int levels = 1;
+
+    private VmCompiler(boolean function) {
+        this.function = function;
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Compiles a function, method or constructor body.
+     */
+    public static VmCode compile(FunctionBodyNode body) {
+        VmCompiler compiler = new VmCompiler(true);
+        compiler.statements(body.getStatements());
+        compiler.emit(Opcode.RETURN_NULL);
+        return compiler.finish();
+    }
+
+    /**
+     * Compiles the top level of a program, and eagerly the bodies of the
+     * functions it declares.
+     */
+    public static VmCode compile(ProgramNode program) {
+        VmCompiler compiler = new VmCompiler(false);
+        compiler.statements(program.getFunctionDeclarations());
+        compiler.statements(program.getStatements());
+        compiler.emit(Opcode.RETURN_NULL);
+        return compiler.finish();
+    }
+
+    private VmCode finish() {
+        int[] loopEntries = new int[loopTable.size() * VmCode.LOOP_ENTRY];
+        for (int i = 0; i < loopTable.size(); i++) {
+            LoopRange range = loopTable.get(i);
+            int entry = i * VmCode.LOOP_ENTRY;
+            loopEntries[entry] = range.start;
+            loopEntries[entry + 1] = range.end;
+            loopEntries[entry + 2] = range.target.position;
+            loopEntries[entry + 3] = range.level;
+            loopEntries[entry + 4] = range.kind;
+        }
+        return new VmCode(Arrays.copyOf(code, size), constants.toArray(), nodes.toArray(new Node[0]),
+            loopEntries, registers, levels, function);
+    }
+
+    // Statements
+
+    private void statements(Node[] statements) {
+        for (Node statement : statements) {
+            statement(statement);
+        }
+    }
+
+    private void statement(Node node) {
+        if (node.getClass() == BlockNode.class) {
+            statements(((BlockNode) node).getStatements());
+        } else if (node instanceof VariableDeclarationNode) {
+            variableDeclaration((VariableDeclarationNode) node);
+        } else if (node instanceof AssignmentNode) {
+            assignment((AssignmentNode) node);
+        } else if (node instanceof PrintNode) {
+            print((PrintNode) node);
+        } else if (node instanceof IfNode) {
+            ifStatement((IfNode) node);
+        } else if (node instanceof WhileNode) {
+            whileLoop((WhileNode) node);
+        } else if (node instanceof DoWhileNode) {
+            doWhileLoop((DoWhileNode) node);
+        } else if (node instanceof CountedForNode) {
+            countedLoop((CountedForNode) node);
+        } else if (node instanceof ForNode) {
+            forLoop((ForNode) node);
+        } else if (node instanceof ReturnNode && function) {
+            returnStatement((ReturnNode) node);
+        } else if (node instanceof BreakNode && !loops.isEmpty()) {
+            jumpOut(loops.peek().breakTarget, loops.peek().level);
+        } else if (node instanceof ContinueNode && !loops.isEmpty()) {
+            jumpOut(loops.peek().continueTarget, loops.peek().level);
+        } else if (node instanceof FunctionDeclarationNode) {
+            // Compile nested bodies now, so a cached program carries their code too
+            ((FunctionDeclarationNode) node).getBody().getVmCode();
+            emit(Opcode.EXEC, node(node));
+        } else if (isExpression(node)) {
+            int mark = nextRegister;
+            expression(node, allocate());
+            nextRegister = mark;
+        } else {
+            emit(Opcode.EXEC, node(node));
+        }
+    }
+
+    private void variableDeclaration(VariableDeclarationNode node) {
+        if (node.tracksPosition()) {
+            emit(Opcode.POSITION, node.getLine(), node.getColumn());
+        }
+        int mark = nextRegister;
+        int value = allocate();
+        expression(node.getValue(), value);
+        if (node.isConstant()) {
+            emit(Opcode.DECLARE_CONSTANT, level, constant(node.getName()), value);
+        } else if (node.getSlot() >= 0) {
+            emit(Opcode.STORE_SLOT, level, node.getSlot(), value);
+        } else {
+            emit(Opcode.DECLARE, level, constant(node.getName()), value);
+        }
+        nextRegister = mark;
+    }
+
+    private void assignment(AssignmentNode node) {
+        if (node.tracksPosition()) {
+            emit(Opcode.POSITION, node.getLine(), node.getColumn());
+        }
+        int mark = nextRegister;
+        LeftHandSideNode target = node.getTarget();
+        Node[] indices = target.getIndices();
+        int first = nextRegister;
+        for (Node index : indices) {
+            allocate();
+        }
+        for (int i = 0; i < indices.length; i++) {
+            expression(indices[i], first + i);
+            emit(Opcode.CHECK_INDEX, first + i);
+        }
+        int resolved = allocate();
+        int value = allocate();
+        int depth = target.getDepth();
+        boolean local = target.getKind() == LeftHandSideNode.Kind.VARIABLE && indices.length == 0
+            && target.getSlot() >= 0 && depth <= level;
+        if (local) {
+            emit(Opcode.LOCAL_TARGET, resolved, level - depth, target.getSlot(), node(target));
+            expression(node.getValue(), value);
+            emit(Opcode.STORE_LOCAL, resolved, level - depth, target.getSlot(), value, node(target));
+        } else {
+            emit(Opcode.TARGET, resolved, node(target));
+            expression(node.getValue(), value);
+            emit(Opcode.STORE, resolved, first, indices.length, value, node(target));
+        }
+        nextRegister = mark;
+    }
+
+    private void print(PrintNode node) {
+        emit(Opcode.POSITION, node.getLine(), node.getColumn());
+        int mark = nextRegister;
+        int output = allocate();
+        int value = allocate();
+        // Each value is converted to text before the next one is evaluated
+        emit(Opcode.OUTPUT, output);
+        for (Node part : node.getValues()) {
+            expression(part, value);
+            emit(Opcode.APPEND, output, value);
+        }
+        emit(Opcode.PRINT, output);
+        nextRegister = mark;
+    }
+
+    private void ifStatement(IfNode node) {
+        emit(Opcode.POSITION, node.getLine(), node.getColumn());
+        Label end = new Label();
+        Node[] conditions = node.getConditions();
+        for (int i = 0; i < conditions.length; i++) {
+            Label next = new Label();
+            jumpUnless(conditions[i], next);
+            statement(node.getBlocks()[i]);
+            jump(Opcode.JUMP, end);
+            mark(next);
+        }
+        if (node.getElseBlock() != null) {
+            statement(node.getElseBlock());
+        }
+        mark(end);
+    }
+
+    private void whileLoop(WhileNode node) {
+        Loop loop = new Loop(level);
+        int start = size;
+        mark(loop.continueTarget);
+        jumpUnless(node.getCondition(), loop.breakTarget);
+        loopBody(loop, node.getBody());
+        jump(Opcode.JUMP, loop.continueTarget);
+        mark(loop.breakTarget);
+        addLoop(start, size, loop.breakTarget, loop.level, VmCode.BREAK);
+    }
+
+    private void doWhileLoop(DoWhileNode node) {
+        Loop loop = new Loop(level);
+        Label body = new Label();
+        int start = size;
+        mark(body);
+        loopBody(loop, node.getBody());
+        mark(loop.continueTarget);
+        int mark = nextRegister;
+        int condition = allocate();
+        expression(node.getCondition(), condition);
+        jump(Opcode.JUMP_IF_TRUE, condition, body);
+        nextRegister = mark;
+        mark(loop.breakTarget);
+        addLoop(start, size, loop.breakTarget, loop.level, VmCode.BREAK);
+    }
+
+    private void forLoop(ForNode node) {
+        emit(Opcode.POSITION, node.getLine(), node.getColumn());
+        emit(Opcode.PUSH_SCOPE, level + 1, constant(node.getFrame()));
+        level++;
+        levels = Math.max(levels, level + 1);
+
+        Loop loop = new Loop(level);
+        int start = size;
+        if (node.getInit() != null) {
+            statement(node.getInit());
+        }
+        Label condition = new Label();
+        mark(condition);
+        if (node.getCondition() != null) {
+            jumpUnless(node.getCondition(), loop.breakTarget);
+        }
+        loopBody(loop, node.getBody());
+        mark(loop.continueTarget);
+        if (node.getUpdate() != null) {
+            statement(node.getUpdate());
+        }
+        jump(Opcode.JUMP, condition);
+        mark(loop.breakTarget);
+        addLoop(start, size, loop.breakTarget, loop.level, VmCode.BREAK);
+
+        level--;
+        emit(Opcode.POP_SCOPE);
+    }
+
+    /**
+     * Compiles a counted loop: the counter is compared straight from its slot,
+     * an invariant limit is evaluated into a register once, and the update is
+     * a single INCREMENT.
+     */
+    private void countedLoop(CountedForNode node) {
+        emit(Opcode.POSITION, node.getLine(), node.getColumn());
+        emit(Opcode.PUSH_SCOPE, level + 1, constant(node.getFrame()));
+        level++;
+        levels = Math.max(levels, level + 1);
+
+        Loop loop = new Loop(level);
+        int start = size;
+        int mark = nextRegister;
+        int limit = allocate();
+        statement(node.getInit());
+        if (node.isInvariantLimit()) {
+            expression(node.getLimit(), limit);
+        }
+        Label condition = new Label();
+        mark(condition);
+        int test = allocate();
+        expression(node.getCounter(), test);
+        if (!node.isInvariantLimit()) {
+            expression(node.getLimit(), limit);
+        }
+        emit(Opcode.COMPARE, test, node.getComparison().ordinal(), test, limit);
+        jump(Opcode.JUMP_IF_FALSE, test, loop.breakTarget);
+        nextRegister = limit + 1;
+        loopBody(loop, node.getBody());
+        mark(loop.continueTarget);
+        emit(Opcode.INCREMENT, level, node.getCounter().getSlot(), node.getStep(), node(node.getUpdate()));
+        jump(Opcode.JUMP, condition);
+        mark(loop.breakTarget);
+        addLoop(start, size, loop.breakTarget, loop.level, VmCode.BREAK);
+        nextRegister = mark;
+
+        level--;
+        emit(Opcode.POP_SCOPE);
+    }
+
+    /**
+     * Compiles a loop body, which continue (thrown or compiled to a jump)
+     * leaves for the loop's continue target.
+     */
+    private void loopBody(Loop loop, Node body) {
+        if (function) {
+            emit(Opcode.LOOP);
+        }
+        loops.push(loop);
+        int start = size;
+        statement(body);
+        addLoop(start, size, loop.continueTarget, loop.level, VmCode.CONTINUE);
+        loops.pop();
+    }
+
+    private void returnStatement(ReturnNode node) {
+        if (node.getValue() == null) {
+            emit(Opcode.RETURN_NULL);
+            return;
+        }
+        int mark = nextRegister;
+        int value = allocate();
+        // A returned call runs in this frame's place when it enters register code
+        if (node.getValue() instanceof FunctionCallNode) {
+            call((FunctionCallNode) node.getValue(), value, Opcode.TAIL_CALL);
+        } else if (node.getValue() instanceof CallNode) {
+            invoke((CallNode) node.getValue(), value, Opcode.TAIL_INVOKE);
+        } else {
+            expression(node.getValue(), value);
+        }
+        emit(Opcode.RETURN, value);
+        nextRegister = mark;
+    }
+
+    /** Jumps to a loop's break or continue target, popping the scopes in between. */
+    private void jumpOut(Label target, int targetLevel) {
+        for (int i = level; i > targetLevel; i--) {
+            emit(Opcode.POP_SCOPE);
+        }
+        jump(Opcode.JUMP, target);
+    }
+
+    // Expressions
+
+    private static boolean isExpression(Node node) {
+        return node instanceof LiteralNode || node instanceof LocalVariableNode || node instanceof ArithmeticNode
+            || node instanceof RelationalNode || node instanceof EqualityNode || node instanceof UnaryNode
+            || node instanceof LogicalAndNode || node instanceof LogicalOrNode || node instanceof FunctionCallNode
+            || node instanceof CallNode;
+    }
+
+    /** Compiles {@code node} so that its value ends up in register {@code dst}. */
+    private void expression(Node node, int dst) {
+        if (node instanceof LiteralNode) {
+            emit(Opcode.CONST, dst, constant(((LiteralNode) node).getValue()));
+        } else if (node instanceof LocalVariableNode && ((LocalVariableNode) node).getDepth() <= level) {
+            LocalVariableNode local = (LocalVariableNode) node;
+            emit(Opcode.LOAD_LOCAL, dst, level - local.getDepth(), local.getSlot(), node(node));
+        } else if (node instanceof ArithmeticNode) {
+            ArithmeticNode arithmetic = (ArithmeticNode) node;
+            binary(Opcode.ARITHMETIC, arithmetic.getOperator().ordinal(), arithmetic.getLeft(),
+                arithmetic.getRight(), dst);
+        } else if (node instanceof RelationalNode) {
+            RelationalNode relational = (RelationalNode) node;
+            binary(Opcode.COMPARE, relational.getOperator().ordinal(), relational.getLeft(),
+                relational.getRight(), dst);
+        } else if (node instanceof EqualityNode) {
+            EqualityNode equality = (EqualityNode) node;
+            binary(Opcode.EQUALS, equality.getOperator().ordinal(), equality.getLeft(), equality.getRight(), dst);
+        } else if (node instanceof UnaryNode) {
+            UnaryNode unary = (UnaryNode) node;
+            expression(unary.getOperand(), dst);
+            emit(Opcode.UNARY, dst, unary.getOperator().ordinal(), dst);
+        } else if (node instanceof LogicalAndNode) {
+            // Every operand is evaluated and the last one is the result
+            for (Node operand : ((LogicalAndNode) node).getOperands()) {
+                expression(operand, dst);
+            }
+        } else if (node instanceof LogicalOrNode) {
+            logicalOr((LogicalOrNode) node, dst);
+        } else if (node instanceof FunctionCallNode) {
+            call((FunctionCallNode) node, dst, Opcode.CALL);
+        } else if (node instanceof CallNode) {
+            invoke((CallNode) node, dst, Opcode.INVOKE);
+        } else {
+            emit(Opcode.EVAL, dst, node(node));
+        }
+    }
+
+    private void binary(int opcode, int operator, Node left, Node right, int dst) {
+        int mark = nextRegister;
+        expression(left, dst);
+        int rightValue = allocate();
+        expression(right, rightValue);
+        emit(opcode, dst, operator, dst, rightValue);
+        nextRegister = mark;
+    }
+
+    private void logicalOr(LogicalOrNode node, int dst) {
+        Node[] operands = node.getOperands();
+        Label isTrue = new Label();
+        Label end = new Label();
+        expression(operands[0], dst);
+        for (int i = 1; i < operands.length; i++) {
+            jump(Opcode.JUMP_IF_TRUE, dst, isTrue);
+            expression(operands[i], dst);
+            emit(Opcode.TO_BOOLEAN, dst, dst);
+        }
+        if (operands.length > 1) {
+            jump(Opcode.JUMP, end);
+            mark(isTrue);
+            emit(Opcode.CONST, dst, constant(Boolean.TRUE));
+        }
+        mark(end);
+    }
+
+    private void call(FunctionCallNode node, int dst, int opcode) {
+        int mark = nextRegister;
+        Node[] arguments = node.getArguments();
+        int first = nextRegister;
+        for (Node argument : arguments) {
+            allocate();
+        }
+        for (int i = 0; i < arguments.length; i++) {
+            expression(arguments[i], first + i);
+        }
+        emit(opcode, dst, node(node), first, arguments.length);
+        nextRegister = mark;
+    }
+
+    private void invoke(CallNode node, int dst, int opcode) {
+        int mark = nextRegister;
+        int callee = allocate();
+        expression(node.getCallee(), callee);
+        Node[] arguments = node.getArguments();
+        int first = nextRegister;
+        for (Node argument : arguments) {
+            allocate();
+        }
+        for (int i = 0; i < arguments.length; i++) {
+            expression(arguments[i], first + i);
+        }
+        emit(opcode, dst, node(node), callee, first, arguments.length);
+        nextRegister = mark;
+    }
+
+    private void jumpUnless(Node condition, Label target) {
+        int mark = nextRegister;
+        int value = allocate();
+        expression(condition, value);
+        jump(Opcode.JUMP_IF_FALSE, value, target);
+        nextRegister = mark;
+    }
+
+    // Tables and registers
+
+    private int allocate() {
+        int register = nextRegister++;
+        registers = Math.max(registers, nextRegister);
+        return register;
+    }
+
+    private int constant(Object value) {
+        // Keyed by class as well, so that 1 and 1.0 stay distinct constants
+        List<Object> key = Arrays.asList(value != null ? value.getClass() : null, value);
+        Integer index = constantIndex.get(key);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(key, index);
+        }
+        return index;
+    }
+
+    private int node(Node node) {
+        nodes.add(node);
+        return nodes.size() - 1;
+    }
+
+    private void addLoop(int start, int end, Label target, int targetLevel, int kind) {
+        loopTable.add(new LoopRange(start, end, target, targetLevel, kind));
+    }
+
+    // Emission
+
+    private void emit(int... words) {
+        if (size + words.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + words.length));
+        }
+        System.arraycopy(words, 0, code, size, words.length);
+        size += words.length;
+    }
+
+    private void jump(int opcode, Label target) {
+        emit(opcode, 0);
+        patch(target, size - 1);
+    }
+
+    private void jump(int opcode, int register, Label target) {
+        emit(opcode, register, 0);
+        patch(target, size - 1);
+    }
+
+    private void patch(Label target, int operand) {
+        if (target.position >= 0) {
+            code[operand] = target.position;
+        } else {
+            target.jumps.add(operand);
+        }
+    }
+
+    private void mark(Label label) {
+        label.position = size;
+        for (int operand : label.jumps) {
+            code[operand] = size;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package components;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Calls the functions of one script from several threads of one
+ * interpreter at once, as GUI callbacks and script threads do, while the
+ * thread that created it keeps declaring globals. Each call is made often
+ * enough to be compiled, with arguments of more than one type, so threads
+ * share the global lookup caches, the compiled versions and the pooled
+ * scopes of the same bodies.
+ */
+class ConcurrentExecutionTest {
+    private static final int THREADS = 2;
+    private static final int CALLS = 3000;
+    private static final String SCRIPT = String.join("\n",
+        "var offset = 3;",
+        "function square(x) { return x * x; }",
+        "function work(n) {",
+        "    var total = 0;",
+        "    for (var i = 0; i < n; i = i + 1) {",
+        "        total = total + square(i) + offset;",
+        "    }",
+        "    return total;",
+        "}");
+
+    @TempDir
+    Path packages;
+
+    @Test
+    void threadsRunTheSameScriptTogether() throws Exception {
+        Interpreter interpreter = new Interpreter(packages.toString());
+        interpreter.interpret(SCRIPT);
+        Function work = interpreter.globalSymbolTable.getFunction("work");
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int call = 0; call < CALLS && failure.get() == null; call++) {
+                        int n = (call * 7 + seed * 13) % 120;
+                        // Both argument types, so that each body gets more than one compiled version
+                        Object argument = call % 3 == 0 ? (Object) (double) n : (Object) n;
+                        assertEquals(expected(n), ((Number) work.call(args(argument))).intValue(), "work(" + argument + ")");
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "script-" + t);
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        // New globals make the cached lookups stale while the other threads use them
+        for (int i = 0; i < 200 && failure.get() == null; i++) {
+            interpreter.interpret("var declared" + i + " = " + i + ";");
+        }
+        for (Thread thread : threads) {
+            thread.join(120_000);
+            assertFalse(thread.isAlive(), thread.getName() + " did not finish");
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("A script thread failed", failure.get());
+        }
+        assertEquals(expected(100), ((Number) work.call(args(100))).intValue());
+    }
+
+    private static int expected(int n) {
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            total += i * i + 3;
+        }
+        return total;
+    }
+
+    private static List<Object> args(Object... values) {
+        return new ArrayList<>(Arrays.asList(values));
+    }
+}
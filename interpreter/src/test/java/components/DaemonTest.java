@@ -0,0 +1,107 @@
+package components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a daemon and clients in processes of their own. The script prints
+ * a property each process is started with, so its output tells which
+ * process ran it.
+ */
+class DaemonTest {
+    private static final String SCRIPT = "print(VgSystemCall(\"java.lang.System\", \"getProperty\", \"vg.test.where\"));\n";
+    // Runs until its client sends a line
+    private static final String WAITING_SCRIPT = "print(\"started\");\n"
+        + "VgSystemCall(\"components.IoUtils\", \"getSystemIn\");\n" + SCRIPT;
+
+    @TempDir
+    Path directory;
+
+    private Path daemonFile;
+    private Process daemon;
+
+    @BeforeEach
+    void startDaemon() throws Exception {
+        daemonFile = directory.resolve("daemon");
+        Files.write(directory.resolve("where.vg"), SCRIPT.getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("waiting.vg"), WAITING_SCRIPT.getBytes(StandardCharsets.UTF_8));
+
+        ProcessBuilder builder = VgProcess.builder(directory, properties("daemon"), "--daemon");
+        builder.redirectOutput(directory.resolve("daemon.log").toFile());
+        daemon = builder.start();
+        for (int i = 0; i < 300 && !Files.isRegularFile(daemonFile); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(Files.isRegularFile(daemonFile), "the daemon did not start");
+    }
+
+    @AfterEach
+    void stopDaemon() {
+        daemon.destroyForcibly();
+    }
+
+    @Test
+    void scriptsRunOnTheDaemon() throws Exception {
+        assertEquals("daemon\n", client("where.vg"));
+    }
+
+    @Test
+    void anIdleConnectionDoesNotHoldUpOtherClients() throws Exception {
+        try (Socket idle = new Socket(InetAddress.getLoopbackAddress(), port())) {
+            assertEquals("daemon\n", client("where.vg"));
+        }
+    }
+
+    @Test
+    void aClientWithAnotherEnvironmentRunsTheScriptItself() throws Exception {
+        ProcessBuilder builder = VgProcess.builder(directory, properties("client"), "--client", "where.vg");
+        builder.environment().put("VG_ASSETS_PATH", directory.toString());
+        Process process = builder.start();
+        process.getOutputStream().close();
+        assertEquals("client\n", VgProcess.output(process));
+    }
+
+    @Test
+    void aClientFindingTheDaemonBusyRunsTheScriptItself() throws Exception {
+        Process waiting = VgProcess.builder(directory, properties("client"), "--client", "waiting.vg").start();
+        BufferedReader output = new BufferedReader(new InputStreamReader(waiting.getInputStream(), StandardCharsets.UTF_8));
+        for (String line; !"started".equals(line = output.readLine()); ) {
+            assertNotNull(line, "the waiting script did not start");
+        }
+        assertEquals("client\n", client("where.vg"));
+
+        waiting.getOutputStream().write('\n');
+        waiting.getOutputStream().close();
+        assertEquals("daemon", output.readLine());
+        assertEquals(0, waiting.waitFor());
+    }
+
+    private String client(String script) throws IOException, InterruptedException {
+        return VgProcess.run(directory, properties("client"), "--client", script);
+    }
+
+    private List<String> properties(String where) {
+        return Arrays.asList("vg.daemon.file=" + daemonFile, "vg.test.where=" + where);
+    }
+
+    private int port() throws IOException {
+        return Integer.parseInt(Files.readAllLines(daemonFile, StandardCharsets.UTF_8).get(0).trim());
+    }
+}
@@ -0,0 +1,47 @@
+package components;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs each test script with the node tree, the register VM and the
+ * bytecode compiler, alone and together, and from its .vgc file, and checks
+ * that every way prints exactly what the script is expected to print.
+ */
+class ExecutionModesTest {
+    private static final List<String> TREE = Arrays.asList("vg.vm=false", "vg.jit=false", "vg.vgc=false");
+    private static final List<String> TREE_JIT = Arrays.asList("vg.vm=false", "vg.vgc=false");
+    private static final List<String> VM = Arrays.asList("vg.jit=false", "vg.vgc=false");
+    private static final List<String> VM_JIT = Collections.singletonList("vg.vgc=false");
+    private static final List<String> VGC = Collections.singletonList("vg.jit=false");
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"basic", "control", "functions", "oop", "libs", "errors", "scope", "bench", "locals",
+        "dynscope", "literals"})
+    void everyModePrintsTheExpectedOutput(String name) throws Exception {
+        String script = VgProcess.copyScript(name + ".vg", directory).getFileName().toString();
+        String expected = VgProcess.normalize(VgProcess.resource("/scripts/" + name + ".out"));
+
+        assertEquals(expected, VgProcess.run(directory, TREE, script), "tree");
+        assertEquals(expected, VgProcess.run(directory, TREE_JIT, script), "tree with the JIT");
+        assertEquals(expected, VgProcess.run(directory, VM, script), "VM");
+        assertEquals(expected, VgProcess.run(directory, VM_JIT, script), "VM with the JIT");
+
+        assertEquals(expected, VgProcess.run(directory, VGC, script), "VM, writing the .vgc file");
+        assertTrue(Files.isRegularFile(directory.resolve(script + "c")), "no .vgc file written");
+        assertEquals(expected, VgProcess.run(directory, VGC, script), "VM, reading the .vgc file");
+    }
+}
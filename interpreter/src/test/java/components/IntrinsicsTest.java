@@ -0,0 +1,243 @@
+package components;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks every {@link Intrinsics} implementation against the bundled
+ * library: that the fingerprint it was written for is the body's, that it
+ * binds, and that it returns what the body returns.
+ */
+class IntrinsicsTest {
+    // Argument lists to call each deterministic function with
+    private static final Map<String, List<List<Object>>> SAMPLES = new HashMap<>();
+    // Functions whose results are random, checked by what any result must satisfy
+    private static final List<String> RANDOM = Arrays.asList("Random.number.integer", "Random.number.float",
+        "Random.number.floatRange", "Random.number.boolean", "Random.arrayTools.element", "Random.arrayTools.shuffle");
+
+    static {
+        sample("MathLib.constants.pi", args());
+        sample("MathLib.constants.e", args());
+        for (String name : Arrays.asList("add", "subtract", "multiply", "divide", "min", "max")) {
+            sample("MathLib.arithmetic." + name, args(7, 3), args(-2, 5), args(2.5, -4), args(9, 0.5), args(3, 0),
+                args("a", "b"));
+        }
+        for (String name : Arrays.asList("abs", "floor", "ceil")) {
+            sample("MathLib.arithmetic." + name, args(3), args(-3), args(2.5), args(-2.5), args(0));
+        }
+        sample("MathLib.power.pow", args(2, 10), args(2, -2), args(1.5, 3), args(-3, 3), args(5, 0));
+        sample("MathLib.power.sqrt", args(16.0), args(16), args(0.25), args(-4));
+        sample("MathLib.sequence.factorial", args(0), args(1), args(5), args(10), args(4.5));
+        sample("MathLib.sequence.fibonacci", args(0), args(1), args(2), args(20), args(7.5));
+        for (String name : Arrays.asList("sin", "cos", "tan")) {
+            sample("MathLib.trig." + name, args(0), args(0.5), args(1.0), args(-2.0), args(4), args(10.0));
+        }
+        sample("MathLib.trig.hypot", args(3, 4), args(1.5, 2.0), args(5, 12));
+
+        sample("Arrays.array.getLength", args(list(1, 2, 3)), args(list()));
+        sample("Arrays.array.push", args(list(1, 2), 3), args(list(), "x"));
+        sample("Arrays.array.pop", args(list(1, 2, 3)));
+        sample("Arrays.array.unshift", args(list(1, 2), 0));
+        sample("Arrays.array.shift", args(list(1, 2, 3)));
+
+        sample("Util.Type.getType", args(1), args(2.5), args("s"), args(true), args(list(1)));
+        sample("Util.Integer.toInt", args("42"), args(3.7), args(5));
+        sample("Util.Double.toDouble", args("2.5"), args(3));
+        sample("Util.String.toString", args(5), args(2.5), args(true));
+        sample("Util.String.indexOf", args("hello", "l"), args("hello", "z"));
+        sample("Util.String.substring", args("hello", 1, 3), args("hello", 0, 5));
+        sample("Util.String.stringLength", args("hello"), args(""));
+        sample("Util.String.toUpper", args("abc"), args("MiXed"));
+        sample("Util.String.fromCharCode", args(65), args(97));
+        sample("Util.Boolean.toBoolean", args("true"), args("no"), args(1));
+    }
+
+    private static Interpreter interpreter;
+
+    @BeforeAll
+    static void createInterpreter(@TempDir Path packages) {
+        interpreter = new Interpreter(packages.toString());
+    }
+
+    @Test
+    void fingerprintsAreThoseOfTheBundledLibraries() throws IOException {
+        Properties recorded = new Properties();
+        try (InputStream in = Intrinsics.class.getResourceAsStream("intrinsics.properties")) {
+            assertNotNull(in, "intrinsics.properties is missing");
+            recorded.load(in);
+        }
+        Map<String, String> bundled = bundledFingerprints();
+        for (String name : new TreeSet<>(Intrinsics.names())) {
+            assertTrue(bundled.containsKey(name), name + " is not declared by any bundled library");
+            assertEquals(bundled.get(name), recorded.getProperty(name), "The body of " + name
+                + " changed. Check that its implementation still computes what the body does, then record"
+                + " the new fingerprint in intrinsics.properties: " + name + "=" + bundled.get(name));
+        }
+    }
+
+    @Test
+    void everyIntrinsicBinds() {
+        for (String name : Intrinsics.names()) {
+            assertTrue(lookup(name) instanceof IntrinsicFunction, name + " is not bound to its implementation");
+        }
+    }
+
+    @Test
+    void everyIntrinsicIsSampled() {
+        List<String> sampled = new ArrayList<>(SAMPLES.keySet());
+        sampled.addAll(RANDOM);
+        assertEquals(new TreeSet<>(Intrinsics.names()), new TreeSet<>(sampled));
+    }
+
+    @Test
+    void intrinsicsReturnWhatTheirBodiesReturn() {
+        for (Map.Entry<String, List<List<Object>>> entry : SAMPLES.entrySet()) {
+            String name = entry.getKey();
+            Function body = body(name);
+            for (List<Object> args : entry.getValue()) {
+                List<Object> bodyArgs = copy(args);
+                List<Object> intrinsicArgs = copy(args);
+                Object expected = outcome(body, bodyArgs);
+                Object actual = outcome(lookup(name), intrinsicArgs);
+                String call = name + args;
+                assertEquals(expected, actual, call);
+                assertEquals(expected == null ? null : expected.getClass(),
+                    actual == null ? null : actual.getClass(), call);
+                assertEquals(bodyArgs, intrinsicArgs, call + " left its arguments different");
+            }
+        }
+    }
+
+    @Test
+    void numbersAreComputedWithoutTheBody() {
+        // Otherwise the comparison above would compare the body with itself
+        for (String name : Arrays.asList("MathLib.arithmetic.add", "MathLib.power.sqrt", "MathLib.trig.sin",
+                "MathLib.sequence.fibonacci")) {
+            List<Object> args = name.endsWith("add") ? args(1, 2) : args(4);
+            assertNotSame(Intrinsics.FALLBACK, Intrinsics.implementation(name).call(args), name);
+        }
+    }
+
+    @Test
+    void randomResultsAreInRange() {
+        for (int i = 0; i < 200; i++) {
+            double integer = ((Number) lookup("Random.number.integer").call(args(1, 6))).doubleValue();
+            assertTrue(integer >= 1 && integer <= 6 && integer == Math.floor(integer), "integer " + integer);
+            double fraction = (Double) lookup("Random.number.float").call(args());
+            assertTrue(fraction >= 0 && fraction < 1, "float " + fraction);
+            double ranged = ((Number) lookup("Random.number.floatRange").call(args(2, 3))).doubleValue();
+            assertTrue(ranged >= 2 && ranged < 3, "floatRange " + ranged);
+            assertTrue(lookup("Random.number.boolean").call(args()) instanceof Boolean);
+            assertTrue(list(1, 2, 3).contains(lookup("Random.arrayTools.element").call(args(list(1, 2, 3)))));
+
+            List<Object> shuffled = list(1, 2, 3, 4, 5);
+            Object result = lookup("Random.arrayTools.shuffle").call(args(shuffled));
+            assertTrue(result == shuffled, "shuffle returns its argument");
+            List<Object> sorted = new ArrayList<>(shuffled);
+            sorted.sort(null);
+            assertEquals(list(1, 2, 3, 4, 5), sorted);
+        }
+    }
+
+    private static Function lookup(String name) {
+        String[] parts = name.split("\\.");
+        Library library = interpreter.getModuleRegistry().getLibrary(parts[0]);
+        assertNotNull(library, name);
+        Namespace namespace = library.getNamespace(parts[1]);
+        for (int i = 2; i < parts.length - 1; i++) {
+            namespace = namespace.getChildNamespace(parts[i]);
+        }
+        return (Function) namespace.getSymbol(parts[parts.length - 1]);
+    }
+
+    // What a call returns, or the message of the error it raises
+    private static Object outcome(Function function, List<Object> args) {
+        try {
+            return function.call(args);
+        } catch (RuntimeException e) {
+            return "error: " + e.getMessage();
+        }
+    }
+
+    // The function as it would be without its intrinsic
+    private static Function body(String name) {
+        Function function = lookup(name);
+        return new Function(function.getParameters(), function.getBlock(), function.getBody(), interpreter);
+    }
+
+    private static Map<String, String> bundledFingerprints() throws IOException {
+        Map<String, String> fingerprints = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(VgProcess.LIBRARIES, "*.vglib")) {
+            for (Path file : files) {
+                vg_langParser parser = new vg_langParser(new CommonTokenStream(new vg_langLexer(CharStreams.fromPath(file))));
+                for (vg_langParser.StatementContext statement : parser.program().statement()) {
+                    vg_langParser.LibraryDeclarationContext library = statement.libraryDeclaration();
+                    if (library == null) {
+                        continue;
+                    }
+                    for (vg_langParser.NamespaceDeclarationContext namespace : library.namespaceDeclaration()) {
+                        collect(namespace, library.IDENTIFIER().getText() + "." + namespace.IDENTIFIER().getText(),
+                            fingerprints);
+                    }
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    // As ImportVisitor declares them: a later function of the same name replaces an earlier one
+    private static void collect(vg_langParser.NamespaceDeclarationContext namespace, String path,
+                                Map<String, String> fingerprints) {
+        for (vg_langParser.FunctionDeclarationContext function : namespace.functionDeclaration()) {
+            fingerprints.put(path + "." + function.IDENTIFIER().getText(), Intrinsics.fingerprint(function.block()));
+        }
+        for (vg_langParser.NamespaceDeclarationContext child : namespace.namespaceDeclaration()) {
+            collect(child, path + "." + child.IDENTIFIER().getText(), fingerprints);
+        }
+    }
+
+    @SafeVarargs
+    private static void sample(String name, List<Object>... args) {
+        SAMPLES.put(name, Arrays.asList(args));
+    }
+
+    private static List<Object> args(Object... values) {
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
+    private static List<Object> list(Object... values) {
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
+    // Arrays are changed in place, so each call gets its own
+    private static List<Object> copy(List<Object> args) {
+        List<Object> copy = new ArrayList<>();
+        for (Object arg : args) {
+            @SuppressWarnings("unchecked")
+            Object value = arg instanceof List ? copy((List<Object>) arg) : arg;
+            copy.add(value);
+        }
+        return copy;
+    }
+}
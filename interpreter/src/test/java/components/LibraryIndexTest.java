@@ -0,0 +1,75 @@
+package components;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LibraryIndexTest {
+    private static final String SOURCE = String.join("\n",
+        "## library Commented { is not a declaration",
+        "/# nor is library Block { #/",
+        "library First {",
+        "    namespace values {",
+        "        var text = \"library Quoted {\";",
+        "        function answer() { return 42; }",
+        "    }",
+        "}",
+        "library Second { }");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void onlyHeadersOutsideCommentsAndStringsAreIndexed() {
+        assertEquals(Arrays.asList("First", "Second"), Interpreter.declaredLibraries(SOURCE));
+    }
+
+    @Test
+    void sourceThatDoesNotLexStillIndexesItsHeaders() {
+        assertEquals(Collections.singletonList("Broken"), Interpreter.declaredLibraries("library Broken { ` }"));
+    }
+
+    @Test
+    void indexedLibrariesLoadOnFirstUse() throws Exception {
+        Path libraries = Files.createDirectories(directory.resolve("libraries"));
+        Files.write(libraries.resolve("index.vglib"), SOURCE.getBytes(StandardCharsets.UTF_8));
+        Interpreter interpreter = new Interpreter(directory.resolve("packages").toString());
+        interpreter.loadLibraries(libraries.toString());
+
+        ModuleRegistry registry = interpreter.getModuleRegistry();
+        for (String fake : Arrays.asList("Commented", "Block", "Quoted")) {
+            assertFalse(registry.containsLibrary(fake), fake);
+        }
+        Library first = registry.getLibrary("First");
+        assertNotNull(first);
+        assertNotNull(first.getNamespace("values").getSymbol("answer"));
+        assertNotNull(registry.getLibrary("Second"));
+    }
+
+    @Test
+    void aLibraryThatFailsToLoadReportsWhyOnEveryLookup() throws Exception {
+        Path libraries = Files.createDirectories(directory.resolve("libraries"));
+        Files.write(libraries.resolve("broken.vglib"),
+            "library Broken { namespace values { var = ; } }".getBytes(StandardCharsets.UTF_8));
+        Interpreter interpreter = new Interpreter(directory.resolve("packages").toString());
+        interpreter.loadLibraries(libraries.toString());
+
+        ModuleRegistry registry = interpreter.getModuleRegistry();
+        for (int lookup = 0; lookup < 2; lookup++) {
+            ErrorHandler.VGException error = assertThrows(ErrorHandler.VGException.class,
+                () -> registry.getLibrary("Broken"));
+            assertTrue(error.getMessage().contains("Syntax error"), error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package components;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Names bound outside the global scope turn off the global fast path for
+ * that name, but only in the interpreter whose scripts bound them, as when
+ * a daemon runs one script after another.
+ */
+class LocalNamesTest {
+    @TempDir
+    Path packages;
+
+    @Test
+    void localNamesBelongToTheirInterpreter() {
+        Interpreter first = new Interpreter(packages.toString());
+        first.interpret("function count(n) { var tally = 0; for (var step = 0; step < n; step = step + 1) {"
+            + " tally = tally + step; } return tally; } print(count(3));");
+        Interpreter second = new Interpreter(packages.toString());
+        second.interpret("var tally = 1; print(tally);");
+
+        for (String name : new String[]{"n", "tally", "step"}) {
+            assertTrue(first.getGlobalSymbolTable().isLocalName(name), name);
+            assertFalse(second.getGlobalSymbolTable().isLocalName(name), name);
+        }
+    }
+}
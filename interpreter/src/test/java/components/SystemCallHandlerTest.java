@@ -0,0 +1,85 @@
+package components;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SystemCallHandlerTest {
+    private static final String FIXTURE = Fixture.class.getName();
+
+    private final SystemCallHandler.Cache cache = new SystemCallHandler.Cache();
+    private final SystemCallHandler handler;
+
+    SystemCallHandlerTest() {
+        Map<String, Set<String>> methods = new HashMap<>();
+        methods.put(FIXTURE, new HashSet<>(Arrays.asList("parse", "check")));
+        handler = new SystemCallHandler(methods, Collections.singleton(FIXTURE), 1, 0, cache);
+    }
+
+    @Test
+    void failedCallsAreNotCached() {
+        String error = message(call("parse", "x"));
+        assertEquals(0, cache.size());
+
+        assertEquals(12, call("parse", "12"));
+        assertEquals(1, cache.size());
+        assertEquals(error, message(call("parse", "x")), "cached calls report errors as uncached ones do");
+    }
+
+    @Test
+    void whatTheMethodThrowsIsReportedAsItsOwn() {
+        String uncached = message(call("check", "bad"));
+        assertEquals("Error invoking system method: java.lang.ClassCastException: Not good", uncached);
+        assertEquals("ok", call("check", "ok"));
+        assertEquals(1, cache.size());
+
+        int calls = Fixture.checks;
+        assertEquals(uncached, message(call("check", "bad")));
+        assertEquals(calls + 1, Fixture.checks, "the method runs once");
+    }
+
+    private Object call(String method, Object... args) {
+        List<Object> callArgs = new ArrayList<>(Arrays.asList(FIXTURE, method));
+        callArgs.addAll(Arrays.asList(args));
+        try {
+            return handler.handleSystemCall(callArgs);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private static String message(Object outcome) {
+        assertTrue(outcome instanceof RuntimeException, "expected an error, got " + outcome);
+        return ((RuntimeException) outcome).getMessage();
+    }
+
+    /** Stands in for an allowed Java class. */
+    public static final class Fixture {
+        private Fixture() {
+        }
+
+        public static int parse(String text) {
+            return Integer.parseInt(text);
+        }
+
+        static int checks;
+
+        public static Object check(Object value) {
+            checks++;
+            if (!"ok".equals(value)) {
+                throw new ClassCastException("Not good");
+            }
+            return value;
+        }
+    }
+}
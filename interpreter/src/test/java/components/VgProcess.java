@@ -0,0 +1,129 @@
+package components;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs {@code Main} in a JVM of its own, as the {@code vg} launcher does,
+ * with the repository's configuration and libraries. Switches such as
+ * {@code vg.vm} and {@code vg.jit} are read once per JVM, so comparing them
+ * takes a process per run.
+ */
+final class VgProcess {
+    static final Path CONFIG = Paths.get("..", "Configuration").toAbsolutePath().normalize();
+    static final Path LIBRARIES = Paths.get("..", "libraries").toAbsolutePath().normalize();
+    private static final long TIMEOUT_SECONDS = 120;
+
+    private VgProcess() {
+    }
+
+    /** Copies the test script {@code name} from the test resources into {@code directory}. */
+    static Path copyScript(String name, Path directory) throws IOException {
+        Path target = directory.resolve(name);
+        try (InputStream in = VgProcess.class.getResourceAsStream("/scripts/" + name)) {
+            if (in == null) {
+                throw new IOException("No test script " + name);
+            }
+            Files.copy(in, target);
+        }
+        return target;
+    }
+
+    static String resource(String name) throws IOException {
+        try (InputStream in = VgProcess.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("No test resource " + name);
+            }
+            return new String(readAll(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Starts {@code Main args} in {@code directory}, with {@code properties}
+     * as extra {@code -D} options. The library cache is kept in the
+     * directory, so runs never share one with the user's.
+     */
+    static ProcessBuilder builder(Path directory, List<String> properties, String... args) {
+        List<String> command = new ArrayList<>(Arrays.asList(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-Xss4m",
+            "-Dfile.encoding=UTF-8",
+            "-Dvg.cache.dir=" + directory.resolve(".cache")));
+        for (String property : properties) {
+            command.add("-D" + property);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("Main");
+        command.addAll(Arrays.asList(args));
+
+        ProcessBuilder builder = new ProcessBuilder(command).directory(directory.toFile()).redirectErrorStream(true);
+        Map<String, String> environment = builder.environment();
+        environment.put("VG_APP_CONFIG", CONFIG.toString());
+        environment.put("VG_LIBRARIES_PATH", LIBRARIES.toString());
+        return builder;
+    }
+
+    /** Runs {@code Main args} to completion and returns what it printed; see {@link #output}. */
+    static String run(Path directory, List<String> properties, String... args) throws IOException, InterruptedException {
+        Process process = builder(directory, properties, args).start();
+        process.getOutputStream().close();
+        return output(process);
+    }
+
+    /**
+     * Waits for {@code process} and returns its stdout and stderr, without
+     * the ANTLR version warning and the note about the packages directory,
+     * and with object hash codes and the glyphs in error messages, which
+     * depend on the encoding the interpreter was built with, left out.
+     */
+    static String output(Process process) throws IOException, InterruptedException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Thread reader = new Thread(() -> {
+            try {
+                copy(process.getInputStream(), output);
+            } catch (IOException ignored) {
+                // The process was killed
+            }
+        });
+        reader.start();
+        if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("vg did not finish within " + TIMEOUT_SECONDS + " seconds");
+        }
+        reader.join();
+        return normalize(new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    static String normalize(String output) {
+        return Arrays.stream(output.split("\r?\n", -1))
+            .filter(line -> !line.startsWith("ANTLR Tool version") && !line.startsWith("Created packages directory"))
+            .map(line -> line.replaceAll("@[0-9a-f]+\\b", "@").replaceAll("[^\\x00-\\x7F]", ""))
+            .collect(Collectors.joining("\n"));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        copy(in, out);
+        return out.toByteArray();
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, n);
+        }
+    }
+}
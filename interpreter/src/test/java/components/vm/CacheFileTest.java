@@ -0,0 +1,67 @@
+package components.vm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CacheFileTest {
+    private static final int MAGIC = 0x56475400;
+    private static final int VERSION = 1;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whatIsWrittenIsRead() {
+        Path path = directory.resolve("nested").resolve("file");
+        byte[] hash = CacheFile.hash("source");
+        CacheFile.write(path, MAGIC, VERSION, hash, new ArrayList<>(Arrays.asList("a", 1, 2.5)));
+        assertEquals(Arrays.asList("a", 1, 2.5), CacheFile.read(path, MAGIC, VERSION, hash, ArrayList.class));
+    }
+
+    @Test
+    void filesForOtherSourcesOrFormatsAreIgnored() {
+        Path path = directory.resolve("file");
+        byte[] hash = CacheFile.hash("source");
+        CacheFile.write(path, MAGIC, VERSION, hash, new ArrayList<>());
+        assertNull(CacheFile.read(path, MAGIC, VERSION, CacheFile.hash("changed"), ArrayList.class));
+        assertNull(CacheFile.read(path, MAGIC, VERSION + 1, hash, ArrayList.class));
+        assertNull(CacheFile.read(path, MAGIC + 1, VERSION, hash, ArrayList.class));
+        assertNull(CacheFile.read(path, MAGIC, VERSION, hash, String.class));
+        assertNull(CacheFile.read(directory.resolve("missing"), MAGIC, VERSION, hash, ArrayList.class));
+    }
+
+    @Test
+    void filesFromAnotherBuildAreIgnored() throws IOException {
+        Path path = directory.resolve("file");
+        byte[] hash = CacheFile.hash("source");
+        CacheFile.write(path, MAGIC, VERSION, hash, new ArrayList<>());
+
+        // Same file, with the build it records replaced
+        byte[] rest;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            in.readInt();
+            in.readInt();
+            in.readUTF();
+            rest = new byte[in.available()];
+            in.readFully(rest);
+        }
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF("another build");
+            out.write(rest);
+        }
+        assertNull(CacheFile.read(path, MAGIC, VERSION, hash, ArrayList.class));
+    }
+}